@@ -0,0 +1,38 @@
+package com.antigravity.expensetracker.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Map;
+
+// Bounded Caffeine caches. The size/TTL spec of each cache lives only in application.yml,
+// under caches.<name> (Caffeine spec syntax, without recordStats). Stats are always
+// recorded and published by actuator as cache.gets / cache.puts / cache.evictions / cache.size.
+@Configuration
+public class CacheConfig {
+
+    private static final String DEFAULT_KEY = "default";
+    private static final String DEFAULT_SPEC = "maximumSize=1000,expireAfterWrite=10m";
+
+    @Bean
+    public CacheManager cacheManager(Environment environment) {
+        Map<String, String> specs = Binder.get(environment)
+                .bind("caches", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Caches without a spec still get a bound instead of growing forever
+        cacheManager.setCaffeine(Caffeine.from(specs.getOrDefault(DEFAULT_KEY, DEFAULT_SPEC)).recordStats());
+        specs.forEach((name, spec) -> {
+            if (!DEFAULT_KEY.equals(name)) {
+                cacheManager.registerCustomCache(name, Caffeine.from(spec).recordStats().build());
+            }
+        });
+        return cacheManager;
+    }
+}
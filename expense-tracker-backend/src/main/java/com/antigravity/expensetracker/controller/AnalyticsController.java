@@ -0,0 +1,63 @@
+package com.antigravity.expensetracker.controller;
+
+import com.antigravity.expensetracker.dto.AnalyticsSummary;
+import com.antigravity.expensetracker.dto.BudgetStatus;
+import com.antigravity.expensetracker.dto.CategoryDelta;
+import com.antigravity.expensetracker.dto.CategoryPercentiles;
+import com.antigravity.expensetracker.dto.PeriodTotal;
+import com.antigravity.expensetracker.dto.RollingSpend;
+import com.antigravity.expensetracker.service.AnalyticsService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "http://localhost:5173")
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @GetMapping
+    public AnalyticsSummary getSummary(@RequestParam UUID userId,
+            @RequestParam(defaultValue = "6") int months,
+            @RequestParam(defaultValue = "8") int weeks) {
+        return analyticsService.getSummary(userId, months, weeks);
+    }
+
+    @GetMapping("/monthly")
+    public List<PeriodTotal> getMonthly(@RequestParam UUID userId, @RequestParam(defaultValue = "12") int months) {
+        return analyticsService.getMonthlyTotals(userId, months);
+    }
+
+    @GetMapping("/weekly")
+    public List<PeriodTotal> getWeekly(@RequestParam UUID userId, @RequestParam(defaultValue = "12") int weeks) {
+        return analyticsService.getWeeklyTotals(userId, weeks);
+    }
+
+    @GetMapping("/month-over-month")
+    public List<CategoryDelta> getMonthOverMonth(@RequestParam UUID userId) {
+        return analyticsService.getMonthOverMonth(userId);
+    }
+
+    @GetMapping("/rolling")
+    public List<RollingSpend> getRolling(@RequestParam UUID userId) {
+        return analyticsService.getRollingSpend(userId);
+    }
+
+    @GetMapping("/percentiles")
+    public List<CategoryPercentiles> getPercentiles(@RequestParam UUID userId,
+            @RequestParam(defaultValue = "90") int days) {
+        return analyticsService.getPercentiles(userId, days);
+    }
+
+    @GetMapping("/budget")
+    public BudgetStatus getBudget(@RequestParam UUID userId) {
+        return analyticsService.getBudgetStatus(userId);
+    }
+}
@@ -3,8 +3,11 @@ package com.antigravity.expensetracker.controller;
 import com.antigravity.expensetracker.dto.ChatRequest;
 import com.antigravity.expensetracker.dto.ChatResponse;
 import com.antigravity.expensetracker.service.ChatService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.UUID;
 
@@ -25,6 +28,12 @@ public class ChatController {
         return ResponseEntity.ok(response);
     }
 
+    // SSE: "token" events carry text deltas, then one "done" event with the remaining quota
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> stream(@RequestParam UUID userId, @RequestBody ChatRequest request) {
+        return chatService.streamUserMessage(userId, request.getMessage(), request.getHistory());
+    }
+
     @GetMapping("/status")
     public ResponseEntity<Integer> getStatus(@RequestParam UUID userId) {
         return ResponseEntity.ok(chatService.getRemainingQuota(userId));
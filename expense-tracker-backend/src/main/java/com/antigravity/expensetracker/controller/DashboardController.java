@@ -0,0 +1,40 @@
+package com.antigravity.expensetracker.controller;
+
+import com.antigravity.expensetracker.dto.DashboardSnapshot;
+import com.antigravity.expensetracker.service.DashboardService;
+import com.antigravity.expensetracker.service.FanOutTimeoutException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@CrossOrigin(origins = "http://localhost:5173")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    public DashboardController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    // ResponseEntity with an ETag is answered with 304 Not Modified when it
+    // matches the request's If-None-Match header.
+    @GetMapping
+    public ResponseEntity<?> getSnapshot(@RequestParam UUID userId) {
+        try {
+            DashboardSnapshot snapshot = dashboardService.getSnapshot(userId);
+            return ResponseEntity.ok()
+                    .eTag(dashboardService.computeEtag(snapshot))
+                    .cacheControl(CacheControl.noCache())
+                    .body(snapshot);
+        } catch (FanOutTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.antigravity.expensetracker.controller;
 
 import com.antigravity.expensetracker.model.EmailLog;
-import com.antigravity.expensetracker.model.User;
 import com.antigravity.expensetracker.repository.EmailLogRepository;
 import com.antigravity.expensetracker.repository.UserRepository;
 import com.antigravity.expensetracker.service.EmailParsingService;
+import com.antigravity.expensetracker.service.UserIdentityService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +23,9 @@ public class EmailLogController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserIdentityService userIdentityService;
+
     @Autowired
     private EmailParsingService emailParsingService;
 
@@ -33,8 +36,10 @@ public class EmailLogController {
             String userIdStr = (String) ((Map<String, Object>) payload.get("user")).get("id");
             UUID userId = UUID.fromString(userIdStr);
 
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            // Cached existence check; the log only needs the foreign key, not a loaded User
+            if (userIdentityService.findById(userId).isEmpty()) {
+                throw new RuntimeException("User not found");
+            }
 
             String messageId = (String) payload.get("messageId");
             if (messageId == null || messageId.isEmpty()) {
@@ -74,7 +79,7 @@ public class EmailLogController {
             }
 
             EmailLog emailLog = new EmailLog();
-            emailLog.setUser(user);
+            emailLog.setUser(userRepository.getReferenceById(userId));
             emailLog.setMessageId(messageId);
             emailLog.setSubject(subject);
             emailLog.setBody((String) payload.get("body"));
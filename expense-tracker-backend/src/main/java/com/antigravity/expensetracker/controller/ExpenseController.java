@@ -1,8 +1,9 @@
 package com.antigravity.expensetracker.controller;
 
 import com.antigravity.expensetracker.model.Expense;
-import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.service.ExpenseService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -15,40 +16,52 @@ import java.util.UUID;
 public class ExpenseController {
 
     @Autowired
-    private ExpenseRepository expenseRepository;
+    private ExpenseService expenseService;
 
     @GetMapping
     public List<Expense> getAllExpenses(@RequestParam(required = false) UUID userId) {
-        if (userId != null) {
-            return expenseRepository.findByUserId(userId);
-        }
-        return expenseRepository.findAll();
+        return expenseService.getExpenses(userId);
     }
 
     @PostMapping
-    @org.springframework.cache.annotation.CacheEvict(value = "suggestions", allEntries = true)
     public Expense createExpense(@RequestBody Expense expense) {
-        return expenseRepository.save(expense);
+        return expenseService.createExpense(expense);
     }
 
     @PutMapping("/{id}")
     public Expense updateExpense(@PathVariable UUID id, @RequestBody Expense expense) {
-        return expenseRepository.findById(id).map(existingExpense -> {
-            existingExpense.setAmount(expense.getAmount());
-            existingExpense.setCurrency(expense.getCurrency());
-            existingExpense.setCategory(expense.getCategory());
-            existingExpense.setMerchant(expense.getMerchant());
-            existingExpense.setDate(expense.getDate());
-            existingExpense.setNotes(expense.getNotes());
-            existingExpense.setType(expense.getType());
-            existingExpense.setSource(expense.getSource());
-
-            return expenseRepository.save(existingExpense);
-        }).orElseThrow(() -> new RuntimeException("Expense not found"));
+        return expenseService.updateExpense(id, expense);
     }
 
     @DeleteMapping("/{id}")
     public void deleteExpense(@PathVariable UUID id) {
-        expenseRepository.deleteById(id);
+        expenseService.deleteExpense(id);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> createExpenses(@RequestBody List<Expense> expenses) {
+        try {
+            return ResponseEntity.ok(expenseService.createExpenses(expenses));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<?> updateExpenses(@RequestBody List<Expense> expenses) {
+        try {
+            return ResponseEntity.ok(expenseService.updateExpenses(expenses));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<?> deleteExpenses(@RequestBody List<UUID> ids) {
+        try {
+            return ResponseEntity.ok(expenseService.deleteExpenses(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
     }
 }
@@ -0,0 +1,24 @@
+package com.antigravity.expensetracker.controller;
+
+import com.antigravity.expensetracker.dto.CashFlowForecast;
+import com.antigravity.expensetracker.service.ForecastService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/forecast")
+@CrossOrigin(origins = "http://localhost:5173")
+public class ForecastController {
+
+    private final ForecastService forecastService;
+
+    public ForecastController(ForecastService forecastService) {
+        this.forecastService = forecastService;
+    }
+
+    @GetMapping
+    public CashFlowForecast getForecast(@RequestParam UUID userId, @RequestParam(defaultValue = "3") int months) {
+        return forecastService.getForecast(userId, months);
+    }
+}
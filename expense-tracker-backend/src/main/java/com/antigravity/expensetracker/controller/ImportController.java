@@ -0,0 +1,54 @@
+package com.antigravity.expensetracker.controller;
+
+import com.antigravity.expensetracker.dto.ImportStatus;
+import com.antigravity.expensetracker.service.StatementImportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/imports")
+@CrossOrigin(origins = "http://localhost:5173")
+public class ImportController {
+
+    private final StatementImportService statementImportService;
+
+    public ImportController(StatementImportService statementImportService) {
+        this.statementImportService = statementImportService;
+    }
+
+    @PostMapping(consumes = "multipart/form-data")
+    public ResponseEntity<?> importStatement(@RequestParam UUID userId, @RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("Error: File is empty");
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(statementImportService.startImport(userId, file));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error: " + e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body("Error: Could not read upload");
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getImport(@PathVariable UUID id) {
+        try {
+            return ResponseEntity.ok(statementImportService.getStatus(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping
+    public List<ImportStatus> getImports(@RequestParam UUID userId) {
+        return statementImportService.getStatuses(userId);
+    }
+}
@@ -0,0 +1,24 @@
+package com.antigravity.expensetracker.controller;
+
+import com.antigravity.expensetracker.dto.SyncResponse;
+import com.antigravity.expensetracker.service.SyncService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/sync")
+@CrossOrigin(origins = "http://localhost:5173")
+public class SyncController {
+
+    private final SyncService syncService;
+
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    @GetMapping
+    public SyncResponse sync(@RequestParam UUID userId, @RequestParam(defaultValue = "0") long since) {
+        return syncService.getChanges(userId, since);
+    }
+}
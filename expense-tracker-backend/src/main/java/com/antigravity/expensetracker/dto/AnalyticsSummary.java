@@ -0,0 +1,19 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsSummary {
+    private List<PeriodTotal> monthly;
+    private List<PeriodTotal> weekly;
+    private List<CategoryDelta> monthOverMonth;
+    private List<RollingSpend> rolling;
+    private List<CategoryPercentiles> percentiles;
+    private BudgetStatus budget;
+}
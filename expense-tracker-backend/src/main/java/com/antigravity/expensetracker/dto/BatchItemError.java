@@ -0,0 +1,16 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemError {
+    private int index; // Position in the request list
+    private UUID id;
+    private String message;
+}
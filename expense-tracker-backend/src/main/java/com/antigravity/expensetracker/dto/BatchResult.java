@@ -0,0 +1,18 @@
+package com.antigravity.expensetracker.dto;
+
+import com.antigravity.expensetracker.model.Expense;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+    private int requested;
+    private int succeeded;
+    private List<Expense> expenses; // Saved rows (empty for deletes)
+    private List<BatchItemError> errors;
+}
@@ -0,0 +1,20 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetStatus {
+    private String month; // "2026-03"
+    private BigDecimal monthlyBudget;
+    private BigDecimal spent;
+    private BigDecimal remaining;
+    private double percentUsed;
+    private BigDecimal projectedMonthEnd; // linear extrapolation of month-to-date spend
+    private boolean projectedToExceed;
+}
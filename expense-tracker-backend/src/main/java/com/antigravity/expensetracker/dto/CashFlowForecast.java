@@ -0,0 +1,22 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CashFlowForecast {
+    private LocalDate asOf;
+    private BigDecimal monthlyBudget;
+    private BigDecimal dailyVariableSpend;
+    private Map<String, BigDecimal> categoryDailyRates;
+    private LocalDate firstBreachDate;
+    private List<ForecastMonth> months;
+}
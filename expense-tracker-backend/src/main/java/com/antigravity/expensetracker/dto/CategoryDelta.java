@@ -0,0 +1,18 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryDelta {
+    private String category;
+    private BigDecimal currentMonth;
+    private BigDecimal previousMonth;
+    private BigDecimal delta;
+    private Double percentChange; // null when there was no spend in the previous month
+}
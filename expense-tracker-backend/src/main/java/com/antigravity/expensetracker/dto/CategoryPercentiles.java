@@ -0,0 +1,18 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryPercentiles {
+    private String category;
+    private long samples;
+    private double p50;
+    private double p90;
+    private double p99;
+    private double mean;
+    private double max;
+}
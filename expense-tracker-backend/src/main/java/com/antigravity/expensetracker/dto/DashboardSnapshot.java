@@ -0,0 +1,23 @@
+package com.antigravity.expensetracker.dto;
+
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.model.Expense;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSnapshot {
+    private UserSummary user;
+    private BudgetStatus budget;
+    private ForecastMonth forecast; // Current month from the cached cash-flow forecast
+    private List<Expense> recentExpenses;
+    private List<Bill> upcomingBills;
+    private int remainingChatQuota;
+    private List<Suggestion> suggestions; // last stored suggestions, never generated here
+    private boolean suggestionsReady;
+}
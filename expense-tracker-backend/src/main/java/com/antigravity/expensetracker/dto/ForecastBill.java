@@ -0,0 +1,19 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One expanded occurrence of a recurring bill
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForecastBill {
+    private LocalDate date;
+    private String merchant;
+    private String category;
+    private BigDecimal amount;
+}
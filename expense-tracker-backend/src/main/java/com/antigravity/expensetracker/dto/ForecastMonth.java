@@ -0,0 +1,24 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForecastMonth {
+    private String month; // "2026-03"
+    private BigDecimal actualToDate; // Current month only, zero for future months
+    private BigDecimal projectedBills;
+    private BigDecimal projectedVariable; // Trailing category rates, excluding what bills cover
+    private BigDecimal projectedTotal;
+    private BigDecimal monthlyBudget;
+    private BigDecimal projectedBalance; // Budget left at month end, null without a budget
+    private LocalDate breachDate; // First day cumulative spend exceeds the budget, if it does
+    private List<ForecastBill> bills;
+}
@@ -0,0 +1,27 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportStatus {
+    private UUID id;
+    private UUID userId;
+    private String fileName;
+    private String format; // CSV, OFX
+    private String state; // QUEUED, RUNNING, COMPLETED, FAILED
+    private long rowsRead;
+    private long imported;
+    private long duplicates;
+    private long rejected;
+    private int percentComplete;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,17 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PeriodTotal {
+    private String period; // "2026-03" for months, week start date "2026-03-02" for weeks
+    private String category;
+    private BigDecimal total;
+    private long count;
+}
@@ -0,0 +1,17 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollingSpend {
+    private int windowDays;
+    private BigDecimal total;
+    private Map<String, BigDecimal> byCategory;
+}
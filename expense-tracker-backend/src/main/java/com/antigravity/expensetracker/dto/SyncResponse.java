@@ -0,0 +1,20 @@
+package com.antigravity.expensetracker.dto;
+
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.model.Expense;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponse {
+    private long version; // Pass back as "since" on the next sync
+    private boolean fullResync; // true when the lists replace everything the client has
+    private List<Expense> expenses;
+    private List<Bill> bills;
+    private List<SyncDeletion> deleted;
+}
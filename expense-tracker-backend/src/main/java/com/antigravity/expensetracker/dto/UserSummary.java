@@ -0,0 +1,20 @@
+package com.antigravity.expensetracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummary {
+    private UUID id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String currency;
+    private Double monthlyBudget;
+    private Boolean darkMode;
+}
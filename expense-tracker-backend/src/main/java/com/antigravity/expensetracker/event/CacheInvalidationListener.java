@@ -0,0 +1,57 @@
+package com.antigravity.expensetracker.event;
+
+import com.antigravity.expensetracker.service.BillMatchIndexService;
+import com.antigravity.expensetracker.service.ChatContextService;
+import com.antigravity.expensetracker.service.DashboardService;
+import com.antigravity.expensetracker.service.UserIdentityService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+// Targeted per-user eviction for every write path. The transaction search index and the
+// forecast inputs are not evicted: they are validated against the database on every read.
+@Component
+public class CacheInvalidationListener {
+
+    private final CacheManager cacheManager;
+    private final UserIdentityService userIdentityService;
+
+    public CacheInvalidationListener(CacheManager cacheManager, UserIdentityService userIdentityService) {
+        this.cacheManager = cacheManager;
+        this.userIdentityService = userIdentityService;
+    }
+
+    // After commit, so a concurrent read cannot re-cache the pre-write state
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        UUID userId = event.getUserId();
+        evict(DashboardService.CACHE_NAME, userId);
+        switch (event.getType()) {
+            case EXPENSES -> {
+                evict(ChatContextService.CACHE_NAME, userId);
+            }
+            case BILLS -> {
+                evict(BillMatchIndexService.CACHE_NAME, userId);
+                evict(ChatContextService.CACHE_NAME, userId);
+            }
+            case PROFILE -> {
+                // Budget is not covered by the sync version the chat summary is keyed on
+                evict(ChatContextService.CACHE_NAME, userId);
+                userIdentityService.evict(userId);
+            }
+            case SUGGESTIONS -> {
+                // Only the dashboard embeds stored suggestions
+            }
+        }
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.antigravity.expensetracker.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+// Published once per user per write operation (single or batch); listeners run after commit
+@Data
+@AllArgsConstructor
+public class UserDataChangedEvent {
+
+    public enum DataType {
+        EXPENSES, BILLS, PROFILE,
+        SUGGESTIONS // Derived: a background refresh stored new suggestions
+    }
+
+    private UUID userId;
+    private DataType type;
+}
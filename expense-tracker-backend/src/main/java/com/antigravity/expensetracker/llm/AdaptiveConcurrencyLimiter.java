@@ -0,0 +1,169 @@
+package com.antigravity.expensetracker.llm;
+
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// AIMD limit on concurrent calls to one provider. Fast answers raise the limit by about
+// one per limit's worth of calls; a 429/503, a timeout or a response far slower than the
+// running average cuts it. Each priority lane may use only its share of the limit, and a
+// waiting caller blocks every lower lane, so low-priority work is shed first.
+final class AdaptiveConcurrencyLimiter {
+
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double SLOW_DECREASE_FACTOR = 0.9;
+    private static final double LATENCY_SMOOTHING = 0.1;
+
+    record Lane(double share, Duration maxWait) {
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Lane[] lanes;
+    private final Condition[] available;
+    private final int[] waiting;
+    private final double minLimit;
+    private final double maxLimit;
+    private final double slowLatencyRatio;
+    private double limit;
+    private double averageLatencyMs;
+    private int inFlight;
+
+    AdaptiveConcurrencyLimiter(Lane[] lanes, int initialLimit, int minLimit, int maxLimit,
+            double slowLatencyRatio) {
+        this.lanes = lanes;
+        this.available = new Condition[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            available[i] = lock.newCondition();
+        }
+        this.waiting = new int[lanes.length];
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.slowLatencyRatio = slowLatencyRatio;
+    }
+
+    // Blocks up to the lane's max wait; null means the call was shed
+    Permit acquire(LlmPriority priority) {
+        return acquire(priority, lanes[priority.ordinal()].maxWait());
+    }
+
+    // Never waits; used for optional work such as hedges
+    Permit tryAcquire(LlmPriority priority) {
+        return acquire(priority, Duration.ZERO);
+    }
+
+    double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit acquire(LlmPriority priority, Duration maxWait) {
+        int lane = priority.ordinal();
+        long remaining = maxWait.toNanos();
+        lock.lock();
+        try {
+            waiting[lane]++;
+            try {
+                while (!canAdmit(lane)) {
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    remaining = available[lane].awaitNanos(remaining);
+                }
+            } finally {
+                waiting[lane]--;
+            }
+            inFlight++;
+            return new Permit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canAdmit(int lane) {
+        for (int higher = 0; higher < lane; higher++) {
+            if (waiting[higher] > 0) {
+                return false;
+            }
+        }
+        return inFlight < Math.max(1, (int) Math.floor(limit * lanes[lane].share()));
+    }
+
+    private void onRelease(Double latencyMs, boolean overloaded) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (overloaded) {
+                limit = Math.max(minLimit, limit * DECREASE_FACTOR);
+            } else if (latencyMs != null) {
+                if (averageLatencyMs > 0 && latencyMs > averageLatencyMs * slowLatencyRatio) {
+                    limit = Math.max(minLimit, limit * SLOW_DECREASE_FACTOR);
+                } else {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+                averageLatencyMs = averageLatencyMs == 0 ? latencyMs
+                        : averageLatencyMs + LATENCY_SMOOTHING * (latencyMs - averageLatencyMs);
+            }
+            for (Condition condition : available) {
+                condition.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Released exactly once, whichever of the outcomes happens first
+    final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void success(long latencyMs) {
+            if (released.compareAndSet(false, true)) {
+                onRelease((double) latencyMs, false);
+            }
+        }
+
+        void failure(Throwable error) {
+            if (released.compareAndSet(false, true)) {
+                onRelease(null, isOverload(error));
+            }
+        }
+
+        // Cancelled hedge losers and streams: no signal about provider load
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                onRelease(null, false);
+            }
+        }
+    }
+
+    static boolean isOverload(Throwable error) {
+        if (error instanceof TimeoutException) {
+            return true;
+        }
+        if (error instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == 429 || status == 503;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,38 @@
+package com.antigravity.expensetracker.llm;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Last N successful latencies of one route, lock-free. Percentiles are computed on demand
+// from a copy, which is cheap at this size and only happens once per hedged call.
+final class LatencyWindow {
+
+    private static final int MIN_SAMPLES = 20;
+
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+
+    LatencyWindow(int size) {
+        this.samples = new AtomicLongArray(size);
+    }
+
+    void record(long millis) {
+        long slot = recorded.getAndIncrement() % samples.length();
+        samples.set((int) slot, millis);
+    }
+
+    // -1 until there are enough samples to trust
+    long percentile(double p) {
+        int n = (int) Math.min(recorded.get(), samples.length());
+        if (n < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] copy = new long[n];
+        for (int i = 0; i < n; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        return copy[Math.max(0, (int) Math.ceil(p * n) - 1)];
+    }
+}
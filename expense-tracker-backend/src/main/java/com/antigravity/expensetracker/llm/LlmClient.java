@@ -0,0 +1,300 @@
+package com.antigravity.expensetracker.llm;
+
+import com.antigravity.expensetracker.llm.AdaptiveConcurrencyLimiter.Lane;
+import com.antigravity.expensetracker.llm.AdaptiveConcurrencyLimiter.Permit;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Routes chat-completion calls to the FAST or STRONG provider (llm.routes.<route>.*,
+// defaulting to openai.api.*). Every call first takes a permit from the route's adaptive
+// limiter, in the lane of its operation; a lane with no capacity fails fast with
+// LlmOverloadedException. Idempotent calls are hedged: if the first attempt has not
+// answered within the route's observed p95, a duplicate is sent (only if the limiter has
+// room) and whichever answers first wins; the other is cancelled. Latency, tokens and
+// cost are published per route and operation as llm.requests, llm.tokens and llm.cost (USD).
+@Component
+@Slf4j
+public class LlmClient {
+
+    private static final Duration HEDGED_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration CHAT_TIMEOUT = Duration.ofSeconds(30);
+    private static final int LATENCY_SAMPLES = 256;
+
+    private static final double[] DEFAULT_SHARES = { 1.0, 0.8, 0.5 };
+    private static final long[] DEFAULT_MAX_WAIT_MS = { 5000, 30000, 0 };
+
+    private record Route(LlmProvider provider, double inputCostPer1k, double outputCostPer1k,
+            LatencyWindow latencies, AdaptiveConcurrencyLimiter limiter) {
+    }
+
+    private final Map<LlmRoute, Route> routes = new EnumMap<>(LlmRoute.class);
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration streamIdleTimeout; // Between chunks
+
+    @Value("${llm.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    @Value("${llm.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    @Value("${llm.hedge.min-delay-ms:500}")
+    private long minHedgeDelayMs;
+
+    @Value("${llm.hedge.default-delay-ms:3000}")
+    private long defaultHedgeDelayMs;
+
+    public LlmClient(WebClient.Builder webClientBuilder, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${llm.limiter.initial-limit:8}") int initialLimit,
+            @Value("${llm.limiter.min-limit:1}") int minLimit,
+            @Value("${llm.limiter.max-limit:64}") int maxLimit,
+            @Value("${llm.limiter.slow-latency-ratio:3.0}") double slowLatencyRatio,
+            @Value("${llm.stream.idle-timeout-ms:30000}") long streamIdleTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.streamIdleTimeout = Duration.ofMillis(streamIdleTimeoutMs);
+
+        Lane[] lanes = new Lane[LlmPriority.values().length];
+        for (LlmPriority priority : LlmPriority.values()) {
+            String prefix = "llm.limiter.lanes." + priority.key() + ".";
+            lanes[priority.ordinal()] = new Lane(
+                    environment.getProperty(prefix + "share", Double.class, DEFAULT_SHARES[priority.ordinal()]),
+                    Duration.ofMillis(environment.getProperty(prefix + "max-wait-ms", Long.class,
+                            DEFAULT_MAX_WAIT_MS[priority.ordinal()])));
+        }
+
+        WebClient webClient = webClientBuilder.build();
+        String defaultUrl = environment.getProperty("openai.api.url", "https://api.openai.com/v1/chat/completions");
+        String defaultKey = environment.getProperty("openai.api.key", "");
+        for (LlmRoute route : LlmRoute.values()) {
+            String prefix = "llm.routes." + route.key() + ".";
+            LlmProvider provider = new OpenAiCompatibleProvider(route.key(),
+                    environment.getProperty(prefix + "model", route == LlmRoute.FAST ? "gpt-4o-mini" : "gpt-4o"),
+                    environment.getProperty(prefix + "url", defaultUrl),
+                    environment.getProperty(prefix + "api-key", defaultKey),
+                    webClient);
+            // Separate limiters: each model has its own provider rate limit
+            Route target = new Route(provider,
+                    environment.getProperty(prefix + "input-cost-per-1k", Double.class, 0.0),
+                    environment.getProperty(prefix + "output-cost-per-1k", Double.class, 0.0),
+                    new LatencyWindow(LATENCY_SAMPLES),
+                    new AdaptiveConcurrencyLimiter(lanes, initialLimit, minLimit, maxLimit, slowLatencyRatio));
+            routes.put(route, target);
+            Gauge.builder("llm.hedge.delay", target, this::hedgeDelayMillis)
+                    .description("Current hedge delay in ms (observed latency percentile)")
+                    .tag("route", route.key())
+                    .register(meterRegistry);
+            Gauge.builder("llm.limiter.limit", target.limiter(), AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Adaptive concurrency limit")
+                    .tag("route", route.key())
+                    .register(meterRegistry);
+            Gauge.builder("llm.limiter.in_flight", target.limiter(), AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("route", route.key())
+                    .register(meterRegistry);
+        }
+    }
+
+    // Single attempt: chat rounds, where a duplicate would double the cost of long answers
+    public String complete(LlmRoute route, LlmOperation operation, Map<String, Object> body) {
+        return call(route, operation, body, false);
+    }
+
+    // Idempotent requests (extraction, rewording): hedged at the observed p95, and tried
+    // once more after a server or connection error. Throttling is never retried here; it
+    // shrinks the limit instead.
+    public String completeHedged(LlmRoute route, LlmOperation operation, Map<String, Object> body) {
+        return call(route, operation, body, true);
+    }
+
+    // Taking the permit may block for the lane's max wait, so it happens on a worker thread,
+    // never on the subscriber's (which may be a Netty event loop)
+    public Flux<String> stream(LlmRoute route, LlmOperation operation, Map<String, Object> body) {
+        Route target = routes.get(route);
+        return Flux.defer(() -> {
+            Permit permit = acquire(route, target, operation);
+            long started = System.nanoTime();
+            return target.provider().stream(body)
+                    .timeout(streamIdleTimeout)
+                    .doOnError(permit::failure)
+                    .doFinally(signal -> {
+                        permit.release(); // Stream duration says nothing about load
+                        timer(route, target, operation, signal == SignalType.ON_COMPLETE ? "success" : "error")
+                                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    });
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private String call(LlmRoute route, LlmOperation operation, Map<String, Object> body, boolean hedged) {
+        Route target = routes.get(route);
+        long started = System.nanoTime();
+        try {
+            String result;
+            try {
+                result = execute(route, target, operation, body, hedged);
+            } catch (RuntimeException e) {
+                if (!hedged || !isRetryable(Exceptions.unwrap(e))) {
+                    throw e;
+                }
+                log.warn("Retrying LLM call once (route {}, {}): {}", route.key(), operation.key(), e.getMessage());
+                result = execute(route, target, operation, body, true);
+            }
+            timer(route, target, operation, "success").record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            recordUsage(route, target, operation, result);
+            return result;
+        } catch (RuntimeException e) {
+            timer(route, target, operation, e instanceof LlmOverloadedException ? "shed" : "error")
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            log.error("LLM call failed (route {}, {}): {}", route.key(), operation.key(), e.getMessage());
+            throw e;
+        }
+    }
+
+    private String execute(LlmRoute route, Route target, LlmOperation operation, Map<String, Object> body,
+            boolean hedged) {
+        Permit permit = acquire(route, target, operation);
+        Duration timeout = hedged ? HEDGED_TIMEOUT : CHAT_TIMEOUT;
+        Mono<String> response = hedged && hedgeEnabled
+                ? hedge(route, target, operation, body, permit, timeout)
+                : attempt(target, body, permit, timeout, false);
+        return response.block();
+    }
+
+    private Permit acquire(LlmRoute route, Route target, LlmOperation operation) {
+        Permit permit = target.limiter().acquire(operation.priority());
+        if (permit == null) {
+            Counter.builder("llm.limiter.rejected")
+                    .tag("route", route.key())
+                    .tag("lane", operation.priority().key())
+                    .register(meterRegistry)
+                    .increment();
+            throw new LlmOverloadedException("No LLM capacity for " + operation.key() + " on the "
+                    + route.key() + " route");
+        }
+        return permit;
+    }
+
+    // A primary attempt cancelled because its hedge won still took at least as long as it
+    // ran; that lower bound is recorded, or the window would only ever see the fast answers
+    // and the hedge delay would drift down. A cancelled hedge says nothing and is not recorded.
+    private Mono<String> attempt(Route target, Map<String, Object> body, Permit permit, Duration timeout,
+            boolean recordOnCancel) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return target.provider().complete(body)
+                    .timeout(timeout)
+                    .doOnNext(result -> {
+                        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                        target.latencies().record(millis);
+                        permit.success(millis);
+                    })
+                    .doOnError(permit::failure)
+                    .doOnCancel(() -> {
+                        if (recordOnCancel) {
+                            target.latencies().record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                        }
+                    })
+                    .doFinally(signal -> permit.release());
+        });
+    }
+
+    private Mono<String> hedge(LlmRoute route, Route target, LlmOperation operation, Map<String, Object> body,
+            Permit permit, Duration timeout) {
+        Mono<String> duplicate = Mono.delay(Duration.ofMillis(hedgeDelayMillis(target)))
+                .then(Mono.defer(() -> {
+                    // Optional work: skipped, not queued, when the limiter is full
+                    Permit hedgePermit = target.limiter().tryAcquire(operation.priority());
+                    if (hedgePermit == null) {
+                        return Mono.<String>empty();
+                    }
+                    hedgeCounter(route, "launched").increment();
+                    return attempt(target, body, hedgePermit, timeout, false)
+                            .doOnNext(result -> hedgeCounter(route, "won").increment());
+                }))
+                // A skipped or failed hedge defers to the primary instead of ending the race
+                .onErrorResume(e -> Mono.never())
+                .switchIfEmpty(Mono.never());
+        // The primary's first signal, value or error, cancels the other side, including a
+        // pending delay: a primary that fails fast (429, 503, shed) is never duplicated
+        return Mono.firstWithSignal(attempt(target, body, permit, timeout, true), duplicate);
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (AdaptiveConcurrencyLimiter.isOverload(error)) {
+            return false;
+        }
+        return error instanceof WebClientRequestException
+                || (error instanceof WebClientResponseException response
+                        && response.getStatusCode().is5xxServerError());
+    }
+
+    private long hedgeDelayMillis(Route target) {
+        long observed = target.latencies().percentile(hedgePercentile);
+        return observed < 0 ? defaultHedgeDelayMs : Math.max(minHedgeDelayMs, observed);
+    }
+
+    private void recordUsage(LlmRoute route, Route target, LlmOperation operation, String response) {
+        JsonNode usage;
+        try {
+            usage = objectMapper.readTree(response).path("usage");
+        } catch (Exception e) {
+            return; // Stub providers may not report usage
+        }
+        long input = usage.path("prompt_tokens").asLong(0);
+        long output = usage.path("completion_tokens").asLong(0);
+        tokenCounter(route, operation, "input").increment(input);
+        tokenCounter(route, operation, "output").increment(output);
+        Counter.builder("llm.cost")
+                .baseUnit("usd")
+                .tag("route", route.key())
+                .tag("operation", operation.key())
+                .register(meterRegistry)
+                .increment(input / 1000.0 * target.inputCostPer1k() + output / 1000.0 * target.outputCostPer1k());
+    }
+
+    private Timer timer(LlmRoute route, Route target, LlmOperation operation, String outcome) {
+        return Timer.builder("llm.requests")
+                .tag("route", route.key())
+                .tag("model", target.provider().model())
+                .tag("operation", operation.key())
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private Counter tokenCounter(LlmRoute route, LlmOperation operation, String type) {
+        return Counter.builder("llm.tokens")
+                .tag("route", route.key())
+                .tag("operation", operation.key())
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private Counter hedgeCounter(LlmRoute route, String result) {
+        return Counter.builder("llm.hedges")
+                .tag("route", route.key())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
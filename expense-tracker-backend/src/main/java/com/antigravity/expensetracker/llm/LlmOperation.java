@@ -0,0 +1,21 @@
+package com.antigravity.expensetracker.llm;
+
+public enum LlmOperation {
+    CHAT(LlmPriority.INTERACTIVE),
+    EXTRACTION(LlmPriority.INGESTION),
+    REPHRASE(LlmPriority.BACKGROUND);
+
+    private final LlmPriority priority;
+
+    LlmOperation(LlmPriority priority) {
+        this.priority = priority;
+    }
+
+    public LlmPriority priority() {
+        return priority;
+    }
+
+    public String key() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,10 @@
+package com.antigravity.expensetracker.llm;
+
+// Thrown instead of queueing when a lane has no capacity left; callers fall back
+// (regex extraction, local wording, "try again later" in chat).
+public class LlmOverloadedException extends RuntimeException {
+
+    public LlmOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.antigravity.expensetracker.llm;
+
+// Limiter lanes, highest first. Lower lanes may only use part of the limit and give up
+// waiting sooner, so under overload they are shed before interactive chat is.
+public enum LlmPriority {
+    INTERACTIVE, INGESTION, BACKGROUND;
+
+    public String key() {
+        return name().toLowerCase();
+    }
+}
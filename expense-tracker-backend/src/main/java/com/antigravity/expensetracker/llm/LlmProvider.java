@@ -0,0 +1,20 @@
+package com.antigravity.expensetracker.llm;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+// One chat-completions endpoint and model. Request bodies are passed without "model";
+// the provider adds its own. Both calls are lazy, so a cancelled hedge never hits the wire.
+public interface LlmProvider {
+
+    String name();
+
+    String model();
+
+    Mono<String> complete(Map<String, Object> body);
+
+    // Raw "data:" payloads of the SSE stream, including the final [DONE]
+    Flux<String> stream(Map<String, Object> body);
+}
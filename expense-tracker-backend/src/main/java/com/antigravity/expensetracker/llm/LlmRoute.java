@@ -0,0 +1,11 @@
+package com.antigravity.expensetracker.llm;
+
+// FAST: cheap model for templated bank alerts, chat and rewording.
+// STRONG: better model for ambiguous emails, and for FAST extractions that came back unsure.
+public enum LlmRoute {
+    FAST, STRONG;
+
+    public String key() {
+        return name().toLowerCase();
+    }
+}
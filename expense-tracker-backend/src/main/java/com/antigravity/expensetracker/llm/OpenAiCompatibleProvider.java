@@ -0,0 +1,71 @@
+package com.antigravity.expensetracker.llm;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Any OpenAI-compatible /chat/completions endpoint: OpenAI itself, another vendor's
+// compatible API, or a local stub server for tests.
+public class OpenAiCompatibleProvider implements LlmProvider {
+
+    private final String name;
+    private final String model;
+    private final String url;
+    private final String apiKey;
+    private final WebClient webClient;
+
+    public OpenAiCompatibleProvider(String name, String model, String url, String apiKey, WebClient webClient) {
+        this.name = name;
+        this.model = model;
+        this.url = url;
+        this.apiKey = apiKey;
+        this.webClient = webClient;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String model() {
+        return model;
+    }
+
+    @Override
+    public Mono<String> complete(Map<String, Object> body) {
+        return webClient.post()
+                .uri(url)
+                .header("Authorization", "Bearer " + apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(withModel(body))
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+
+    @Override
+    public Flux<String> stream(Map<String, Object> body) {
+        return webClient.post()
+                .uri(url)
+                .header("Authorization", "Bearer " + apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(withModel(body))
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                })
+                .mapNotNull(ServerSentEvent::data);
+    }
+
+    private Map<String, Object> withModel(Map<String, Object> body) {
+        Map<String, Object> request = new HashMap<>(body);
+        request.put("model", model);
+        return request;
+    }
+}
@@ -10,7 +10,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bills")
+@Table(name = "bills", indexes = {
+        @Index(name = "idx_bills_user_version", columnList = "user_id, change_version"),
+        @Index(name = "idx_bills_due_date", columnList = "due_date, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,6 +25,10 @@ public class Bill {
     @Column(nullable = true)
     private String merchant;
 
+    @Column(name = "merchant_id")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long merchantId; // Canonical merchant, set by MerchantService
+
     @Column(nullable = true)
     private String category;
 
@@ -42,7 +49,10 @@ public class Bill {
     private LocalDateTime lastPaidDate;
 
     @Column(name = "frequency")
-    private String frequency = "MONTHLY"; // Default to monthly for recurring bills
+    private String frequency = "MONTHLY"; // WEEKLY, MONTHLY, QUARTERLY, YEARLY
+
+    @Column(name = "confidence")
+    private Double confidence; // 0-1 for bills suggested by RecurringBillDetector, null once user-managed
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
@@ -51,4 +61,8 @@ public class Bill {
 
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "change_version")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long changeVersion; // Per-user sync version of the last write
 }
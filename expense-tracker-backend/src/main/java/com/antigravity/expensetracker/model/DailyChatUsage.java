@@ -9,7 +9,9 @@ import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
-@Table(name = "daily_chat_usage")
+@Table(name = "daily_chat_usage", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_chat_usage_user_date", columnNames = { "user_id", "date" })
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
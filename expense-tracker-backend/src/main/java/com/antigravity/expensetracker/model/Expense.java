@@ -10,7 +10,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "expenses")
+@Table(name = "expenses", indexes = {
+        @Index(name = "idx_expenses_user_date", columnList = "user_id, date"),
+        @Index(name = "idx_expenses_user_version", columnList = "user_id, change_version"),
+        @Index(name = "idx_expenses_user_merchant", columnList = "user_id, merchant_id, date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,6 +31,10 @@ public class Expense {
     private String category;
     private String merchant;
 
+    @Column(name = "merchant_id")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long merchantId; // Canonical merchant, set by MerchantService at ingestion
+
     @Column(nullable = false)
     private LocalDateTime date;
 
@@ -41,4 +49,12 @@ public class Expense {
 
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "import_id")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private UUID importId; // Statement import that created the row, if any
+
+    @Column(name = "change_version")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long changeVersion; // Per-user sync version of the last write
 }
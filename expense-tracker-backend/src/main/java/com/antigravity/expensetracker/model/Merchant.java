@@ -0,0 +1,32 @@
+package com.antigravity.expensetracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Canonical merchant. Raw strings like "SWIGGY", "Swiggy Pvt Ltd" and
+// "UPI/P2M/.../swiggy@icici" all resolve to one row; see MerchantService.
+@Entity
+@Table(name = "merchants", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_merchants_key", columnNames = "normalized_key")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Merchant {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "normalized_key", nullable = false)
+    private String normalizedKey;
+
+    @Column(name = "display_name", nullable = false)
+    private String displayName;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
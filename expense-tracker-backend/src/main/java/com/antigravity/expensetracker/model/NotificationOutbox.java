@@ -0,0 +1,63 @@
+package com.antigravity.expensetracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Notifications are written here in the same transaction as the work that produced
+// them and delivered later by NotificationDispatcher.
+@Entity
+@Table(name = "notification_outbox", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_notification_outbox_dedupe", columnNames = "dedupe_key")
+}, indexes = {
+        @Index(name = "idx_notification_outbox_due", columnList = "status, next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutbox {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    private UUID id;
+
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "type", nullable = false)
+    private String type; // e.g. BILL_DUE
+
+    @Column(name = "dedupe_key", nullable = false)
+    private String dedupeKey; // Same event enqueued twice is stored once
+
+    @Column(name = "message", nullable = false, length = 1000)
+    private String message;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil; // Claimed by a dispatcher until then
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
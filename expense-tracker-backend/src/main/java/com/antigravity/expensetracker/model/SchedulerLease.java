@@ -0,0 +1,37 @@
+package com.antigravity.expensetracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One row per (job, run, shard). The node holding an unexpired lease owns the shard;
+// the cursor lets another node resume where a crashed owner stopped.
+@Entity
+@Table(name = "scheduler_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLease {
+    @Id
+    @Column(name = "lease_key")
+    private String leaseKey;
+
+    @Column(name = "owner", nullable = false)
+    private String owner;
+
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "cursor_due_date")
+    private LocalDateTime cursorDueDate;
+
+    @Column(name = "cursor_id")
+    private UUID cursorId;
+}
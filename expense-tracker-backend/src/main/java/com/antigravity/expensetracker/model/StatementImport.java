@@ -0,0 +1,75 @@
+package com.antigravity.expensetracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One statement import job. activeUserId is set only while the job is queued or running;
+// its unique constraint allows one active import per user across all nodes.
+@Entity
+@Table(name = "statement_imports", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_statement_imports_active_user", columnNames = "active_user_id")
+}, indexes = {
+        @Index(name = "idx_statement_imports_user", columnList = "user_id, started_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementImport {
+    public static final String STATE_QUEUED = "QUEUED";
+    public static final String STATE_RUNNING = "RUNNING";
+    public static final String STATE_COMPLETED = "COMPLETED";
+    public static final String STATE_FAILED = "FAILED";
+
+    @Id
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "active_user_id")
+    private UUID activeUserId;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "format", nullable = false)
+    private String format; // CSV, OFX
+
+    @Column(name = "state", nullable = false)
+    private String state;
+
+    @Column(name = "total_bytes", nullable = false)
+    private long totalBytes;
+
+    @Column(name = "bytes_read", nullable = false)
+    private long bytesRead;
+
+    @Column(name = "rows_read", nullable = false)
+    private long rowsRead;
+
+    @Column(name = "imported", nullable = false)
+    private long imported;
+
+    @Column(name = "duplicates", nullable = false)
+    private long duplicates;
+
+    @Column(name = "rejected", nullable = false)
+    private long rejected;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt; // Progress heartbeat; a stale active job belonged to a dead node
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,39 @@
+package com.antigravity.expensetracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Marker left behind when an expense or bill is deleted, so sync clients learn about deletes
+@Entity
+@Table(name = "sync_tombstones", indexes = {
+        @Index(name = "idx_tombstones_user_version", columnList = "user_id, change_version"),
+        @Index(name = "idx_tombstones_deleted_at", columnList = "deleted_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncTombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "entity_type", nullable = false)
+    private String entityType; // EXPENSE, BILL
+
+    @Column(name = "entity_id", nullable = false)
+    private UUID entityId;
+
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt = LocalDateTime.now();
+}
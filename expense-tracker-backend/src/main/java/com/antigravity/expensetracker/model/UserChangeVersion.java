@@ -0,0 +1,27 @@
+package com.antigravity.expensetracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.UUID;
+
+// Per-user monotonically increasing change counter used by delta sync. prunedVersion is
+// the newest tombstone version removed by retention; older sync tokens must resync fully.
+@Entity
+@Table(name = "user_change_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChangeVersion {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "current_version", nullable = false)
+    private long currentVersion;
+
+    @Column(name = "pruned_version")
+    private Long prunedVersion; // Null until tombstones are first pruned
+}
@@ -0,0 +1,33 @@
+package com.antigravity.expensetracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Last generated suggestions per user, served as-is while a background refresh runs
+@Entity
+@Table(name = "user_suggestions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSuggestions {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload; // JSON array of Suggestion, null until first generated
+
+    @Column(name = "source_version", nullable = false)
+    private long sourceVersion; // User's sync version the payload was built from, -1 if never
+
+    @Column(name = "generated_at")
+    private LocalDateTime generatedAt;
+
+    @Column(name = "refresh_claimed_until")
+    private LocalDateTime refreshClaimedUntil; // One node regenerates at a time
+}
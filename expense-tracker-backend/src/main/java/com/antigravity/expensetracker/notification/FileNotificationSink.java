@@ -0,0 +1,55 @@
+package com.antigravity.expensetracker.notification;
+
+import com.antigravity.expensetracker.model.NotificationOutbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Appends one JSON line per notification; handy for local runs and tests
+@Component
+@ConditionalOnProperty(name = "notifications.sink", havingValue = "file")
+public class FileNotificationSink implements NotificationSink {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    // Not synchronized: file I/O under a monitor would pin the virtual thread's carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public FileNotificationSink(@Value("${notifications.file.path:notifications.jsonl}") String path,
+            ObjectMapper objectMapper) {
+        this.path = Path.of(path);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public void send(NotificationOutbox message) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("id", message.getId());
+        line.put("userId", message.getUserId());
+        line.put("type", message.getType());
+        line.put("message", message.getMessage());
+        byte[] bytes = (objectMapper.writeValueAsString(line) + System.lineSeparator())
+                .getBytes(StandardCharsets.UTF_8);
+        writeLock.lock();
+        try {
+            Files.write(path, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
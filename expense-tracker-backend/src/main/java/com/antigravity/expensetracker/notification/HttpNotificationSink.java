@@ -0,0 +1,47 @@
+package com.antigravity.expensetracker.notification;
+
+import com.antigravity.expensetracker.model.NotificationOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// POSTs each notification as JSON to notifications.http.url (a push gateway or a local stub).
+// Non-2xx responses and timeouts are retried by the dispatcher.
+@Component
+@ConditionalOnProperty(name = "notifications.sink", havingValue = "http")
+public class HttpNotificationSink implements NotificationSink {
+
+    private final WebClient webClient;
+    private final Duration timeout;
+
+    public HttpNotificationSink(WebClient.Builder webClientBuilder,
+            @Value("${notifications.http.url}") String url,
+            @Value("${notifications.http.timeout-ms:5000}") long timeoutMs) {
+        this.webClient = webClientBuilder.baseUrl(url).build();
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    @Override
+    public String name() {
+        return "http";
+    }
+
+    @Override
+    public void send(NotificationOutbox message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", message.getId());
+        body.put("userId", message.getUserId());
+        body.put("type", message.getType());
+        body.put("message", message.getMessage());
+        webClient.post()
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .block(timeout);
+    }
+}
@@ -0,0 +1,22 @@
+package com.antigravity.expensetracker.notification;
+
+import com.antigravity.expensetracker.model.NotificationOutbox;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "notifications.sink", havingValue = "log", matchIfMissing = true)
+public class LogNotificationSink implements NotificationSink {
+
+    @Override
+    public String name() {
+        return "log";
+    }
+
+    @Override
+    public void send(NotificationOutbox message) {
+        log.info("PUSH NOTIFICATION [{}]: {}", message.getUserId(), message.getMessage());
+    }
+}
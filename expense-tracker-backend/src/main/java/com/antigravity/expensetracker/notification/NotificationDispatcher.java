@@ -0,0 +1,218 @@
+package com.antigravity.expensetracker.notification;
+
+import com.antigravity.expensetracker.model.NotificationOutbox;
+import com.antigravity.expensetracker.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+// Drains notification_outbox in batches. Rows are claimed in a short transaction and
+// sent outside it, so a slow sink never holds locks or blocks the bill scheduler.
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    private static final int RETENTION_DAYS = 7;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor executor;
+    private final PerUserRateLimiter rateLimiter;
+
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Counter deferredCounter;
+    private final Timer batchTimer;
+    private final AtomicReference<Double> lastRate = new AtomicReference<>(0.0);
+
+    @Value("${notifications.dispatcher.batch-size:100}")
+    private int batchSize;
+
+    @Value("${notifications.dispatcher.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${notifications.dispatcher.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${notifications.dispatcher.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${notifications.dispatcher.max-backoff-minutes:60}")
+    private long maxBackoffMinutes;
+
+    @Value("${notifications.dispatcher.claim-minutes:5}")
+    private long claimMinutes;
+
+    public NotificationDispatcher(NotificationOutboxRepository outboxRepository,
+            NotificationSink sink,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+            MeterRegistry meterRegistry,
+            @Value("${notifications.rate-limit.per-user:5}") int perUserLimit,
+            @Value("${notifications.rate-limit.window-minutes:60}") long windowMinutes) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.rateLimiter = new PerUserRateLimiter(perUserLimit, Duration.ofMinutes(windowMinutes));
+
+        this.sentCounter = outcomeCounter(meterRegistry, "sent");
+        this.retriedCounter = outcomeCounter(meterRegistry, "retried");
+        this.failedCounter = outcomeCounter(meterRegistry, "failed");
+        this.deferredCounter = outcomeCounter(meterRegistry, "rate_limited");
+        this.batchTimer = Timer.builder("notifications.dispatch.batch")
+                .tag("sink", sink.name())
+                .register(meterRegistry);
+        Gauge.builder("notifications.dispatch.rate", lastRate, rate -> rate.get())
+                .description("Messages per second sent in the last dispatch run")
+                .tag("sink", sink.name())
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.dispatcher.interval-ms:5000}")
+    public void dispatch() {
+        long started = System.nanoTime();
+        int sent = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            BatchOutcome outcome = batchTimer.record(this::dispatchBatch);
+            sent += outcome.sent;
+            if (outcome.claimed < batchSize) {
+                break;
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        double rate = sent == 0 ? 0.0 : sent / seconds;
+        lastRate.set(rate);
+        if (sent > 0) {
+            log.info("Dispatched {} notifications via {} in {} ms ({} msg/s)", sent, sink.name(),
+                    Math.round(seconds * 1000), Math.round(rate));
+        }
+    }
+
+    // Nightly cleanup of delivered and permanently failed rows
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void purgeFinished() {
+        outboxRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(RETENTION_DAYS));
+        rateLimiter.evictExpired(Instant.now());
+    }
+
+    private BatchOutcome dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> batch = transactionTemplate.execute(status -> {
+            List<NotificationOutbox> rows = outboxRepository.lockDue(now, batchSize);
+            if (!rows.isEmpty()) {
+                outboxRepository.markSending(ids(rows), now.plusMinutes(claimMinutes));
+            }
+            return rows;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return new BatchOutcome(0, 0);
+        }
+
+        List<NotificationOutbox> deferred = new ArrayList<>();
+        List<CompletableFuture<String>> sends = new ArrayList<>();
+        List<NotificationOutbox> attempted = new ArrayList<>();
+        Instant instant = Instant.now();
+        for (NotificationOutbox message : batch) {
+            Instant resetAt = rateLimiter.tryAcquire(message.getUserId(), instant);
+            if (resetAt != null) {
+                message.setStatus(NotificationOutbox.STATUS_PENDING);
+                message.setNextAttemptAt(LocalDateTime.ofInstant(resetAt, ZoneId.systemDefault()));
+                message.setLockedUntil(null);
+                deferred.add(message);
+                continue;
+            }
+            attempted.add(message);
+            sends.add(CompletableFuture.supplyAsync(() -> send(message), executor));
+        }
+
+        List<UUID> sentIds = new ArrayList<>();
+        List<NotificationOutbox> changed = new ArrayList<>(deferred);
+        for (int i = 0; i < attempted.size(); i++) {
+            NotificationOutbox message = attempted.get(i);
+            String error = sends.get(i).join();
+            if (error == null) {
+                sentIds.add(message.getId());
+            } else {
+                scheduleRetry(message, error);
+                changed.add(message);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                outboxRepository.markSent(sentIds, LocalDateTime.now());
+            }
+            outboxRepository.saveAll(changed);
+        });
+        sentCounter.increment(sentIds.size());
+        deferredCounter.increment(deferred.size());
+        return new BatchOutcome(batch.size(), sentIds.size());
+    }
+
+    // Returns null on success, otherwise the error message
+    private String send(NotificationOutbox message) {
+        try {
+            sink.send(message);
+            return null;
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            log.warn("Notification {} failed on attempt {}: {}", message.getId(), message.getAttempts() + 1, error);
+            return error;
+        }
+    }
+
+    // Exponential backoff: initial, 2x, 4x ... capped; FAILED after maxAttempts
+    private void scheduleRetry(NotificationOutbox message, String error) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        message.setLockedUntil(null);
+        if (attempts >= maxAttempts) {
+            message.setStatus(NotificationOutbox.STATUS_FAILED);
+            failedCounter.increment();
+            return;
+        }
+        long backoffSeconds = Math.min(initialBackoffSeconds << Math.min(attempts - 1, 20),
+                maxBackoffMinutes * 60);
+        message.setStatus(NotificationOutbox.STATUS_PENDING);
+        message.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoffSeconds));
+        retriedCounter.increment();
+    }
+
+    private static List<UUID> ids(List<NotificationOutbox> rows) {
+        return rows.stream().map(NotificationOutbox::getId).collect(Collectors.toList());
+    }
+
+    private Counter outcomeCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("notifications.dispatched")
+                .tag("sink", sink.name())
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private record BatchOutcome(int claimed, int sent) {
+    }
+}
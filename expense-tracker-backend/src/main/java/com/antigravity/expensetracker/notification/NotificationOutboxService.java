@@ -0,0 +1,35 @@
+package com.antigravity.expensetracker.notification;
+
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.repository.NotificationOutboxRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+@Service
+public class NotificationOutboxService {
+
+    public static final String TYPE_BILL_DUE = "BILL_DUE";
+
+    private final NotificationOutboxRepository outboxRepository;
+
+    public NotificationOutboxService(NotificationOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    // Joins the caller's transaction so the reminder commits together with the work that
+    // produced it. One reminder per bill per due date, however often the scheduler runs.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean enqueueBillReminder(Bill bill) {
+        String message = "You have subscribed to " + bill.getMerchant() + " and " + bill.getAmount()
+                + " will be debited on " + bill.getDueDate().format(DateTimeFormatter.ISO_DATE);
+        String dedupeKey = TYPE_BILL_DUE + ":" + bill.getId() + ":" + bill.getDueDate().toLocalDate();
+        UUID userId = bill.getUser() != null ? bill.getUser().getId() : null;
+        return outboxRepository.enqueue(UUID.randomUUID(), userId, TYPE_BILL_DUE, dedupeKey, message,
+                LocalDateTime.now()) > 0;
+    }
+}
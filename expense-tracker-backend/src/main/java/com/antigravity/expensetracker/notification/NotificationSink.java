@@ -0,0 +1,12 @@
+package com.antigravity.expensetracker.notification;
+
+import com.antigravity.expensetracker.model.NotificationOutbox;
+
+// Delivery channel used by NotificationDispatcher. Selected with notifications.sink
+// (log, file or http). Throwing marks the message for retry.
+public interface NotificationSink {
+
+    String name();
+
+    void send(NotificationOutbox message) throws Exception;
+}
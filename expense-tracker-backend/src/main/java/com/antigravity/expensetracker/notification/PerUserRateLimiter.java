@@ -0,0 +1,42 @@
+package com.antigravity.expensetracker.notification;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Fixed-window counter per user. Limits are per node, which is enough to stop a
+// burst of reminders from reaching one user; it is not a global quota.
+class PerUserRateLimiter {
+
+    private final int limit;
+    private final Duration window;
+    private final Map<UUID, Window> windows = new ConcurrentHashMap<>();
+
+    PerUserRateLimiter(int limit, Duration window) {
+        this.limit = limit;
+        this.window = window;
+    }
+
+    // Returns null if the message may be sent now, otherwise when the user's window resets
+    Instant tryAcquire(UUID userId, Instant now) {
+        if (userId == null || limit <= 0) {
+            return null;
+        }
+        Window current = windows.compute(userId, (id, w) -> {
+            if (w == null || !now.isBefore(w.resetAt)) {
+                return new Window(now.plus(window), 1);
+            }
+            return new Window(w.resetAt, w.count + 1);
+        });
+        return current.count <= limit ? null : current.resetAt;
+    }
+
+    void evictExpired(Instant now) {
+        windows.values().removeIf(w -> !now.isBefore(w.resetAt));
+    }
+
+    private record Window(Instant resetAt, int count) {
+    }
+}
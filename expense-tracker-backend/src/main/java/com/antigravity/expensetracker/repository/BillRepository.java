@@ -1,10 +1,64 @@
 package com.antigravity.expensetracker.repository;
 
 import com.antigravity.expensetracker.model.Bill;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.List;
 
 public interface BillRepository extends JpaRepository<Bill, UUID> {
     List<Bill> findByUserId(UUID userId);
+
+    List<Bill> findTop10ByUserIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc(UUID userId,
+            java.time.LocalDateTime horizon);
+
+    List<Bill> findByUserIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc(UUID userId,
+            java.time.LocalDateTime horizon, Pageable pageable);
+
+    List<Bill> findByUserIdAndIsPaidFalseOrderByDueDateAsc(UUID userId);
+
+    List<Bill> findByUserIdAndChangeVersionBetween(UUID userId, Long fromVersion, Long toVersion);
+
+    // Row lock until commit, so a user edit and a detector refresh cannot overwrite each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Bill b WHERE b.id = :id")
+    Optional<Bill> findByIdForUpdate(@Param("id") UUID id);
+
+    // Moves whenever one of the user's bills is written or deleted (each write takes a new
+    // sync version); both halves are served by the (user_id, change_version) indexes
+    @Query(value = "SELECT GREATEST(" +
+            "(SELECT MAX(b.change_version) FROM bills b WHERE b.user_id = :userId), " +
+            "(SELECT MAX(t.change_version) FROM sync_tombstones t WHERE t.user_id = :userId " +
+            "AND t.entity_type = 'BILL'))", nativeQuery = true)
+    Long findBillsVersion(@Param("userId") UUID userId);
+
+    // Keyset page: a name whose rows cannot be updated is passed over instead of returned again
+    @Query("SELECT DISTINCT b.merchant FROM Bill b WHERE b.merchantId IS NULL AND b.merchant > :after " +
+            "ORDER BY b.merchant")
+    List<String> findUnresolvedMerchantsAfter(@Param("after") String after, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Bill b SET b.merchantId = :merchantId WHERE b.merchant = :merchant AND b.merchantId IS NULL")
+    int assignMerchantId(@Param("merchant") String merchant, @Param("merchantId") Long merchantId);
+
+    // Keyset page over bills due in [from, to) for one user-hash shard. Served by
+    // idx_bills_due_date, so cost follows the number of due bills, not the table size.
+    @Query(value = "SELECT * FROM bills b WHERE b.due_date >= :from AND b.due_date < :to " +
+            "AND (hashtext(CAST(b.user_id AS text)) & 2147483647) % :shardCount = :shard " +
+            "AND (b.due_date > :afterDueDate OR (b.due_date = :afterDueDate AND b.id > :afterId)) " +
+            "ORDER BY b.due_date, b.id LIMIT :limit", nativeQuery = true)
+    List<Bill> findDuePage(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+            @Param("shard") int shard, @Param("shardCount") int shardCount,
+            @Param("afterDueDate") LocalDateTime afterDueDate, @Param("afterId") UUID afterId,
+            @Param("limit") int limit);
 }
@@ -2,10 +2,60 @@ package com.antigravity.expensetracker.repository;
 
 import com.antigravity.expensetracker.model.DailyChatUsage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.time.LocalDate;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface DailyChatUsageRepository extends JpaRepository<DailyChatUsage, UUID> {
     Optional<DailyChatUsage> findByUserIdAndDate(UUID userId, LocalDate date);
+
+    // Atomic check-and-increment on (user_id, date). Returns the day's count after the increment,
+    // as seen by every node, or empty when the limit is already reached.
+    @Transactional
+    @Query(value = "INSERT INTO daily_chat_usage (id, user_id, date, request_count) " +
+            "VALUES (:id, :userId, :date, 1) " +
+            "ON CONFLICT (user_id, date) DO UPDATE SET request_count = daily_chat_usage.request_count + 1 " +
+            "WHERE daily_chat_usage.request_count < :limit " +
+            "RETURNING request_count", nativeQuery = true)
+    Optional<Integer> reserve(@Param("id") UUID id, @Param("userId") UUID userId, @Param("date") LocalDate date,
+            @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DailyChatUsage u SET u.requestCount = u.requestCount - 1 " +
+            "WHERE u.userId = :userId AND u.date = :date AND u.requestCount > 0")
+    int release(@Param("userId") UUID userId, @Param("date") LocalDate date);
+
+    // --- One-time schema fix, run by ChatUsageMigration inside its own transaction
+
+    // Other nodes wait here instead of inserting a new duplicate mid-migration
+    @Modifying
+    @Query(value = "LOCK TABLE daily_chat_usage IN SHARE ROW EXCLUSIVE MODE", nativeQuery = true)
+    void lockForMigration();
+
+    // Rows written before the unique constraint existed: the first row of each (user, day)
+    // takes the day's total, the rest are deleted
+    @Modifying
+    @Query(value = "UPDATE daily_chat_usage u SET request_count = d.total FROM (" +
+            "SELECT user_id, date, MIN(CAST(id AS text)) AS keep_id, SUM(request_count) AS total " +
+            "FROM daily_chat_usage GROUP BY user_id, date HAVING COUNT(*) > 1) d " +
+            "WHERE CAST(u.id AS text) = d.keep_id", nativeQuery = true)
+    int mergeDuplicates();
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_chat_usage u USING daily_chat_usage k " +
+            "WHERE u.user_id = k.user_id AND u.date = k.date AND CAST(u.id AS text) > CAST(k.id AS text)",
+            nativeQuery = true)
+    int deleteDuplicates();
+
+    // reserve() relies on it for ON CONFLICT (user_id, date); a no-op once the constraint exists
+    @Modifying
+    @Query(value = "CREATE UNIQUE INDEX IF NOT EXISTS uk_daily_chat_usage_user_date " +
+            "ON daily_chat_usage (user_id, date)", nativeQuery = true)
+    void createUniqueIndex();
 }
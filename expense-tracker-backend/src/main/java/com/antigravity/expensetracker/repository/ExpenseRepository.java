@@ -1,21 +1,198 @@
 package com.antigravity.expensetracker.repository;
 
 import com.antigravity.expensetracker.model.Expense;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.UUID;
 import java.util.List;
 
 public interface ExpenseRepository extends JpaRepository<Expense, UUID> {
     List<Expense> findByUserId(UUID userId);
 
-    List<Expense> findByUserIdAndMerchantAndAmountAndDateBetween(
+    List<Expense> findByUserIdAndMerchantIdAndAmountAndDateBetween(
             UUID userId,
-            String merchant,
+            Long merchantId,
             java.math.BigDecimal amount,
             java.time.LocalDateTime startDate,
             java.time.LocalDateTime endDate);
 
-    List<Expense> findTop5ByUserIdAndMerchantOrderByDateDesc(UUID userId, String merchant);
+    // Spend history grouped by merchant for recurrence detection (idx_expenses_user_merchant)
+    @Query("SELECT e.merchantId AS merchantId, e.merchant AS merchant, e.category AS category, " +
+            "e.amount AS amount, e.date AS txnDate FROM Expense e " +
+            "WHERE e.user.id = :userId AND e.merchantId IS NOT NULL AND e.date >= :from " +
+            "AND (e.type IS NULL OR LOWER(e.type) <> 'credited') " +
+            "ORDER BY e.merchantId, e.date")
+    List<MerchantHistoryRow> findMerchantHistory(@Param("userId") UUID userId, @Param("from") LocalDateTime from);
+
+    // Keyset page: a name whose rows cannot be updated is passed over instead of returned again
+    @Query("SELECT DISTINCT e.merchant FROM Expense e WHERE e.merchantId IS NULL AND e.merchant > :after " +
+            "ORDER BY e.merchant")
+    List<String> findUnresolvedMerchantsAfter(@Param("after") String after, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Expense e SET e.merchantId = :merchantId WHERE e.merchant = :merchant AND e.merchantId IS NULL")
+    int assignMerchantId(@Param("merchant") String merchant, @Param("merchantId") Long merchantId);
 
     List<Expense> findByUserIdAndDateAfter(UUID userId, java.time.LocalDateTime date);
+
+    List<Expense> findTop10ByUserIdOrderByDateDesc(UUID userId);
+
+    List<Expense> findByUserIdAndDateGreaterThanEqualAndDateLessThanOrderByDateDesc(UUID userId,
+            LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    List<Expense> findByUserIdAndMerchantIdAndDateGreaterThanEqualAndDateLessThanOrderByDateDesc(UUID userId,
+            Long merchantId, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    List<Expense> findByUserIdAndChangeVersionBetween(UUID userId, Long fromVersion, Long toVersion);
+
+    // Moves whenever one of the user's expenses is written or deleted; see BillRepository.findBillsVersion
+    @Query(value = "SELECT GREATEST(" +
+            "(SELECT MAX(e.change_version) FROM expenses e WHERE e.user_id = :userId), " +
+            "(SELECT MAX(t.change_version) FROM sync_tombstones t WHERE t.user_id = :userId " +
+            "AND t.entity_type = 'EXPENSE'))", nativeQuery = true)
+    Long findExpensesVersion(@Param("userId") UUID userId);
+
+    @Query("SELECT e.date AS txnDate, e.amount AS txnAmount, e.type AS txnType, e.importId AS importId " +
+            "FROM Expense e " +
+            "WHERE e.user.id = :userId AND e.date >= :from AND e.date < :to")
+    List<ExpenseFingerprint> findFingerprints(@Param("userId") UUID userId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    // --- Aggregations (spend only: credited rows are income and excluded) ---
+
+    @Query("SELECT e.merchantId AS merchantId, MAX(e.merchant) AS merchant, SUM(e.amount) AS total, " +
+            "COUNT(e) AS txnCount FROM Expense e WHERE e.user.id = :userId AND e.date >= :from " +
+            "AND (e.type IS NULL OR LOWER(e.type) <> 'credited') " +
+            "GROUP BY e.merchantId ORDER BY SUM(e.amount) DESC")
+    List<MerchantTotal> findTopMerchants(@Param("userId") UUID userId, @Param("from") LocalDateTime from,
+            Pageable pageable);
+
+    @Query("SELECT e.category AS category, e.merchantId AS merchantId, SUM(e.amount) AS total, " +
+            "COUNT(e) AS txnCount FROM Expense e WHERE e.user.id = :userId AND e.date >= :from AND e.date < :to " +
+            "AND (e.type IS NULL OR LOWER(e.type) <> 'credited') " +
+            "GROUP BY e.category, e.merchantId")
+    List<CategoryMerchantTotal> sumByCategoryAndMerchant(@Param("userId") UUID userId,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT e FROM Expense e WHERE e.user.id = :userId AND e.date >= :from " +
+            "AND (e.type IS NULL OR LOWER(e.type) <> 'credited') ORDER BY e.amount DESC")
+    List<Expense> findLargestSpends(@Param("userId") UUID userId, @Param("from") LocalDateTime from,
+            Pageable pageable);
+
+    @Query("SELECT YEAR(e.date) AS periodYear, MONTH(e.date) AS periodMonth, e.category AS category, " +
+            "SUM(e.amount) AS total, COUNT(e) AS txnCount " +
+            "FROM Expense e WHERE e.user.id = :userId AND e.date >= :from " +
+            "AND (e.type IS NULL OR LOWER(e.type) <> 'credited') " +
+            "GROUP BY YEAR(e.date), MONTH(e.date), e.category")
+    List<MonthlyCategoryTotal> sumMonthlyByCategory(@Param("userId") UUID userId,
+            @Param("from") LocalDateTime from);
+
+    @Query("SELECT CAST(e.date AS LocalDate) AS spendDate, e.category AS category, " +
+            "SUM(e.amount) AS total, COUNT(e) AS txnCount " +
+            "FROM Expense e WHERE e.user.id = :userId AND e.date >= :from " +
+            "AND (e.type IS NULL OR LOWER(e.type) <> 'credited') " +
+            "GROUP BY CAST(e.date AS LocalDate), e.category")
+    List<DailyCategoryTotal> sumDailyByCategory(@Param("userId") UUID userId,
+            @Param("from") LocalDateTime from);
+
+    // Native: percentile_cont has no JPQL equivalent (PostgreSQL)
+    @Query(value = "SELECT COALESCE(e.category, 'General') AS category, COUNT(*) AS samples, " +
+            "percentile_cont(0.5) WITHIN GROUP (ORDER BY e.amount) AS p50, " +
+            "percentile_cont(0.9) WITHIN GROUP (ORDER BY e.amount) AS p90, " +
+            "percentile_cont(0.99) WITHIN GROUP (ORDER BY e.amount) AS p99, " +
+            "AVG(e.amount) AS mean, MAX(e.amount) AS maximum " +
+            "FROM expenses e WHERE e.user_id = :userId AND e.date >= :from " +
+            "AND (e.type IS NULL OR LOWER(e.type) <> 'credited') " +
+            "GROUP BY COALESCE(e.category, 'General')", nativeQuery = true)
+    List<CategoryAmountPercentiles> percentilesByCategory(@Param("userId") UUID userId,
+            @Param("from") LocalDateTime from);
+
+    interface MonthlyCategoryTotal {
+        Integer getPeriodYear();
+
+        Integer getPeriodMonth();
+
+        String getCategory();
+
+        BigDecimal getTotal();
+
+        Long getTxnCount();
+    }
+
+    interface DailyCategoryTotal {
+        LocalDate getSpendDate();
+
+        String getCategory();
+
+        BigDecimal getTotal();
+
+        Long getTxnCount();
+    }
+
+    interface CategoryMerchantTotal {
+        String getCategory();
+
+        Long getMerchantId();
+
+        BigDecimal getTotal();
+
+        Long getTxnCount();
+    }
+
+    interface MerchantTotal {
+        Long getMerchantId();
+
+        String getMerchant();
+
+        BigDecimal getTotal();
+
+        Long getTxnCount();
+    }
+
+    interface MerchantHistoryRow {
+        Long getMerchantId();
+
+        String getMerchant();
+
+        String getCategory();
+
+        BigDecimal getAmount();
+
+        LocalDateTime getTxnDate();
+    }
+
+    interface ExpenseFingerprint {
+        LocalDateTime getTxnDate();
+
+        BigDecimal getTxnAmount();
+
+        String getTxnType();
+
+        UUID getImportId();
+    }
+
+    interface CategoryAmountPercentiles {
+        String getCategory();
+
+        Long getSamples();
+
+        Double getP50();
+
+        Double getP90();
+
+        Double getP99();
+
+        Double getMean();
+
+        Double getMaximum();
+    }
 }
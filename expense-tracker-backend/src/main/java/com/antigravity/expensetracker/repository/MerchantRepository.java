@@ -0,0 +1,27 @@
+package com.antigravity.expensetracker.repository;
+
+import com.antigravity.expensetracker.model.Merchant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface MerchantRepository extends JpaRepository<Merchant, Long> {
+
+    Optional<Merchant> findByNormalizedKey(String normalizedKey);
+
+    List<Merchant> findByIdGreaterThanOrderByIdAsc(Long id);
+
+    // Safe when two nodes see a new merchant at the same time: the loser reads the winner's row
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO merchants (normalized_key, display_name, created_at) " +
+            "VALUES (:key, :name, :now) ON CONFLICT (normalized_key) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key, @Param("name") String displayName,
+            @Param("now") LocalDateTime now);
+}
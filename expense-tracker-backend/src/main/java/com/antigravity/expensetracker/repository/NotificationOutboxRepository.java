@@ -0,0 +1,51 @@
+package com.antigravity.expensetracker.repository;
+
+import com.antigravity.expensetracker.model.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, UUID> {
+
+    // Idempotent enqueue: returns 0 if a row with the same dedupe key already exists
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO notification_outbox (id, user_id, type, dedupe_key, message, status, attempts, " +
+            "next_attempt_at, created_at) " +
+            "VALUES (:id, :userId, :type, :dedupeKey, :message, 'PENDING', 0, :now, :now) " +
+            "ON CONFLICT (dedupe_key) DO NOTHING", nativeQuery = true)
+    int enqueue(@Param("id") UUID id, @Param("userId") UUID userId, @Param("type") String type,
+            @Param("dedupeKey") String dedupeKey, @Param("message") String message,
+            @Param("now") LocalDateTime now);
+
+    // Due rows plus rows whose dispatcher died mid-send. SKIP LOCKED lets several
+    // nodes drain the outbox at once without picking the same rows.
+    @Query(value = "SELECT * FROM notification_outbox o WHERE " +
+            "(o.status = 'PENDING' AND o.next_attempt_at <= :now) " +
+            "OR (o.status = 'SENDING' AND o.locked_until < :now) " +
+            "ORDER BY o.next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutbox> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.status = 'SENDING', o.lockedUntil = :until WHERE o.id IN :ids")
+    int markSending(@Param("ids") Collection<UUID> ids, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.status = 'SENT', o.sentAt = :now, o.lockedUntil = null, " +
+            "o.attempts = o.attempts + 1 WHERE o.id IN :ids")
+    int markSent(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM NotificationOutbox o WHERE o.status IN ('SENT', 'FAILED') AND o.createdAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
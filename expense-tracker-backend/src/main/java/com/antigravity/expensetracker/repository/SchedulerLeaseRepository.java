@@ -0,0 +1,44 @@
+package com.antigravity.expensetracker.repository;
+
+import com.antigravity.expensetracker.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    // Atomic claim: inserts a new lease, or takes over one that expired before completing.
+    // Returns 1 when this owner now holds the lease.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO scheduler_leases (lease_key, owner, lease_until, completed) " +
+            "VALUES (:key, :owner, :until, false) " +
+            "ON CONFLICT (lease_key) DO UPDATE SET owner = EXCLUDED.owner, lease_until = EXCLUDED.lease_until " +
+            "WHERE scheduler_leases.completed = false AND scheduler_leases.lease_until < :now",
+            nativeQuery = true)
+    int tryAcquire(@Param("key") String key, @Param("owner") String owner, @Param("until") LocalDateTime until,
+            @Param("now") LocalDateTime now);
+
+    // Saves progress and extends the lease; returns 0 if the lease was lost to another node
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLease l SET l.cursorDueDate = :dueDate, l.cursorId = :id, l.leaseUntil = :until " +
+            "WHERE l.leaseKey = :key AND l.owner = :owner")
+    int checkpoint(@Param("key") String key, @Param("owner") String owner, @Param("dueDate") LocalDateTime dueDate,
+            @Param("id") UUID id, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLease l SET l.completed = true WHERE l.leaseKey = :key AND l.owner = :owner")
+    int complete(@Param("key") String key, @Param("owner") String owner);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SchedulerLease l WHERE l.leaseUntil < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,55 @@
+package com.antigravity.expensetracker.repository;
+
+import com.antigravity.expensetracker.model.StatementImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface StatementImportRepository extends JpaRepository<StatementImport, UUID> {
+
+    List<StatementImport> findByUserIdOrderByStartedAtDesc(UUID userId);
+
+    // Returns 0 when the user already has an active import, on this node or another
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO statement_imports (id, user_id, active_user_id, file_name, format, state, " +
+            "total_bytes, bytes_read, rows_read, imported, duplicates, rejected, started_at, updated_at) " +
+            "VALUES (:id, :userId, :userId, :fileName, :format, 'QUEUED', :totalBytes, 0, 0, 0, 0, 0, :now, :now) " +
+            "ON CONFLICT (active_user_id) DO NOTHING", nativeQuery = true)
+    int tryStart(@Param("id") UUID id, @Param("userId") UUID userId, @Param("fileName") String fileName,
+            @Param("format") String format, @Param("totalBytes") long totalBytes, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StatementImport i SET i.state = :state, i.bytesRead = :bytesRead, i.rowsRead = :rowsRead, " +
+            "i.imported = :imported, i.duplicates = :duplicates, i.rejected = :rejected, i.updatedAt = :now " +
+            "WHERE i.id = :id")
+    int updateProgress(@Param("id") UUID id, @Param("state") String state, @Param("bytesRead") long bytesRead,
+            @Param("rowsRead") long rowsRead, @Param("imported") long imported, @Param("duplicates") long duplicates,
+            @Param("rejected") long rejected, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StatementImport i SET i.state = :state, i.error = :error, i.activeUserId = null, " +
+            "i.updatedAt = :now, i.finishedAt = :now WHERE i.id = :id")
+    int finish(@Param("id") UUID id, @Param("state") String state, @Param("error") String error,
+            @Param("now") LocalDateTime now);
+
+    // Jobs whose node died mid-import stop heartbeating; release the user's slot
+    @Modifying
+    @Transactional
+    @Query("UPDATE StatementImport i SET i.state = 'FAILED', i.error = 'Import interrupted', i.activeUserId = null, " +
+            "i.finishedAt = :now WHERE i.activeUserId IS NOT NULL AND i.updatedAt < :staleBefore")
+    int failStale(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StatementImport i WHERE i.finishedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
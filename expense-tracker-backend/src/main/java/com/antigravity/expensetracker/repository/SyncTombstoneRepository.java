@@ -0,0 +1,19 @@
+package com.antigravity.expensetracker.repository;
+
+import com.antigravity.expensetracker.model.SyncTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, UUID> {
+    List<SyncTombstone> findByUserIdAndChangeVersionBetween(UUID userId, long fromVersion, long toVersion);
+
+    @Modifying
+    @Query("DELETE FROM SyncTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteDeletedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,39 @@
+package com.antigravity.expensetracker.repository;
+
+import com.antigravity.expensetracker.model.UserChangeVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UserChangeVersionRepository extends JpaRepository<UserChangeVersion, UUID> {
+
+    // Row lock taken here is held until the caller's transaction commits, which
+    // serializes a user's writes and keeps versions committing in order.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_change_versions (user_id, current_version) VALUES (:userId, 1) " +
+            "ON CONFLICT (user_id) DO UPDATE SET current_version = user_change_versions.current_version + 1",
+            nativeQuery = true)
+    int increment(@Param("userId") UUID userId);
+
+    @Query("SELECT c.currentVersion FROM UserChangeVersion c WHERE c.userId = :userId")
+    Optional<Long> findCurrentVersion(@Param("userId") UUID userId);
+
+    @Query("SELECT c.prunedVersion FROM UserChangeVersion c WHERE c.userId = :userId")
+    Optional<Long> findPrunedVersion(@Param("userId") UUID userId);
+
+    // Must run in the same transaction as the tombstone delete, before it
+    @Modifying
+    @Query(value = "UPDATE user_change_versions c SET pruned_version = t.max_version " +
+            "FROM (SELECT user_id, MAX(change_version) AS max_version FROM sync_tombstones " +
+            "WHERE deleted_at < :cutoff GROUP BY user_id) t " +
+            "WHERE c.user_id = t.user_id AND (c.pruned_version IS NULL OR c.pruned_version < t.max_version)",
+            nativeQuery = true)
+    int advancePrunedVersions(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,6 +2,10 @@ package com.antigravity.expensetracker.repository;
 
 import com.antigravity.expensetracker.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 import java.util.UUID;
 import java.util.Optional;
 
@@ -9,4 +13,10 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
 
     Optional<User> findByMobileNumber(String mobileNumber);
+
+    @Query("SELECT u.id FROM User u")
+    List<UUID> findAllIds();
+
+    @Query("SELECT u.monthlyBudget FROM User u WHERE u.id = :id")
+    Double findMonthlyBudget(@Param("id") UUID id);
 }
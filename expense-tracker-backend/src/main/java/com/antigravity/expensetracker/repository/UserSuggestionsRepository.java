@@ -0,0 +1,45 @@
+package com.antigravity.expensetracker.repository;
+
+import com.antigravity.expensetracker.model.UserSuggestions;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface UserSuggestionsRepository extends JpaRepository<UserSuggestions, UUID> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_suggestions (user_id, source_version) VALUES (:userId, -1) " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") UUID userId);
+
+    // Users whose data changed since their suggestions were built, outside the cooldown and not claimed
+    @Query(value = "SELECT s.user_id FROM user_suggestions s " +
+            "JOIN user_change_versions v ON v.user_id = s.user_id " +
+            "WHERE s.source_version < v.current_version " +
+            "AND (s.generated_at IS NULL OR s.generated_at < :generatedBefore) " +
+            "AND (s.refresh_claimed_until IS NULL OR s.refresh_claimed_until < :now) " +
+            "ORDER BY s.generated_at NULLS FIRST LIMIT :limit", nativeQuery = true)
+    List<UUID> findStaleUserIds(@Param("generatedBefore") LocalDateTime generatedBefore,
+            @Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Returns 1 if this caller may regenerate the user's suggestions until :until
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserSuggestions s SET s.refreshClaimedUntil = :until WHERE s.userId = :userId " +
+            "AND (s.refreshClaimedUntil IS NULL OR s.refreshClaimedUntil < :now)")
+    int claim(@Param("userId") UUID userId, @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserSuggestions s SET s.payload = :payload, s.sourceVersion = :version, " +
+            "s.generatedAt = :generatedAt, s.refreshClaimedUntil = NULL WHERE s.userId = :userId")
+    int store(@Param("userId") UUID userId, @Param("payload") String payload, @Param("version") long version,
+            @Param("generatedAt") LocalDateTime generatedAt);
+}
@@ -0,0 +1,245 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.dto.AnalyticsSummary;
+import com.antigravity.expensetracker.dto.BudgetStatus;
+import com.antigravity.expensetracker.dto.CategoryDelta;
+import com.antigravity.expensetracker.dto.CategoryPercentiles;
+import com.antigravity.expensetracker.dto.PeriodTotal;
+import com.antigravity.expensetracker.dto.RollingSpend;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository.DailyCategoryTotal;
+import com.antigravity.expensetracker.repository.ExpenseRepository.MonthlyCategoryTotal;
+import com.antigravity.expensetracker.service.UserIdentityService.UserIdentity;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// All series are aggregated in the database (GROUP BY month / day + category) so
+// clients receive a few hundred points instead of every expense row.
+@Service
+public class AnalyticsService {
+
+    private static final String DEFAULT_CATEGORY = "General";
+    private static final int[] ROLLING_WINDOWS = { 7, 30, 90 };
+    private static final int MAX_MONTHS = 36;
+    private static final int MAX_WEEKS = 52;
+
+    private final ExpenseRepository expenseRepository;
+    private final UserIdentityService userIdentityService;
+
+    public AnalyticsService(ExpenseRepository expenseRepository, UserIdentityService userIdentityService) {
+        this.expenseRepository = expenseRepository;
+        this.userIdentityService = userIdentityService;
+    }
+
+    public AnalyticsSummary getSummary(UUID userId, int months, int weeks) {
+        LocalDate today = LocalDate.now();
+        months = clamp(Math.max(months, 2), MAX_MONTHS);
+        weeks = clamp(weeks, MAX_WEEKS);
+
+        // One monthly query feeds monthly series, month-over-month and budget;
+        // one daily query feeds weekly series and rolling windows.
+        List<MonthlyCategoryTotal> monthlyRows = fetchMonthly(userId, today, months);
+        LocalDate dailyStart = earliest(weekStart(today).minusWeeks(weeks - 1),
+                today.minusDays(ROLLING_WINDOWS[ROLLING_WINDOWS.length - 1] - 1));
+        List<DailyCategoryTotal> dailyRows = expenseRepository.sumDailyByCategory(userId, dailyStart.atStartOfDay());
+
+        return new AnalyticsSummary(
+                toMonthlySeries(monthlyRows),
+                toWeeklySeries(dailyRows, weekStart(today).minusWeeks(weeks - 1)),
+                toMonthOverMonth(monthlyRows, YearMonth.from(today)),
+                toRolling(dailyRows, today),
+                getPercentiles(userId, 90),
+                toBudgetStatus(monthlyRows, monthlyBudget(userId), today));
+    }
+
+    public List<PeriodTotal> getMonthlyTotals(UUID userId, int months) {
+        return toMonthlySeries(fetchMonthly(userId, LocalDate.now(), clamp(months, MAX_MONTHS)));
+    }
+
+    public List<PeriodTotal> getWeeklyTotals(UUID userId, int weeks) {
+        LocalDate from = weekStart(LocalDate.now()).minusWeeks(clamp(weeks, MAX_WEEKS) - 1);
+        return toWeeklySeries(expenseRepository.sumDailyByCategory(userId, from.atStartOfDay()), from);
+    }
+
+    public List<CategoryDelta> getMonthOverMonth(UUID userId) {
+        LocalDate today = LocalDate.now();
+        return toMonthOverMonth(fetchMonthly(userId, today, 2), YearMonth.from(today));
+    }
+
+    public List<RollingSpend> getRollingSpend(UUID userId) {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(ROLLING_WINDOWS[ROLLING_WINDOWS.length - 1] - 1);
+        return toRolling(expenseRepository.sumDailyByCategory(userId, from.atStartOfDay()), today);
+    }
+
+    public List<CategoryPercentiles> getPercentiles(UUID userId, int days) {
+        LocalDate from = LocalDate.now().minusDays(Math.max(days, 1) - 1);
+        List<CategoryPercentiles> result = new ArrayList<>();
+        for (ExpenseRepository.CategoryAmountPercentiles row : expenseRepository.percentilesByCategory(userId,
+                from.atStartOfDay())) {
+            result.add(new CategoryPercentiles(row.getCategory(), row.getSamples(),
+                    round(row.getP50()), round(row.getP90()), round(row.getP99()),
+                    round(row.getMean()), round(row.getMaximum())));
+        }
+        result.sort(Comparator.comparing(CategoryPercentiles::getCategory));
+        return result;
+    }
+
+    public BudgetStatus getBudgetStatus(UUID userId) {
+        return getBudgetStatus(userId, monthlyBudget(userId));
+    }
+
+    // For callers that already hold the user and should not look it up again
+    public BudgetStatus getBudgetStatus(UUID userId, Double monthlyBudget) {
+        LocalDate today = LocalDate.now();
+        return toBudgetStatus(fetchMonthly(userId, today, 1), monthlyBudget, today);
+    }
+
+    private List<MonthlyCategoryTotal> fetchMonthly(UUID userId, LocalDate today, int months) {
+        LocalDate from = YearMonth.from(today).minusMonths(months - 1).atDay(1);
+        return expenseRepository.sumMonthlyByCategory(userId, from.atStartOfDay());
+    }
+
+    private List<PeriodTotal> toMonthlySeries(List<MonthlyCategoryTotal> rows) {
+        List<PeriodTotal> series = new ArrayList<>();
+        for (MonthlyCategoryTotal row : rows) {
+            series.add(new PeriodTotal(YearMonth.of(row.getPeriodYear(), row.getPeriodMonth()).toString(),
+                    category(row.getCategory()), row.getTotal(), row.getTxnCount()));
+        }
+        return sorted(mergeDuplicates(series));
+    }
+
+    private List<PeriodTotal> toWeeklySeries(List<DailyCategoryTotal> rows, LocalDate from) {
+        List<PeriodTotal> series = new ArrayList<>();
+        for (DailyCategoryTotal row : rows) {
+            if (row.getSpendDate().isBefore(from))
+                continue;
+            series.add(new PeriodTotal(weekStart(row.getSpendDate()).toString(), category(row.getCategory()),
+                    row.getTotal(), row.getTxnCount()));
+        }
+        return sorted(mergeDuplicates(series));
+    }
+
+    private List<CategoryDelta> toMonthOverMonth(List<MonthlyCategoryTotal> rows, YearMonth current) {
+        YearMonth previous = current.minusMonths(1);
+        Map<String, BigDecimal> currentTotals = new HashMap<>();
+        Map<String, BigDecimal> previousTotals = new HashMap<>();
+        for (MonthlyCategoryTotal row : rows) {
+            YearMonth period = YearMonth.of(row.getPeriodYear(), row.getPeriodMonth());
+            if (period.equals(current)) {
+                currentTotals.merge(category(row.getCategory()), row.getTotal(), BigDecimal::add);
+            } else if (period.equals(previous)) {
+                previousTotals.merge(category(row.getCategory()), row.getTotal(), BigDecimal::add);
+            }
+        }
+
+        Set<String> categories = new HashSet<>(currentTotals.keySet());
+        categories.addAll(previousTotals.keySet());
+
+        List<CategoryDelta> deltas = new ArrayList<>();
+        for (String cat : categories) {
+            BigDecimal now = currentTotals.getOrDefault(cat, BigDecimal.ZERO);
+            BigDecimal before = previousTotals.getOrDefault(cat, BigDecimal.ZERO);
+            Double percent = before.signum() == 0 ? null
+                    : now.subtract(before).multiply(BigDecimal.valueOf(100))
+                            .divide(before, 2, RoundingMode.HALF_UP).doubleValue();
+            deltas.add(new CategoryDelta(cat, now, before, now.subtract(before), percent));
+        }
+        deltas.sort(Comparator.comparing(CategoryDelta::getCategory));
+        return deltas;
+    }
+
+    private List<RollingSpend> toRolling(List<DailyCategoryTotal> rows, LocalDate today) {
+        List<RollingSpend> windows = new ArrayList<>();
+        for (int days : ROLLING_WINDOWS) {
+            LocalDate from = today.minusDays(days - 1);
+            BigDecimal total = BigDecimal.ZERO;
+            Map<String, BigDecimal> byCategory = new TreeMap<>();
+            for (DailyCategoryTotal row : rows) {
+                if (row.getSpendDate().isBefore(from))
+                    continue;
+                total = total.add(row.getTotal());
+                byCategory.merge(category(row.getCategory()), row.getTotal(), BigDecimal::add);
+            }
+            windows.add(new RollingSpend(days, total, byCategory));
+        }
+        return windows;
+    }
+
+    private Double monthlyBudget(UUID userId) {
+        return userIdentityService.findById(userId).map(UserIdentity::monthlyBudget).orElse(null);
+    }
+
+    private BudgetStatus toBudgetStatus(List<MonthlyCategoryTotal> rows, Double budgetValue, LocalDate today) {
+        YearMonth month = YearMonth.from(today);
+        BigDecimal spent = BigDecimal.ZERO;
+        for (MonthlyCategoryTotal row : rows) {
+            if (YearMonth.of(row.getPeriodYear(), row.getPeriodMonth()).equals(month)) {
+                spent = spent.add(row.getTotal());
+            }
+        }
+
+        BigDecimal projected = spent.multiply(BigDecimal.valueOf(month.lengthOfMonth()))
+                .divide(BigDecimal.valueOf(today.getDayOfMonth()), 2, RoundingMode.HALF_UP);
+
+        if (budgetValue == null || budgetValue <= 0) {
+            return new BudgetStatus(month.toString(), null, spent, null, 0.0, projected, false);
+        }
+
+        BigDecimal budget = BigDecimal.valueOf(budgetValue);
+        double percentUsed = spent.multiply(BigDecimal.valueOf(100))
+                .divide(budget, 2, RoundingMode.HALF_UP).doubleValue();
+        return new BudgetStatus(month.toString(), budget, spent, budget.subtract(spent), percentUsed, projected,
+                projected.compareTo(budget) > 0);
+    }
+
+    // Rows with a null category and rows for "General" fold into the same bucket
+    private List<PeriodTotal> mergeDuplicates(List<PeriodTotal> series) {
+        Map<String, PeriodTotal> merged = new HashMap<>();
+        for (PeriodTotal point : series) {
+            merged.merge(point.getPeriod() + "|" + point.getCategory(), point,
+                    (a, b) -> new PeriodTotal(a.getPeriod(), a.getCategory(), a.getTotal().add(b.getTotal()),
+                            a.getCount() + b.getCount()));
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private List<PeriodTotal> sorted(List<PeriodTotal> series) {
+        series.sort(Comparator.comparing(PeriodTotal::getPeriod).thenComparing(PeriodTotal::getCategory));
+        return series;
+    }
+
+    private static String category(String category) {
+        return category == null || category.isBlank() ? DEFAULT_CATEGORY : category;
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(DayOfWeek.MONDAY);
+    }
+
+    private static LocalDate earliest(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.min(Math.max(value, 1), max);
+    }
+
+    private static double round(Double value) {
+        return value == null ? 0.0 : Math.round(value * 100.0) / 100.0;
+    }
+}
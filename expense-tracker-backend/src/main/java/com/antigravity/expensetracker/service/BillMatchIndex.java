@@ -0,0 +1,119 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Bill;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+
+// Immutable snapshot of one user's bills for matching incoming expenses. Bills are bucketed
+// by due day, so a lookup touches only the bills inside the date window. The snapshot
+// carries the bill version it was built from; BillMatchIndexService rebuilds it when the
+// user's bills have changed since.
+public final class BillMatchIndex {
+
+    static final long AMOUNT_TOLERANCE_CENTS = 10_00; // Within 10 units
+    static final int DATE_WINDOW_DAYS = 7;
+
+    private final long version;
+    private final NavigableMap<Long, List<Entry>> byDueDay = new TreeMap<>();
+    private final Set<Long> merchantIds = new HashSet<>();
+
+    private record Entry(UUID billId, Long merchantId, String merchant, long amountCents, LocalDateTime dueDate) {
+    }
+
+    BillMatchIndex(List<Bill> bills, Function<Bill, Long> merchantIdOf, long version) {
+        this.version = version;
+        for (Bill bill : bills) {
+            if (bill.getAmount() == null || bill.getDueDate() == null) {
+                continue;
+            }
+            Long merchantId = merchantIdOf.apply(bill);
+            if (merchantId != null) {
+                merchantIds.add(merchantId);
+            }
+            Entry entry = new Entry(bill.getId(), merchantId, lower(bill.getMerchant()), cents(bill.getAmount()),
+                    bill.getDueDate());
+            byDueDay.computeIfAbsent(bill.getDueDate().toLocalDate().toEpochDay(), d -> new ArrayList<>())
+                    .add(entry);
+        }
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    // Bill this expense pays, if any: same merchant (see merchantMatches), amount within
+    // tolerance and date within a week of the due date. The closest due date wins.
+    UUID findMatch(Long merchantId, String merchant, BigDecimal amount, LocalDateTime date) {
+        if (amount == null || date == null) {
+            return null;
+        }
+        String merchantLower = lower(merchant);
+        long amountCents = cents(amount);
+        long day = date.toLocalDate().toEpochDay();
+
+        Entry best = null;
+        long bestDistance = Long.MAX_VALUE;
+        for (List<Entry> bucket : byDueDay.subMap(day - DATE_WINDOW_DAYS, true, day + DATE_WINDOW_DAYS, true)
+                .values()) {
+            for (Entry entry : bucket) {
+                if (Math.abs(amountCents - entry.amountCents) > AMOUNT_TOLERANCE_CENTS
+                        || !date.isAfter(entry.dueDate.minusDays(DATE_WINDOW_DAYS))
+                        || !date.isBefore(entry.dueDate.plusDays(DATE_WINDOW_DAYS))
+                        || !matches(entry.merchantId, entry.merchant, merchantId, merchantLower)) {
+                    continue;
+                }
+                long distance = Math.abs(entry.dueDate.toLocalDate().toEpochDay() - day);
+                if (distance < bestDistance) {
+                    best = entry;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best != null ? best.billId : null;
+    }
+
+    boolean hasMerchant(Long merchantId) {
+        return merchantId != null && merchantIds.contains(merchantId);
+    }
+
+    // Same canonical merchant, or, as before merchant ids existed, one raw name contains
+    // the other ("Netflix" pays "NETFLIX.COM"), so no bill that matched by name is lost
+    static boolean merchantMatches(Long billMerchantId, String billMerchant, Long expenseMerchantId,
+            String expenseMerchant) {
+        return matches(billMerchantId, lower(billMerchant), expenseMerchantId, lower(expenseMerchant));
+    }
+
+    private static boolean matches(Long billMerchantId, String billMerchant, Long expenseMerchantId,
+            String expenseMerchant) {
+        if (billMerchantId != null && billMerchantId.equals(expenseMerchantId)) {
+            return true;
+        }
+        if (billMerchant == null || expenseMerchant == null) {
+            return false;
+        }
+        return billMerchant.contains(expenseMerchant) || expenseMerchant.contains(billMerchant);
+    }
+
+    // Blank names would "contain" each other, so they never match by name
+    private static String lower(String merchant) {
+        if (merchant == null || merchant.isBlank()) {
+            return null;
+        }
+        return merchant.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+}
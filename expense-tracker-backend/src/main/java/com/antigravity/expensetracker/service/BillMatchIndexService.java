@@ -0,0 +1,63 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Expense;
+import com.antigravity.expensetracker.repository.BillRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+// Per-user BillMatchIndex held in the "billMatchIndex" cache. Every read compares the
+// index with the user's current bill version (one indexed query), so writes made on any
+// node, or an index re-cached from a read that raced a write, are rebuilt on the next
+// lookup. Local bill writes also evict the entry after commit.
+@Service
+public class BillMatchIndexService {
+
+    public static final String CACHE_NAME = "billMatchIndex";
+
+    private final BillRepository billRepository;
+    private final CacheManager cacheManager;
+    private final MerchantService merchantService;
+    private final RequestCoalescer requestCoalescer;
+
+    public BillMatchIndexService(BillRepository billRepository, CacheManager cacheManager,
+            MerchantService merchantService, RequestCoalescer requestCoalescer) {
+        this.billRepository = billRepository;
+        this.cacheManager = cacheManager;
+        this.merchantService = merchantService;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    public UUID findMatchingBill(Expense expense) {
+        if (expense.getUser() == null || expense.getUser().getId() == null) {
+            return null;
+        }
+        return getIndex(expense.getUser().getId()).findMatch(merchantService.idOf(expense), expense.getMerchant(),
+                expense.getAmount(), expense.getDate());
+    }
+
+    public boolean hasBillForMerchant(UUID userId, Long merchantId) {
+        return getIndex(userId).hasMerchant(merchantId);
+    }
+
+    // Built outside the cache's own loader, which would hold a map lock across the query
+    private BillMatchIndex getIndex(UUID userId) {
+        Long stored = billRepository.findBillsVersion(userId);
+        long version = stored != null ? stored : 0L;
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        BillMatchIndex cached = cache != null ? cache.get(userId, BillMatchIndex.class) : null;
+        if (cached != null && cached.getVersion() == version) {
+            return cached;
+        }
+        return requestCoalescer.execute("billMatchIndex", userId + ":" + version, () -> {
+            BillMatchIndex index = new BillMatchIndex(billRepository.findByUserId(userId), merchantService::idOf,
+                    version);
+            if (cache != null) {
+                cache.put(userId, index);
+            }
+            return index;
+        });
+    }
+}
@@ -0,0 +1,158 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.model.SchedulerLease;
+import com.antigravity.expensetracker.notification.NotificationOutboxService;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.SchedulerLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+// Bill reminders, safe to run on every node: bills are split into shards by user hash,
+// and a DB lease per (run, shard) makes sure only one node processes each shard.
+// Reminders go to the notification outbox; NotificationDispatcher delivers them.
+@Service
+@Slf4j
+public class BillNotificationScheduler {
+
+    private static final String JOB_NAME = "bill-notifications";
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+    private static final int NOTIFY_DAYS_AHEAD = 2;
+    private static final int LEASE_RETENTION_DAYS = 7;
+
+    private final BillRepository billRepository;
+    private final SchedulerLeaseRepository leaseRepository;
+    private final NotificationOutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor executor;
+    private final String nodeId;
+
+    @Value("${notifications.bills.shards:8}")
+    private int shardCount;
+
+    @Value("${notifications.bills.page-size:200}")
+    private int pageSize;
+
+    @Value("${notifications.bills.lease-minutes:5}")
+    private long leaseMinutes;
+
+    public BillNotificationScheduler(BillRepository billRepository,
+            SchedulerLeaseRepository leaseRepository,
+            NotificationOutboxService outboxService,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor) {
+        this.billRepository = billRepository;
+        this.leaseRepository = leaseRepository;
+        this.outboxService = outboxService;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.nodeId = newLeaseOwner();
+    }
+
+    // Fires a few times each morning. Finished shards are skipped; a shard whose owner
+    // died is picked up from its last checkpoint once the lease expires.
+    @Scheduled(cron = "${notifications.bills.cron:0 0/15 9-11 * * ?}")
+    public void sendBillNotifications() {
+        LocalDate target = LocalDate.now().plusDays(NOTIFY_DAYS_AHEAD);
+        leaseRepository.deleteExpiredBefore(LocalDateTime.now().minusDays(LEASE_RETENTION_DAYS));
+
+        List<CompletableFuture<Integer>> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            int current = shard;
+            shards.add(CompletableFuture.supplyAsync(() -> runShard(target, current), executor)
+                    .exceptionally(e -> {
+                        log.error("Bill notification shard {} failed", current, e);
+                        return 0;
+                    }));
+        }
+        int queued = shards.stream().mapToInt(CompletableFuture::join).sum();
+        if (queued > 0) {
+            log.info("Queued {} bill notifications for {} from node {}", queued, target, nodeId);
+        }
+    }
+
+    private int runShard(LocalDate target, int shard) {
+        String key = JOB_NAME + ":" + target + ":" + shard + "/" + shardCount;
+        if (leaseRepository.tryAcquire(key, nodeId, leaseExpiry(), LocalDateTime.now()) == 0) {
+            return 0; // Another node owns it, or it is already done
+        }
+
+        LocalDateTime from = target.atStartOfDay();
+        LocalDateTime to = target.plusDays(1).atStartOfDay();
+        SchedulerLease lease = leaseRepository.findById(key).orElseThrow();
+        LocalDateTime afterDueDate = lease.getCursorDueDate() != null ? lease.getCursorDueDate() : from;
+        UUID afterId = lease.getCursorId() != null ? lease.getCursorId() : MIN_ID;
+
+        int queued = 0;
+        while (true) {
+            List<Bill> page = billRepository.findDuePage(from, to, shard, shardCount, afterDueDate, afterId,
+                    pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            Bill last = page.get(page.size() - 1);
+            Integer pageQueued = enqueuePage(key, page, last);
+            if (pageQueued == null) {
+                log.warn("Lost lease {} after {} notifications", key, queued);
+                return queued;
+            }
+            queued += pageQueued;
+            afterDueDate = last.getDueDate();
+            afterId = last.getId();
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+        leaseRepository.complete(key, nodeId);
+        return queued;
+    }
+
+    // Outbox rows and the shard cursor commit together: a page is either fully queued
+    // and checkpointed, or retried as a whole. Returns null if the lease was lost.
+    private Integer enqueuePage(String key, List<Bill> page, Bill last) {
+        return transactionTemplate.execute(status -> {
+            if (leaseRepository.checkpoint(key, nodeId, last.getDueDate(), last.getId(), leaseExpiry()) == 0) {
+                status.setRollbackOnly();
+                return null;
+            }
+            int queued = 0;
+            for (Bill bill : page) {
+                if (outboxService.enqueueBillReminder(bill)) {
+                    queued++;
+                }
+            }
+            return queued;
+        });
+    }
+
+    private LocalDateTime leaseExpiry() {
+        return LocalDateTime.now().plusMinutes(leaseMinutes);
+    }
+
+    // Unique per process, so a restarted node does not inherit its old leases
+    static String newLeaseOwner() {
+        return hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+}
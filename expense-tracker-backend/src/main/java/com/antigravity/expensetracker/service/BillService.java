@@ -1,11 +1,13 @@
 package com.antigravity.expensetracker.service;
 
+import com.antigravity.expensetracker.event.UserDataChangedEvent;
 import com.antigravity.expensetracker.model.Bill;
 import com.antigravity.expensetracker.model.Expense;
 import com.antigravity.expensetracker.repository.BillRepository;
 import com.antigravity.expensetracker.repository.ExpenseRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +16,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+@Slf4j
 @Service
 public class BillService {
 
@@ -23,6 +26,18 @@ public class BillService {
     @Autowired
     private ExpenseRepository expenseRepository;
 
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private BillMatchIndexService billMatchIndexService;
+
+    @Autowired
+    private MerchantService merchantService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<Bill> getAllBills(UUID userId) {
         if (userId != null) {
             return billRepository.findByUserId(userId);
@@ -30,6 +45,7 @@ public class BillService {
         return billRepository.findAll();
     }
 
+    @Transactional
     public Bill createBill(Bill bill) {
         // Ensure defaults
         if (bill.getFrequency() == null)
@@ -39,7 +55,11 @@ public class BillService {
 
         // Auto-detect isPaid? No, strictly manual creation implies starting fresh
         // usually.
-        return billRepository.save(bill);
+        merchantService.assign(bill);
+        syncService.stamp(bill);
+        Bill saved = billRepository.save(bill);
+        publishBillsChanged(saved);
+        return saved;
     }
 
     @Transactional
@@ -65,7 +85,10 @@ public class BillService {
         // 3. Handle Recurrence (Advance Date)
         handleRecurrence(bill);
 
-        return billRepository.save(bill);
+        syncService.stamp(bill);
+        Bill saved = billRepository.save(bill);
+        publishBillsChanged(saved);
+        return saved;
     }
 
     // ... createOrLinkExpense ...
@@ -73,9 +96,9 @@ public class BillService {
         LocalDateTime start = bill.getDueDate().minusDays(5);
         LocalDateTime end = bill.getDueDate().plusDays(5);
 
-        List<Expense> matches = expenseRepository.findByUserIdAndMerchantAndAmountAndDateBetween(
+        List<Expense> matches = expenseRepository.findByUserIdAndMerchantIdAndAmountAndDateBetween(
                 bill.getUser().getId(),
-                bill.getMerchant(),
+                merchantService.idOf(bill),
                 bill.getAmount(),
                 start,
                 end);
@@ -83,67 +106,116 @@ public class BillService {
         if (!matches.isEmpty()) {
             Expense existing = matches.get(0);
             existing.setNotes(existing.getNotes() + " (Linked to Bill: " + bill.getCategory() + ")");
+            syncService.stamp(existing);
             expenseRepository.save(existing);
+            publishExpensesChanged(bill);
         } else {
             Expense expense = new Expense();
             expense.setUser(bill.getUser());
             expense.setAmount(bill.getAmount());
             expense.setCurrency("INR");
             expense.setMerchant(bill.getMerchant());
+            expense.setMerchantId(merchantService.idOf(bill));
             expense.setCategory(bill.getCategory());
             expense.setType(bill.getType());
             expense.setNotes("Auto-generated from Bill: " + bill.getNote());
             expense.setDate(LocalDateTime.now());
             expense.setSource("Bill Auto-Pay");
 
+            syncService.stamp(expense);
             expenseRepository.save(expense);
+            publishExpensesChanged(bill);
         }
     }
 
     private void handleRecurrence(Bill bill) {
         // Assuming Monthly for now as per "subscription"
         // If frequency is flexible, handle it.
-        if ("MONTHLY".equalsIgnoreCase(bill.getFrequency())) {
-            bill.setDueDate(bill.getDueDate().plusMonths(1));
-        } else if ("WEEKLY".equalsIgnoreCase(bill.getFrequency())) {
-            bill.setDueDate(bill.getDueDate().plusWeeks(1));
-        } else if ("YEARLY".equalsIgnoreCase(bill.getFrequency())) {
-            bill.setDueDate(bill.getDueDate().plusYears(1));
-        }
+        bill.setDueDate(advance(bill.getDueDate(), bill.getFrequency()));
 
         // The bill represents the *next* payment now.
         // It is naturally unpaid.
         bill.setIsPaid(false);
     }
 
+    // Next occurrence for a bill frequency; unknown frequencies do not recur
+    public static LocalDateTime advance(LocalDateTime date, String frequency) {
+        if ("MONTHLY".equalsIgnoreCase(frequency)) {
+            return date.plusMonths(1);
+        } else if ("WEEKLY".equalsIgnoreCase(frequency)) {
+            return date.plusWeeks(1);
+        } else if ("QUARTERLY".equalsIgnoreCase(frequency)) {
+            return date.plusMonths(3);
+        } else if ("YEARLY".equalsIgnoreCase(frequency)) {
+            return date.plusYears(1);
+        }
+        return date;
+    }
+
+    // Insert a bill found by RecurringBillDetector
+    @Transactional
+    public Bill saveDetectedBill(Bill bill) {
+        merchantService.assign(bill);
+        syncService.stamp(bill);
+        Bill saved = billRepository.save(bill);
+        publishBillsChanged(saved);
+        return saved;
+    }
+
+    // Refresh a detector-owned bill: only the detection fields are written, on the locked
+    // current row. Returns false if the bill was deleted or taken over by the user meanwhile.
+    @Transactional
+    public boolean updateDetectedBill(UUID billId, BigDecimal amount, String frequency, LocalDateTime dueDate,
+            double confidence, String note) {
+        Bill bill = billRepository.findByIdForUpdate(billId).orElse(null);
+        if (bill == null || bill.getConfidence() == null) {
+            return false;
+        }
+        bill.setAmount(amount);
+        bill.setFrequency(frequency);
+        bill.setDueDate(dueDate);
+        bill.setConfidence(confidence);
+        bill.setNote(note);
+        syncService.stamp(bill);
+        billRepository.save(bill);
+        publishBillsChanged(bill);
+        return true;
+    }
+
+    @Transactional
     public boolean processExpenseForBillPayment(Expense expense) {
-        List<Bill> bills = billRepository.findByUserId(expense.getUser().getId());
-        for (Bill bill : bills) {
-            if (isMatch(bill, expense)) {
-                handleRecurrence(bill);
-                billRepository.save(bill);
-
-                // Link expense
-                if (expense.getNotes() == null)
-                    expense.setNotes("");
-                if (!expense.getNotes().contains("Linked to Bill")) {
-                    expense.setNotes(expense.getNotes() + " (Linked to Bill: " + bill.getCategory() + ")");
-                    expenseRepository.save(expense);
-                }
-                System.out.println("Bill paid via transaction match: " + bill.getMerchant());
-                return true;
-            }
+        // Candidate lookup against the cached per-user index instead of scanning every bill
+        UUID billId = billMatchIndexService.findMatchingBill(expense);
+        if (billId == null) {
+            return false;
+        }
+        Bill bill = billRepository.findById(billId).orElse(null);
+        if (bill == null || !isMatch(bill, expense)) {
+            return false; // Index was stale; the eviction for that write is on its way
+        }
+
+        handleRecurrence(bill);
+        syncService.stamp(bill);
+        billRepository.save(bill);
+        publishBillsChanged(bill);
+
+        // Link expense
+        if (expense.getNotes() == null)
+            expense.setNotes("");
+        if (!expense.getNotes().contains("Linked to Bill")) {
+            expense.setNotes(expense.getNotes() + " (Linked to Bill: " + bill.getCategory() + ")");
+            syncService.stamp(expense);
+            expenseRepository.save(expense);
+            publishExpensesChanged(bill);
         }
-        return false;
+        log.info("Bill paid via transaction match: {}", bill.getMerchant());
+        return true;
     }
 
     private boolean isMatch(Bill bill, Expense expense) {
-        // Merchant match (fuzzy)
-        String bMerch = bill.getMerchant().toLowerCase();
-        String eMerch = expense.getMerchant().toLowerCase();
-
-        boolean merchantMatch = bMerch.equals(eMerch) || eMerch.contains(bMerch) || bMerch.contains(eMerch);
-        if (!merchantMatch)
+        // Merchant match (canonical id, or either raw name containing the other)
+        if (!BillMatchIndex.merchantMatches(merchantService.idOf(bill), bill.getMerchant(),
+                merchantService.idOf(expense), expense.getMerchant()))
             return false;
 
         // Approx amount match (within 10 units)
@@ -160,40 +232,47 @@ public class BillService {
         return eDate.isAfter(bDate.minusDays(7)) && eDate.isBefore(bDate.plusDays(7));
     }
 
-    // Notification Scheduler: Runs every day at 9 AM
-    @Scheduled(cron = "0 0 9 * * ?")
-    public void sendBillNotifications() {
-        LocalDateTime inTwoDays = LocalDateTime.now().plusDays(2);
-
-        // Find bills due on this specific date (ignoring time)
-        List<Bill> bills = billRepository.findAll(); // Optimization: Custom query
-
-        for (Bill bill : bills) {
-            if (bill.getDueDate().toLocalDate().isEqual(inTwoDays.toLocalDate())) {
-                // Send Notification
-                String message = "You have subscribed to " + bill.getMerchant() + " and " + bill.getAmount()
-                        + " will be debited on "
-                        + bill.getDueDate().format(java.time.format.DateTimeFormatter.ISO_DATE);
-                System.out.println("PUSH NOTIFICATION: " + message);
-                // Integration with Notification Service would go here
-            }
-        }
-    }
-
+    @Transactional
     public void deleteBill(UUID id) {
-        billRepository.deleteById(id);
+        billRepository.findById(id).ifPresent(bill -> {
+            UUID userId = bill.getUser() != null ? bill.getUser().getId() : null;
+            syncService.recordDeletion(userId, SyncService.TYPE_BILL, bill.getId());
+            billRepository.delete(bill);
+            publishBillsChanged(bill);
+        });
     }
 
+    @Transactional
     public Bill updateBill(UUID id, Bill billDetails) {
-        return billRepository.findById(id).map(bill -> {
+        return billRepository.findByIdForUpdate(id).map(bill -> {
             bill.setMerchant(billDetails.getMerchant());
             bill.setAmount(billDetails.getAmount());
             bill.setCategory(billDetails.getCategory());
             bill.setDueDate(billDetails.getDueDate());
             bill.setNote(billDetails.getNote());
             bill.setFrequency(billDetails.getFrequency());
+            bill.setConfidence(null); // Edited by the user: no longer a detector suggestion
+            merchantService.assign(bill);
             // We usually don't update User or ID
-            return billRepository.save(bill);
+            syncService.stamp(bill);
+            Bill saved = billRepository.save(bill);
+            publishBillsChanged(saved);
+            return saved;
         }).orElseThrow(() -> new RuntimeException("Bill not found"));
     }
+
+    // Expense rows written here bypass ExpenseService, so they announce themselves
+    private void publishExpensesChanged(Bill bill) {
+        if (bill.getUser() != null && bill.getUser().getId() != null) {
+            eventPublisher.publishEvent(
+                    new UserDataChangedEvent(bill.getUser().getId(), UserDataChangedEvent.DataType.EXPENSES));
+        }
+    }
+
+    private void publishBillsChanged(Bill bill) {
+        if (bill.getUser() != null && bill.getUser().getId() != null) {
+            eventPublisher.publishEvent(
+                    new UserDataChangedEvent(bill.getUser().getId(), UserDataChangedEvent.DataType.BILLS));
+        }
+    }
 }
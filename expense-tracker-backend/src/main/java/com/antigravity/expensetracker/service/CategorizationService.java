@@ -0,0 +1,72 @@
+package com.antigravity.expensetracker.service;
+
+import org.springframework.stereotype.Service;
+
+// Keyword rules shared by email parsing and statement import. Stateless and
+// thread-safe, so callers may run it from parallel streams.
+@Service
+public class CategorizationService {
+
+    public String categorize(String merchant, String context) {
+        String m = (merchant + " " + context).toLowerCase();
+
+        if (m.contains("dreamplug") || m.contains("cred "))
+            return "Transaction";
+
+        if (m.contains("swiggy") || m.contains("zomato") || m.contains("food") || m.contains("restaurant")
+                || m.contains("starbucks") || m.contains("cafe") || m.contains("coffee") || m.contains("tea")
+                || m.contains("burger") || m.contains("pizza") || m.contains("dominos") || m.contains("kfc")
+                || m.contains("mcdonalds") || m.contains("subway") || m.contains("dining") || m.contains("eat"))
+            return "Food";
+
+        if (m.contains("uber") || m.contains("ola") || m.contains("rapido") || m.contains("redbus")
+                || m.contains("irctc") || m.contains("railway") || m.contains("metro") || m.contains("train")
+                || m.contains("flight") || m.contains("indigo") || m.contains("vistara") || m.contains("air india")
+                || m.contains("makemytrip") || m.contains("goibibo") || m.contains("yatra") || m.contains("booking")
+                || m.contains("petrol") || m.contains("fuel") || m.contains("diesel") || m.contains("shell")
+                || m.contains("hpcl") || m.contains("bpcl") || m.contains("ioc")
+                || m.contains("fastag") || m.contains("transport")) {
+            return "Travel";
+        }
+
+        if (m.contains("bigbasket") || m.contains("blinkit") || m.contains("zepto") || m.contains("instamart")
+                || m.contains("dmart") || m.contains("grocery") || m.contains("supermarket") || m.contains("market")
+                || m.contains("fresh") || m.contains("vegetable") || m.contains("fruit") || m.contains("milk")
+                || m.contains("dairy"))
+            return "Groceries";
+
+        if (m.contains("amazon") || m.contains("flipkart") || m.contains("myntra") || m.contains("ajio")
+                || m.contains("meesho") || m.contains("nykaa") || m.contains("reliance") || m.contains("croma")
+                || m.contains("tata") || m.contains("retail") || m.contains("mart") || m.contains("store")
+                || m.contains("decathlon") || m.contains("ikea") || m.contains("zudio") || m.contains("westside")
+                || m.contains("pantaloons") || m.contains("cloth") || m.contains("fashion") || m.contains("shopping"))
+            return "Shopping";
+
+        if (m.contains("netflix") || m.contains("spotify") || m.contains("hotstar") || m.contains("prime video")
+                || m.contains("youtube") || m.contains("movie") || m.contains("cinema") || m.contains("pvr")
+                || m.contains("inox") || m.contains("bookmyshow") || m.contains("game") || m.contains("steam")
+                || m.contains("playstation") || m.contains("entertainment"))
+            return "Entertainment";
+
+        // Utilities & Bills
+        if (m.contains("bill") || m.contains("recharge") || m.contains("airtel") || m.contains("jio")
+                || m.contains("bsnl") || m.contains("vodafone") || m.contains("broadband")
+                || m.contains("hathway") || m.contains("electricity") || m.contains("bescom")
+                || m.contains("water") || m.contains("gas") || m.contains("utility")) {
+            return "Utilities";
+        }
+
+        if (m.contains("hospital") || m.contains("pharmacy") || m.contains("medicine") || m.contains("medical")
+                || m.contains("apollo") || m.contains("1mg") || m.contains("pharmeasy") || m.contains("practo")
+                || m.contains("doctor") || m.contains("clinic") || m.contains("lab") || m.contains("diagnostic")
+                || m.contains("health"))
+            return "Health";
+
+        if (m.contains("investment") || m.contains("mutual fund") || m.contains("sip") || m.contains("zerodha")
+                || m.contains("groww") || m.contains("upstox") || m.contains("stock") || m.contains("ppf")
+                || m.contains("lic") || m.contains("insurance") || m.contains("premium") || m.contains("policy"))
+            return "Investment";
+
+        return "General";
+    }
+}
@@ -0,0 +1,223 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.model.Expense;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository.MerchantTotal;
+import com.antigravity.expensetracker.repository.ExpenseRepository.MonthlyCategoryTotal;
+import com.antigravity.expensetracker.service.UserIdentityService.UserIdentity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Compact financial summary for the chat prompt, built from aggregates instead of raw
+// rows. Sections are added in priority order until the token budget is spent. The
+// cached summary carries the user's sync version, so any expense or bill write (on
+// this node or another) makes it stale; profile changes evict it explicitly.
+@Service
+public class ChatContextService {
+
+    public static final String CACHE_NAME = "chatContext";
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int TOP_MERCHANT_DAYS = 90;
+    private static final int TOP_MERCHANTS = 8;
+    private static final int NOTABLE_DAYS = 60;
+    private static final int NOTABLE_TRANSACTIONS = 5;
+    private static final int MAX_UNPAID_BILLS = 10;
+
+    public record ChatContext(long version, LocalDate builtOn, String text, int estimatedTokens) {
+
+        // Sections are in priority order, so a shorter budget is a prefix cut at a line end
+        public String text(int maxTokens) {
+            int maxChars = maxTokens * CHARS_PER_TOKEN;
+            if (text.length() <= maxChars) {
+                return text;
+            }
+            int cut = text.lastIndexOf('\n', maxChars - 1);
+            return cut > 0 ? text.substring(0, cut + 1) : "";
+        }
+    }
+
+    private final ExpenseRepository expenseRepository;
+    private final BillRepository billRepository;
+    private final UserIdentityService userIdentityService;
+    private final MerchantService merchantService;
+    private final SyncService syncService;
+    private final CacheManager cacheManager;
+    private final RequestCoalescer requestCoalescer;
+
+    @Value("${chat.context.max-tokens:600}")
+    private int maxTokens;
+
+    public ChatContextService(ExpenseRepository expenseRepository,
+            BillRepository billRepository,
+            UserIdentityService userIdentityService,
+            MerchantService merchantService,
+            SyncService syncService,
+            CacheManager cacheManager,
+            RequestCoalescer requestCoalescer) {
+        this.expenseRepository = expenseRepository;
+        this.billRepository = billRepository;
+        this.userIdentityService = userIdentityService;
+        this.merchantService = merchantService;
+        this.syncService = syncService;
+        this.cacheManager = cacheManager;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    public ChatContext getContext(UUID userId) {
+        long version = syncService.getCurrentVersion(userId);
+        LocalDate today = LocalDate.now();
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        ChatContext cached = cache != null ? cache.get(userId, ChatContext.class) : null;
+        // "This month" and due dates are relative to today, so a new day also rebuilds
+        if (cached != null && cached.version() == version && cached.builtOn().equals(today)) {
+            return cached;
+        }
+
+        // Concurrent misses for the same state share one build
+        return requestCoalescer.execute("chatContext", userId + ":" + version + ":" + today, () -> {
+            ChatContext context = build(userId, version, today);
+            if (cache != null) {
+                cache.put(userId, context);
+            }
+            return context;
+        });
+    }
+
+    private ChatContext build(UUID userId, long version, LocalDate today) {
+        Budget budget = new Budget(maxTokens * CHARS_PER_TOKEN);
+        YearMonth thisMonth = YearMonth.from(today);
+        Map<YearMonth, List<MonthlyCategoryTotal>> byMonth = new TreeMap<>();
+        for (MonthlyCategoryTotal row : expenseRepository.sumMonthlyByCategory(userId,
+                thisMonth.minusMonths(1).atDay(1).atStartOfDay())) {
+            byMonth.computeIfAbsent(YearMonth.of(row.getPeriodYear(), row.getPeriodMonth()), m -> new ArrayList<>())
+                    .add(row);
+        }
+
+        Double monthlyBudget = userIdentityService.findById(userId).map(UserIdentity::monthlyBudget).orElse(null);
+        List<MonthlyCategoryTotal> current = byMonth.getOrDefault(thisMonth, List.of());
+        List<MonthlyCategoryTotal> previous = byMonth.getOrDefault(thisMonth.minusMonths(1), List.of());
+        List<String> overview = new ArrayList<>();
+        overview.add(String.format("%s spent so far: %.0f%s", thisMonth, total(current),
+                monthlyBudget != null ? String.format(" of %.0f budget", monthlyBudget) : ""));
+        overview.add(String.format("%s total: %.0f", thisMonth.minusMonths(1), total(previous)));
+        budget.section("OVERVIEW", overview);
+
+        budget.section("THIS MONTH BY CATEGORY", categoryLines(current));
+        budget.section("LAST MONTH BY CATEGORY", categoryLines(previous));
+
+        List<String> bills = new ArrayList<>();
+        for (Bill bill : billRepository.findByUserIdAndIsPaidFalseOrderByDueDateAsc(userId)) {
+            if (bills.size() == MAX_UNPAID_BILLS) {
+                break;
+            }
+            bills.add(String.format("%s %.0f due %s (%s)", merchantName(bill.getMerchantId(), bill.getMerchant()),
+                    bill.getAmount(), bill.getDueDate().toLocalDate(), category(bill.getCategory())));
+        }
+        budget.section("UNPAID BILLS", bills.isEmpty() ? List.of("none") : bills);
+
+        List<String> merchants = new ArrayList<>();
+        for (MerchantTotal row : expenseRepository.findTopMerchants(userId,
+                today.minusDays(TOP_MERCHANT_DAYS).atStartOfDay(), PageRequest.of(0, TOP_MERCHANTS))) {
+            merchants.add(String.format("%s %.0f (%d txns)", merchantName(row.getMerchantId(), row.getMerchant()),
+                    row.getTotal(), row.getTxnCount()));
+        }
+        budget.section("TOP MERCHANTS (" + TOP_MERCHANT_DAYS + " days)", merchants);
+
+        // Largest spends first, then the latest ones; each transaction is listed once
+        Set<UUID> listed = new HashSet<>();
+        budget.section("LARGEST TRANSACTIONS (" + NOTABLE_DAYS + " days)", transactionLines(
+                expenseRepository.findLargestSpends(userId, today.minusDays(NOTABLE_DAYS).atStartOfDay(),
+                        PageRequest.of(0, NOTABLE_TRANSACTIONS)), listed));
+        budget.section("RECENT TRANSACTIONS", transactionLines(
+                expenseRepository.findTop10ByUserIdOrderByDateDesc(userId), listed));
+
+        String text = budget.text.toString();
+        return new ChatContext(version, today, text, estimateTokens(text));
+    }
+
+    public static int estimateTokens(String text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private List<String> categoryLines(List<MonthlyCategoryTotal> rows) {
+        List<String> lines = new ArrayList<>();
+        rows.stream()
+                .sorted(Comparator.comparing(MonthlyCategoryTotal::getTotal).reversed())
+                .forEach(row -> lines.add(String.format("%s %.0f (%d)", category(row.getCategory()),
+                        row.getTotal(), row.getTxnCount())));
+        return lines;
+    }
+
+    private List<String> transactionLines(List<Expense> expenses, Set<UUID> listed) {
+        List<String> lines = new ArrayList<>();
+        for (Expense expense : expenses) {
+            if (listed.add(expense.getId())) {
+                boolean credit = expense.getType() != null && expense.getType().equalsIgnoreCase("credited");
+                lines.add(String.format("%s %s%.0f %s (%s)", expense.getDate().toLocalDate(), credit ? "+" : "",
+                        expense.getAmount(), merchantName(expense.getMerchantId(), expense.getMerchant()),
+                        category(expense.getCategory())));
+            }
+        }
+        return lines;
+    }
+
+    private String merchantName(Long merchantId, String raw) {
+        String name = merchantService.getDisplayName(merchantId);
+        return name != null ? name : (raw != null ? raw : "Unknown");
+    }
+
+    private static String category(String category) {
+        return category != null ? category : "General";
+    }
+
+    private static BigDecimal total(List<MonthlyCategoryTotal> rows) {
+        return rows.stream().map(MonthlyCategoryTotal::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    // Appends whole lines while they fit; a section whose header no longer fits is dropped
+    private static class Budget {
+        final StringBuilder text = new StringBuilder();
+        final int maxChars;
+
+        Budget(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        void section(String title, List<String> lines) {
+            if (lines.isEmpty()) {
+                return;
+            }
+            String header = "--- " + title + " ---\n";
+            String first = "- " + lines.get(0) + "\n";
+            if (text.length() + header.length() + first.length() > maxChars) {
+                return;
+            }
+            text.append(header);
+            for (String line : lines) {
+                String entry = "- " + line + "\n";
+                if (text.length() + entry.length() > maxChars) {
+                    return;
+                }
+                text.append(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository.CategoryMerchantTotal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Deterministic answers for common aggregation questions ("how much did I spend on
+// food last month", "what bills are due this week"). A question is answered locally
+// only when every word is understood: metric, time range, category and merchant.
+// Anything else (why, advice, comparisons, income, balance, whether a bill was paid...)
+// goes to the LLM.
+@Service
+@Slf4j
+public class ChatIntentService {
+
+    private static final int MAX_BILLS_LISTED = 5;
+
+    private enum Metric {
+        SUM, COUNT, BILLS
+    }
+
+    private record Range(LocalDate from, LocalDate to, String label) { // to is exclusive
+    }
+
+    private record Intent(Metric metric, Range range, String category, Long merchantId, String merchant) {
+    }
+
+    private static final Pattern LAST_N_DAYS = Pattern.compile("\\b(?:last|past|previous) (\\d{1,3}) days?\\b");
+    private static final Pattern NEXT_N_DAYS = Pattern.compile("\\b(?:next|coming) (\\d{1,3}) days?\\b");
+    private static final Pattern MONTH_NAME = Pattern.compile(
+            "\\b(january|february|march|april|may|june|july|august|september|october|november|december)"
+                    + "(?: (\\d{4}))?\\b");
+    // "may" is a month only next to a date word or a year; otherwise it is the modal verb
+    private static final Pattern MAY_AS_MONTH = Pattern.compile("\\b(?:in|during|for|of) may\\b|\\bmay \\d{4}\\b");
+
+    // Words that carry no meaning beyond the shapes recognised below
+    private static final Set<String> FILLER = Set.of(
+            "how", "much", "many", "did", "do", "does", "i", "we", "my", "me", "spend", "spent", "spending",
+            "total", "in", "on", "at", "for", "from", "to", "the", "a", "an", "of", "were",
+            "has", "is", "are", "what", "whats", "which", "any", "there", "so", "far", "money", "amount",
+            "transactions", "transaction", "times", "payments", "payment", "orders", "order", "bills", "bill",
+            "due", "upcoming", "unpaid", "pending", "made", "make", "expenses", "expense",
+            "rs", "inr", "please", "tell", "show", "with", "all", "and", "during", "by", "been");
+
+    // Questions about money coming in, what is left, or whether something was paid read
+    // like spend questions but are not; they always go to the LLM, even if a word would
+    // also match a merchant name
+    private static final Set<String> ESCALATE = Set.of(
+            "paid", "pay", "paying", "was", "have", "had", "income", "salary", "earn", "earned", "earning",
+            "earnings", "receive", "received", "credit", "credited", "credits", "refund", "refunds", "cashback",
+            "balance", "left", "remaining", "save", "saved", "saving", "savings", "afford", "budget", "owe", "owed");
+
+    private static final Map<String, String> CATEGORY_WORDS = new LinkedHashMap<>();
+
+    static {
+        for (String word : List.of("food", "dining", "restaurants", "restaurant", "eating out")) {
+            CATEGORY_WORDS.put(word, "Food");
+        }
+        for (String word : List.of("travel", "transport", "commute", "cab", "cabs", "fuel", "petrol")) {
+            CATEGORY_WORDS.put(word, "Travel");
+        }
+        for (String word : List.of("groceries", "grocery")) {
+            CATEGORY_WORDS.put(word, "Groceries");
+        }
+        for (String word : List.of("shopping")) {
+            CATEGORY_WORDS.put(word, "Shopping");
+        }
+        for (String word : List.of("entertainment", "movies", "movie")) {
+            CATEGORY_WORDS.put(word, "Entertainment");
+        }
+        for (String word : List.of("utilities", "utility", "electricity", "recharge", "recharges")) {
+            CATEGORY_WORDS.put(word, "Utilities");
+        }
+        for (String word : List.of("health", "medical", "medicine", "medicines", "pharmacy")) {
+            CATEGORY_WORDS.put(word, "Health");
+        }
+        for (String word : List.of("investment", "investments")) {
+            CATEGORY_WORDS.put(word, "Investment");
+        }
+        for (String word : List.of("transfers", "transfer")) {
+            CATEGORY_WORDS.put(word, "Transaction");
+        }
+    }
+
+    private final ExpenseRepository expenseRepository;
+    private final BillRepository billRepository;
+    private final MerchantService merchantService;
+
+    public ChatIntentService(ExpenseRepository expenseRepository,
+            BillRepository billRepository,
+            MerchantService merchantService) {
+        this.expenseRepository = expenseRepository;
+        this.billRepository = billRepository;
+        this.merchantService = merchantService;
+    }
+
+    public Optional<String> tryAnswer(UUID userId, String message) {
+        if (message == null || message.isBlank()) {
+            return Optional.empty();
+        }
+        Intent intent = parse(message, LocalDate.now());
+        if (intent == null) {
+            return Optional.empty();
+        }
+        log.debug("Answering chat locally: {}", intent);
+        return Optional.of(intent.metric == Metric.BILLS ? answerBills(userId, intent) : answerSpend(userId, intent));
+    }
+
+    private Intent parse(String message, LocalDate today) {
+        String text = " " + message.toLowerCase(Locale.ROOT).replace("'", "").replaceAll("[^a-z0-9 ]", " ")
+                .replaceAll("\\s+", " ").trim() + " ";
+        for (String word : text.trim().split(" ")) {
+            if (ESCALATE.contains(word)) {
+                return null;
+            }
+        }
+        if (MAY_AS_MONTH.matcher(text).replaceAll(" ").contains(" may ")) {
+            return null; // "may I know..."
+        }
+
+        Metric metric;
+        if (text.contains(" bill") && (text.contains(" due ") || text.contains(" upcoming ")
+                || text.contains(" unpaid ") || text.contains(" pending "))) {
+            metric = Metric.BILLS;
+        } else if (text.contains(" how many ")) {
+            metric = Metric.COUNT;
+        } else if (text.contains(" how much ") || text.contains(" total ") || text.contains(" spent ")
+                || text.contains(" spend ") || text.contains(" spending ")) {
+            metric = Metric.SUM;
+        } else {
+            return null;
+        }
+
+        Range range = null;
+        Matcher m;
+        if ((m = LAST_N_DAYS.matcher(text)).find() && metric != Metric.BILLS) {
+            int days = Integer.parseInt(m.group(1));
+            range = new Range(today.minusDays(days - 1L), today.plusDays(1), "in the last " + days + " days");
+        } else if ((m = NEXT_N_DAYS.matcher(text)).find() && metric == Metric.BILLS) {
+            int days = Integer.parseInt(m.group(1));
+            range = new Range(today, today.plusDays(days + 1L), "in the next " + days + " days");
+        } else if ((m = MONTH_NAME.matcher(text)).find()) {
+            YearMonth month = YearMonth.of(today.getYear(), Month.valueOf(m.group(1).toUpperCase(Locale.ROOT)));
+            if (m.group(2) != null) {
+                month = month.withYear(Integer.parseInt(m.group(2)));
+            } else if (metric != Metric.BILLS && month.isAfter(YearMonth.from(today))) {
+                month = month.minusYears(1); // "in december" asked in march means last december
+            }
+            range = new Range(month.atDay(1), month.plusMonths(1).atDay(1),
+                    "in " + month.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + month.getYear());
+        } else {
+            range = namedRange(text, today, metric);
+        }
+        if (range != null) {
+            text = stripRange(text);
+        } else {
+            range = metric == Metric.BILLS
+                    ? new Range(today, today.plusDays(8), "in the next 7 days")
+                    : new Range(today.withDayOfMonth(1), today.plusDays(1), "this month");
+        }
+
+        String category = null;
+        for (Map.Entry<String, String> word : CATEGORY_WORDS.entrySet()) {
+            if (text.contains(" " + word.getKey() + " ")) {
+                category = word.getValue();
+                text = text.replace(" " + word.getKey() + " ", " ");
+                break;
+            }
+        }
+
+        // Every remaining word must be filler or name a known merchant
+        Long merchantId = null;
+        String merchant = null;
+        for (String word : text.trim().split(" ")) {
+            if (word.isEmpty() || FILLER.contains(word)) {
+                continue;
+            }
+            Long id = word.length() >= 3 && merchantId == null ? merchantService.find(word) : null;
+            if (id == null) {
+                return null;
+            }
+            merchantId = id;
+            merchant = merchantService.getDisplayName(id);
+        }
+        if (metric == Metric.BILLS && category != null) {
+            return null; // Bills are listed by merchant; leave category questions to the LLM
+        }
+        return new Intent(metric, range, category, merchantId, merchant);
+    }
+
+    private static Range namedRange(String text, LocalDate today, Metric metric) {
+        LocalDate monday = today.with(DayOfWeek.MONDAY);
+        if (text.contains(" today ")) {
+            return new Range(today, today.plusDays(1), "today");
+        }
+        if (text.contains(" yesterday ") && metric != Metric.BILLS) {
+            return new Range(today.minusDays(1), today, "yesterday");
+        }
+        if (text.contains(" tomorrow ") && metric == Metric.BILLS) {
+            return new Range(today.plusDays(1), today.plusDays(2), "tomorrow");
+        }
+        if (text.contains(" this week ")) {
+            return metric == Metric.BILLS
+                    ? new Range(today, monday.plusWeeks(1), "this week")
+                    : new Range(monday, today.plusDays(1), "this week");
+        }
+        if (text.contains(" last week ") && metric != Metric.BILLS) {
+            return new Range(monday.minusWeeks(1), monday, "last week");
+        }
+        if (text.contains(" next week ") && metric == Metric.BILLS) {
+            return new Range(monday.plusWeeks(1), monday.plusWeeks(2), "next week");
+        }
+        if (text.contains(" this month ")) {
+            return metric == Metric.BILLS
+                    ? new Range(today, YearMonth.from(today).plusMonths(1).atDay(1), "this month")
+                    : new Range(today.withDayOfMonth(1), today.plusDays(1), "this month");
+        }
+        if (text.contains(" last month ") && metric != Metric.BILLS) {
+            YearMonth last = YearMonth.from(today).minusMonths(1);
+            return new Range(last.atDay(1), last.plusMonths(1).atDay(1), "last month");
+        }
+        if (text.contains(" next month ") && metric == Metric.BILLS) {
+            YearMonth next = YearMonth.from(today).plusMonths(1);
+            return new Range(next.atDay(1), next.plusMonths(1).atDay(1), "next month");
+        }
+        if (text.contains(" this year ") && metric != Metric.BILLS) {
+            return new Range(today.withDayOfYear(1), today.plusDays(1), "this year");
+        }
+        if (text.contains(" last year ") && metric != Metric.BILLS) {
+            return new Range(today.withDayOfYear(1).minusYears(1), today.withDayOfYear(1), "last year");
+        }
+        return null;
+    }
+
+    private static String stripRange(String text) {
+        text = LAST_N_DAYS.matcher(text).replaceAll(" ");
+        text = NEXT_N_DAYS.matcher(text).replaceAll(" ");
+        text = MONTH_NAME.matcher(text).replaceAll(" ");
+        return text.replaceAll(" (this|last|next) (week|month|year) ", " ")
+                .replaceAll(" (today|yesterday|tomorrow) ", " ")
+                .replaceAll("\\s+", " ");
+    }
+
+    private String answerSpend(UUID userId, Intent intent) {
+        BigDecimal total = BigDecimal.ZERO;
+        long count = 0;
+        for (CategoryMerchantTotal row : expenseRepository.sumByCategoryAndMerchant(userId,
+                intent.range.from.atStartOfDay(), intent.range.to.atStartOfDay())) {
+            String category = row.getCategory() != null ? row.getCategory() : "General";
+            if ((intent.category == null || intent.category.equalsIgnoreCase(category))
+                    && (intent.merchantId == null || intent.merchantId.equals(row.getMerchantId()))) {
+                total = total.add(row.getTotal());
+                count += row.getTxnCount();
+            }
+        }
+
+        String scope = (intent.category != null ? " on " + intent.category : "")
+                + (intent.merchant != null ? " at " + intent.merchant : "");
+        if (intent.metric == Metric.COUNT) {
+            return String.format("You made %d%s transaction%s %s, totalling ₹%,.0f.", count,
+                    intent.category != null ? " " + intent.category : "", count == 1 ? "" : "s",
+                    (intent.merchant != null ? "at " + intent.merchant + " " : "") + intent.range.label, total);
+        }
+        return String.format("You spent ₹%,.0f%s %s (%d transaction%s).", total, scope, intent.range.label, count,
+                count == 1 ? "" : "s");
+    }
+
+    private String answerBills(UUID userId, Intent intent) {
+        LocalDate today = LocalDate.now();
+        List<Bill> due = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (Bill bill : billRepository.findByUserIdAndIsPaidFalseOrderByDueDateAsc(userId)) {
+            LocalDate dueDate = bill.getDueDate().toLocalDate();
+            // Ranges starting today also pick up overdue bills
+            boolean inRange = dueDate.isBefore(intent.range.to)
+                    && (!dueDate.isBefore(intent.range.from) || intent.range.from.equals(today));
+            if (inRange && (intent.merchantId == null || intent.merchantId.equals(merchantService.idOf(bill)))) {
+                due.add(bill);
+                total = total.add(bill.getAmount());
+            }
+        }
+        if (due.isEmpty()) {
+            return "You have no unpaid bills due " + intent.range.label + ".";
+        }
+
+        StringBuilder sb = new StringBuilder(String.format("You have %d unpaid bill%s due %s, totalling ₹%,.0f:",
+                due.size(), due.size() == 1 ? "" : "s", intent.range.label, total));
+        for (Bill bill : due.subList(0, Math.min(due.size(), MAX_BILLS_LISTED))) {
+            String name = merchantService.getDisplayName(merchantService.idOf(bill));
+            boolean overdue = bill.getDueDate().toLocalDate().isBefore(today);
+            sb.append(String.format("\n- %s ₹%,.0f %s %s", name != null ? name : bill.getMerchant(), bill.getAmount(),
+                    overdue ? "overdue since" : "due", bill.getDueDate().toLocalDate()));
+        }
+        if (due.size() > MAX_BILLS_LISTED) {
+            sb.append("\n...and ").append(due.size() - MAX_BILLS_LISTED).append(" more.");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.DailyChatUsage;
+import com.antigravity.expensetracker.repository.DailyChatUsageRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Daily chat quota. The database row per (user, day) is the source of truth and is only
+// changed by an atomic conditional upsert, so concurrent requests from several devices
+// cannot overshoot the limit. In front of it sits an in-memory bucket per user holding
+// today's remaining messages: once it is empty, requests are rejected without a query.
+// The bucket only sees this node's requests, so the remaining count shown to the user is
+// read from the row (the upsert returns it), and the bucket is brought in line with it.
+// Each statement runs in its own short transaction; nothing is held across the LLM call.
+@Service
+public class ChatQuotaService {
+
+    public static final int DAILY_LIMIT = 10;
+
+    public record Reservation(UUID userId, LocalDate day, int remaining) {
+    }
+
+    private record Allowance(LocalDate day, AtomicInteger tokens) {
+    }
+
+    private final DailyChatUsageRepository dailyChatUsageRepository;
+    private final Map<UUID, Allowance> allowances = new ConcurrentHashMap<>();
+
+    public ChatQuotaService(DailyChatUsageRepository dailyChatUsageRepository) {
+        this.dailyChatUsageRepository = dailyChatUsageRepository;
+    }
+
+    // Takes one message from today's quota; null if the user has none left
+    public Reservation reserve(UUID userId) {
+        LocalDate today = LocalDate.now();
+        Allowance allowance = allowance(userId, today);
+        if (allowance.tokens.getAndUpdate(t -> t > 0 ? t - 1 : 0) <= 0) {
+            return null;
+        }
+        Integer used = dailyChatUsageRepository.reserve(UUID.randomUUID(), userId, today, DAILY_LIMIT)
+                .orElse(null);
+        if (used == null) {
+            allowance.tokens.set(0); // Used up on another node
+            return null;
+        }
+        int remaining = Math.max(0, DAILY_LIMIT - used);
+        allowance.tokens.set(remaining); // Other devices may have spent messages on other nodes
+        return new Reservation(userId, today, remaining);
+    }
+
+    // Gives the message back, e.g. when the LLM call failed
+    public void release(Reservation reservation) {
+        dailyChatUsageRepository.release(reservation.userId(), reservation.day());
+        Allowance allowance = allowances.get(reservation.userId());
+        if (allowance != null && allowance.day.equals(reservation.day())) {
+            allowance.tokens.updateAndGet(t -> Math.min(DAILY_LIMIT, t + 1));
+        }
+    }
+
+    public int getRemaining(UUID userId) {
+        LocalDate today = LocalDate.now();
+        int remaining = remainingFromDatabase(userId, today);
+        allowances.merge(userId, new Allowance(today, new AtomicInteger(remaining)), (old, fresh) -> {
+            if (!old.day.equals(today)) {
+                return fresh;
+            }
+            old.tokens.set(remaining);
+            return old;
+        });
+        return remaining;
+    }
+
+    // Buckets from previous days are dead weight
+    @Scheduled(cron = "0 5 0 * * ?")
+    public void evictExpired() {
+        LocalDate today = LocalDate.now();
+        allowances.values().removeIf(a -> a.day.isBefore(today));
+    }
+
+    private Allowance allowance(UUID userId, LocalDate today) {
+        Allowance allowance = allowances.get(userId);
+        if (allowance == null || !allowance.day.equals(today)) {
+            // Seeded once per user and day; a racing seed is harmless since the upsert decides
+            Allowance seeded = new Allowance(today, new AtomicInteger(remainingFromDatabase(userId, today)));
+            allowance = allowances.merge(userId, seeded, (old, fresh) -> old.day.equals(today) ? old : fresh);
+        }
+        return allowance;
+    }
+
+    private int remainingFromDatabase(UUID userId, LocalDate day) {
+        int used = dailyChatUsageRepository.findByUserIdAndDate(userId, day)
+                .map(DailyChatUsage::getRequestCount).orElse(0);
+        return Math.max(0, DAILY_LIMIT - used);
+    }
+}
@@ -1,56 +1,161 @@
 package com.antigravity.expensetracker.service;
 
 import com.antigravity.expensetracker.dto.ChatResponse;
-import com.antigravity.expensetracker.model.Bill;
-import com.antigravity.expensetracker.model.DailyChatUsage;
-import com.antigravity.expensetracker.model.Expense;
-import com.antigravity.expensetracker.repository.BillRepository;
-import com.antigravity.expensetracker.repository.DailyChatUsageRepository;
-import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.service.ChatContextService.ChatContext;
+import com.antigravity.expensetracker.service.ChatQuotaService.Reservation;
+import com.antigravity.expensetracker.service.TransactionSearchIndex.Hit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 @Service
+@Slf4j
 public class ChatService {
 
-    private final DailyChatUsageRepository dailyChatUsageRepository;
-    private final ExpenseRepository expenseRepository;
-    private final BillRepository billRepository;
+    private static final String LIMIT_REACHED = "You have reached your daily limit of "
+            + ChatQuotaService.DAILY_LIMIT + " messages. Please try again tomorrow! (This is to manage AI costs)";
+    private static final String UNAVAILABLE =
+            "I'm having trouble connecting to my brain right now. Please try again later.";
+    private static final Duration CONTEXT_DEADLINE = Duration.ofSeconds(5);
+
+    private final ChatQuotaService chatQuotaService;
+    private final ChatToolService chatToolService;
+    private final TransactionSearchService transactionSearchService;
+    private final ChatIntentService chatIntentService;
+    private final ChatContextService chatContextService;
     private final GeminiService geminiService;
-
-    private static final int DAILY_LIMIT = 10;
-
-    public ChatService(DailyChatUsageRepository dailyChatUsageRepository,
-            ExpenseRepository expenseRepository,
-            BillRepository billRepository,
-            GeminiService geminiService) {
-        this.dailyChatUsageRepository = dailyChatUsageRepository;
-        this.expenseRepository = expenseRepository;
-        this.billRepository = billRepository;
+    private final FanOut fanOut;
+
+    @Value("${chat.context.tool-max-tokens:200}")
+    private int toolContextTokens;
+
+    @Value("${chat.search.top-k:8}")
+    private int searchTopK;
+
+    public ChatService(ChatQuotaService chatQuotaService,
+            ChatIntentService chatIntentService,
+            ChatToolService chatToolService,
+            TransactionSearchService transactionSearchService,
+            ChatContextService chatContextService,
+            GeminiService geminiService,
+            FanOut fanOut) {
+        this.chatQuotaService = chatQuotaService;
+        this.chatIntentService = chatIntentService;
+        this.chatToolService = chatToolService;
+        this.transactionSearchService = transactionSearchService;
+        this.chatContextService = chatContextService;
         this.geminiService = geminiService;
+        this.fanOut = fanOut;
     }
 
-    @Transactional
+    // The quota is reserved up front and handed back if the LLM call fails, so no
+    // transaction or row lock is held while waiting on the network
     public ChatResponse processUserMessage(UUID userId, String userMessage, List<String> history) {
+        // Plain aggregation questions are answered from SQL and do not use the quota
+        Optional<String> local = chatIntentService.tryAnswer(userId, userMessage);
+        if (local.isPresent()) {
+            return new ChatResponse(local.get(), getRemainingQuota(userId));
+        }
+
         LocalDate today = LocalDate.now();
-        DailyChatUsage usage = dailyChatUsageRepository.findByUserIdAndDate(userId, today)
-                .orElse(new DailyChatUsage(null, userId, today, 0));
-
-        if (usage.getRequestCount() >= DAILY_LIMIT) {
-            return new ChatResponse(
-                    "You have reached your daily limit of " + DAILY_LIMIT
-                            + " messages. Please try again tomorrow! (This is to manage AI costs)",
-                    0);
+        Reservation reservation = chatQuotaService.reserve(userId);
+        if (reservation == null) {
+            return new ChatResponse(LIMIT_REACHED, 0);
+        }
+
+        String aiResponse;
+        try {
+            // With tools the model pulls what it needs, so only the top of the summary is sent
+            String systemPrompt = buildSystemPrompt(userId, userMessage, today, history, toolContextTokens);
+            aiResponse = geminiService.chatWithData(systemPrompt, userMessage, chatToolService.definitions(),
+                    (name, args) -> chatToolService.execute(userId, name, args));
+        } catch (Exception e) {
+            log.error("Chat request failed", e);
+            chatQuotaService.release(reservation);
+            return new ChatResponse(UNAVAILABLE, reservation.remaining() + 1);
+        }
+        return new ChatResponse(aiResponse, reservation.remaining());
+    }
+
+    // Same prompt and quota as processUserMessage, but tokens are relayed as they arrive.
+    // The "done" event reports the remaining quota; a failed stream gives the message back,
+    // while a client that disconnects early has still used it. The quota, intent and context
+    // lookups block on JPA, so they run on a worker on subscription, not on the caller.
+    public Flux<ServerSentEvent<String>> streamUserMessage(UUID userId, String userMessage, List<String> history) {
+        return Flux.defer(() -> {
+            Optional<String> local = chatIntentService.tryAnswer(userId, userMessage);
+            if (local.isPresent()) {
+                return Flux.just(event("token", local.get()),
+                        event("done", String.valueOf(getRemainingQuota(userId))));
+            }
+
+            LocalDate today = LocalDate.now();
+            Reservation reservation = chatQuotaService.reserve(userId);
+            if (reservation == null) {
+                return Flux.just(event("token", LIMIT_REACHED), event("done", "0"));
+            }
+
+            String systemPrompt;
+            try {
+                systemPrompt = buildSystemPrompt(userId, userMessage, today, history, 0);
+            } catch (RuntimeException e) {
+                // Ends like any other failure after a reservation: with an "error" event
+                log.error("Chat request failed", e);
+                chatQuotaService.release(reservation);
+                return Flux.just(event("error", UNAVAILABLE));
+            }
+            return geminiService.streamChat(systemPrompt, userMessage)
+                    .map(delta -> event("token", delta))
+                    .concatWith(Mono.just(event("done", String.valueOf(reservation.remaining()))))
+                    .onErrorResume(e -> {
+                        log.error("Streaming chat failed", e);
+                        return Mono.fromRunnable(() -> chatQuotaService.release(reservation))
+                                .subscribeOn(Schedulers.boundedElastic()) // JPA call, keep it off the event loop
+                                .thenMany(Flux.just(event("error", UNAVAILABLE)));
+                    });
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public int getRemainingQuota(UUID userId) {
+        return chatQuotaService.getRemaining(userId);
+    }
+
+    // toolContextTokens > 0 means the model has tools and gets a shorter summary
+    private String buildSystemPrompt(UUID userId, String userMessage, LocalDate today, List<String> history,
+            int toolContextTokens) {
+        // Cached summary (rebuilt only when the user's data changes) and rows matching the
+        // question's words (payee names, narration, any date) are fetched in parallel
+        ChatContext summary;
+        List<Hit> hits;
+        try (FanOut.Scope scope = fanOut.open(CONTEXT_DEADLINE)) {
+            Supplier<ChatContext> summaryTask = scope.fork(() -> chatContextService.getContext(userId));
+            Supplier<List<Hit>> hitsTask = scope.fork(
+                    () -> transactionSearchService.search(userId, userMessage, searchTopK));
+            scope.join();
+            summary = summaryTask.get();
+            hits = hitsTask.get();
         }
+        String context = toolContextTokens > 0 ? summary.text(toolContextTokens) : summary.text();
 
-        // Build Context
-        String context = buildFinancialContext(userId);
+        if (!hits.isEmpty()) {
+            StringBuilder relevant = new StringBuilder("--- TRANSACTIONS MATCHING THE QUESTION ---\n");
+            for (Hit hit : hits) {
+                relevant.append(String.format("- %s %s%.0f %s (%s)\n", hit.date(), hit.credit() ? "+" : "",
+                        hit.amount(), hit.merchant(), hit.category()));
+            }
+            context = context + relevant;
+        }
 
         // Build History Context
         StringBuilder historyContext = new StringBuilder();
@@ -63,8 +168,7 @@ public class ChatService {
             }
         }
 
-        // System Prompt
-        String systemPrompt = "You are a specialized financial assistant for the Expense Tracker app.\n" +
+        return "You are a specialized financial assistant for the Expense Tracker app.\n" +
                 "Today's Date: " + today + "\n" +
                 "RULES:\n" +
                 "1. Answer ONLY based on the provided data context below. If the answer isn't there, say you don't know.\n"
@@ -73,59 +177,14 @@ public class ChatService {
                 +
                 "3. Be concise, friendly, and helpful.\n" +
                 "4. Currencies is in INR (₹) unless specified otherwise.\n" +
+                (toolContextTokens > 0
+                        ? "5. The data context is a summary. Call the tools for anything else, including any date range.\n"
+                        : "") +
                 "\nDATA CONTEXT:\n" + context +
                 historyContext.toString();
-
-        // Call AI
-        String aiResponse = geminiService.chatWithData(systemPrompt, userMessage);
-
-        // Update Usage
-        usage.setRequestCount(usage.getRequestCount() + 1);
-        dailyChatUsageRepository.save(usage);
-
-        return new ChatResponse(aiResponse, DAILY_LIMIT - usage.getRequestCount());
     }
 
-    public int getRemainingQuota(UUID userId) {
-        LocalDate today = LocalDate.now();
-        DailyChatUsage usage = dailyChatUsageRepository.findByUserIdAndDate(userId, today)
-                .orElse(new DailyChatUsage(null, userId, today, 0));
-        return Math.max(0, DAILY_LIMIT - usage.getRequestCount());
-    }
-
-    private String buildFinancialContext(UUID userId) {
-        // Fetch last 60 days expenses to capture full previous month
-        LocalDateTime startRange = LocalDateTime.now().minusDays(60);
-        List<Expense> expenses = expenseRepository.findByUserIdAndDateAfter(userId, startRange);
-
-        // Fetch all bills (we filter for unpaid in memory for simplicity or usage of
-        // stream)
-        List<Bill> bills = billRepository.findByUserId(userId);
-        List<Bill> unpaidBills = bills.stream().filter(b -> !b.getIsPaid()).collect(Collectors.toList());
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("--- RECENT EXPENSES (Last 60 Days) ---\n");
-        if (expenses.isEmpty()) {
-            sb.append("No recent expenses found.\n");
-        } else {
-            // Limit to 100 recent items
-            List<Expense> limitedExpenses = expenses.subList(0, Math.min(expenses.size(), 100));
-            for (Expense e : limitedExpenses) {
-                sb.append(String.format("- %s: %.2f on %s (Category: %s, Merchant: %s)\n",
-                        e.getDate().toLocalDate(), e.getAmount(), e.getMerchant(), e.getCategory(), e.getMerchant()));
-            }
-        }
-
-        sb.append("\n--- UNPAID BILLS ---\n");
-        if (unpaidBills.isEmpty()) {
-            sb.append("No unpaid bills.\n");
-        } else {
-            for (Bill b : unpaidBills) {
-                sb.append(String.format("- %s: %.2f due on %s (Merchant: %s)\n",
-                        b.getCategory(), b.getAmount(), b.getDueDate().toLocalDate(), b.getMerchant()));
-            }
-        }
-
-        return sb.toString();
+    private static ServerSentEvent<String> event(String name, String data) {
+        return ServerSentEvent.<String>builder().event(name).data(data).build();
     }
 }
@@ -0,0 +1,189 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.model.Expense;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository.CategoryMerchantTotal;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Server-side tools the chat model can call to fetch narrow slices of the user's data.
+// Each tool is one indexed query and answers with compact JSON (short keys, whole rupees).
+@Service
+@Slf4j
+public class ChatToolService {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+    private static final int MAX_TRANSACTIONS = 50;
+    private static final int MAX_BILL_DAYS = 90;
+    private static final int MAX_BILLS = 30;
+
+    private final ExpenseRepository expenseRepository;
+    private final BillRepository billRepository;
+    private final MerchantService merchantService;
+    private final ObjectMapper objectMapper;
+
+    public ChatToolService(ExpenseRepository expenseRepository,
+            BillRepository billRepository,
+            MerchantService merchantService,
+            ObjectMapper objectMapper) {
+        this.expenseRepository = expenseRepository;
+        this.billRepository = billRepository;
+        this.merchantService = merchantService;
+        this.objectMapper = objectMapper;
+    }
+
+    // OpenAI "tools" definitions
+    public List<Map<String, Object>> definitions() {
+        Map<String, Object> range = Map.of(
+                "from", Map.of("type", "string", "description", "Start date YYYY-MM-DD, inclusive"),
+                "to", Map.of("type", "string", "description", "End date YYYY-MM-DD, inclusive"));
+
+        Map<String, Object> listProperties = new LinkedHashMap<>(range);
+        listProperties.put("merchant", Map.of("type", "string", "description", "Merchant name, optional"));
+        listProperties.put("limit", Map.of("type", "integer", "description", "Max rows, up to " + MAX_TRANSACTIONS));
+
+        return List.of(
+                function("sumByCategory", "Total spend per category between two dates (credits excluded)",
+                        range, List.of("from", "to")),
+                function("listTransactions",
+                        "Transactions between two dates, newest first, optionally for one merchant",
+                        listProperties, List.of("from", "to")),
+                function("upcomingBills", "Unpaid bills due within the next N days, including overdue ones",
+                        Map.of("days", Map.of("type", "integer", "description", "Days ahead, up to " + MAX_BILL_DAYS)),
+                        List.of("days")));
+    }
+
+    // Errors are returned to the model as JSON so it can correct the call or explain
+    public String execute(UUID userId, String name, JsonNode args) {
+        try {
+            Object result = switch (name) {
+                case "sumByCategory" -> sumByCategory(userId, args);
+                case "listTransactions" -> listTransactions(userId, args);
+                case "upcomingBills" -> upcomingBills(userId, args);
+                default -> Map.of("error", "Unknown tool " + name);
+            };
+            return objectMapper.writeValueAsString(result);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return error(e.getMessage() != null ? e.getMessage() : "Invalid arguments");
+        } catch (Exception e) {
+            log.error("Chat tool {} failed", name, e);
+            return error("Tool failed");
+        }
+    }
+
+    // The message may quote the model's own input, so it is escaped by the JSON writer
+    private String error(String message) {
+        return objectMapper.createObjectNode().put("error", message).toString();
+    }
+
+    private Map<String, Object> sumByCategory(UUID userId, JsonNode args) {
+        LocalDate to = date(args, "to", LocalDate.now());
+        LocalDate from = date(args, "from", to.minusDays(DEFAULT_RANGE_DAYS));
+        checkRange(from, to);
+        Map<String, BigDecimal> totals = new TreeMap<>();
+        Map<String, Long> counts = new TreeMap<>();
+        for (CategoryMerchantTotal row : expenseRepository.sumByCategoryAndMerchant(userId, from.atStartOfDay(),
+                to.plusDays(1).atStartOfDay())) {
+            String category = row.getCategory() != null ? row.getCategory() : "General";
+            totals.merge(category, row.getTotal(), BigDecimal::add);
+            counts.merge(category, row.getTxnCount(), Long::sum);
+        }
+
+        List<Map<String, Object>> categories = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<String, BigDecimal> entry : totals.entrySet()) {
+            categories.add(Map.of("c", entry.getKey(), "amt", rupees(entry.getValue()), "n",
+                    counts.get(entry.getKey())));
+            total = total.add(entry.getValue());
+        }
+        return Map.of("from", from.toString(), "to", to.toString(), "total", rupees(total), "categories", categories);
+    }
+
+    private Map<String, Object> listTransactions(UUID userId, JsonNode args) {
+        LocalDate to = date(args, "to", LocalDate.now());
+        LocalDate from = date(args, "from", to.minusDays(DEFAULT_RANGE_DAYS));
+        checkRange(from, to);
+        int limit = Math.min(Math.max(args.path("limit").asInt(20), 1), MAX_TRANSACTIONS);
+        PageRequest page = PageRequest.of(0, limit);
+
+        String merchant = args.path("merchant").asText("");
+        List<Expense> expenses;
+        if (merchant.isBlank()) {
+            expenses = expenseRepository.findByUserIdAndDateGreaterThanEqualAndDateLessThanOrderByDateDesc(userId,
+                    from.atStartOfDay(), to.plusDays(1).atStartOfDay(), page);
+        } else {
+            Long merchantId = merchantService.find(merchant);
+            if (merchantId == null) {
+                return Map.of("merchant", merchant, "txns", List.of(), "note", "No such merchant");
+            }
+            expenses = expenseRepository.findByUserIdAndMerchantIdAndDateGreaterThanEqualAndDateLessThanOrderByDateDesc(
+                    userId, merchantId, from.atStartOfDay(), to.plusDays(1).atStartOfDay(), page);
+        }
+
+        // Row layout: [date, amount, merchant, category]; credits carry a negative amount
+        List<List<Object>> rows = new ArrayList<>();
+        for (Expense e : expenses) {
+            boolean credit = e.getType() != null && e.getType().equalsIgnoreCase("credited");
+            String name = merchantService.getDisplayName(e.getMerchantId());
+            rows.add(List.of(e.getDate().toLocalDate().toString(),
+                    credit ? rupees(e.getAmount()).negate() : rupees(e.getAmount()),
+                    name != null ? name : String.valueOf(e.getMerchant()),
+                    e.getCategory() != null ? e.getCategory() : "General"));
+        }
+        return Map.of("from", from.toString(), "to", to.toString(), "cols", List.of("date", "amt", "merchant", "c"),
+                "txns", rows, "truncated", rows.size() == limit);
+    }
+
+    private Map<String, Object> upcomingBills(UUID userId, JsonNode args) {
+        int days = Math.min(Math.max(args.path("days").asInt(7), 0), MAX_BILL_DAYS);
+        List<List<Object>> rows = new ArrayList<>();
+        for (Bill bill : billRepository.findByUserIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc(userId,
+                LocalDate.now().plusDays(days + 1L).atStartOfDay(), PageRequest.of(0, MAX_BILLS))) {
+            String name = merchantService.getDisplayName(merchantService.idOf(bill));
+            rows.add(List.of(bill.getDueDate().toLocalDate().toString(), rupees(bill.getAmount()),
+                    name != null ? name : String.valueOf(bill.getMerchant()),
+                    bill.getFrequency() != null ? bill.getFrequency() : "ONCE"));
+        }
+        return Map.of("today", LocalDate.now().toString(), "cols", List.of("due", "amt", "merchant", "freq"),
+                "bills", rows, "truncated", rows.size() == MAX_BILLS);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+    }
+
+    private static LocalDate date(JsonNode args, String field, LocalDate fallback) {
+        String value = args.path(field).asText("");
+        return value.isBlank() ? fallback : LocalDate.parse(value);
+    }
+
+    private static BigDecimal rupees(BigDecimal amount) {
+        return amount.setScale(0, RoundingMode.HALF_UP);
+    }
+
+    private static Map<String, Object> function(String name, String description, Map<String, Object> properties,
+            List<String> required) {
+        return Map.of("type", "function", "function", Map.of(
+                "name", name,
+                "description", description,
+                "parameters", Map.of("type", "object", "properties", properties, "required", required)));
+    }
+}
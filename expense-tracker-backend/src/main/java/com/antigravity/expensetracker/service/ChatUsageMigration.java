@@ -0,0 +1,39 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.repository.DailyChatUsageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// daily_chat_usage predates its (user_id, date) unique constraint, and ddl-auto cannot add
+// the constraint while duplicate rows exist. Before the app serves requests, duplicates are
+// merged and the unique index is created, so the quota upsert always has its conflict target.
+// Idempotent: every node runs it on startup, and the table lock serializes them.
+@Component
+@Slf4j
+public class ChatUsageMigration implements SmartInitializingSingleton {
+
+    private final DailyChatUsageRepository dailyChatUsageRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ChatUsageMigration(DailyChatUsageRepository dailyChatUsageRepository,
+            TransactionTemplate transactionTemplate) {
+        this.dailyChatUsageRepository = dailyChatUsageRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer removed = transactionTemplate.execute(status -> {
+            dailyChatUsageRepository.lockForMigration();
+            dailyChatUsageRepository.mergeDuplicates();
+            int deleted = dailyChatUsageRepository.deleteDuplicates();
+            dailyChatUsageRepository.createUniqueIndex();
+            return deleted;
+        });
+        if (removed != null && removed > 0) {
+            log.info("Merged {} duplicate daily chat usage rows", removed);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.dto.BudgetStatus;
+import com.antigravity.expensetracker.dto.DashboardSnapshot;
+import com.antigravity.expensetracker.dto.ForecastMonth;
+import com.antigravity.expensetracker.dto.Suggestion;
+import com.antigravity.expensetracker.dto.UserSummary;
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.model.Expense;
+import com.antigravity.expensetracker.model.User;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Snapshots are cached per user together with the user's sync version, so an expense or
+// bill write on any node makes them stale, as in ChatContextService. Profile and
+// suggestion changes are evicted by CacheInvalidationListener; the cache TTL covers
+// date rollover.
+@Service
+public class DashboardService {
+
+    public static final String CACHE_NAME = "dashboard";
+
+    private static final int UPCOMING_BILL_DAYS = 30;
+    private static final Duration FETCH_DEADLINE = Duration.ofSeconds(5);
+
+    private final UserRepository userRepository;
+    private final ExpenseRepository expenseRepository;
+    private final BillRepository billRepository;
+    private final AnalyticsService analyticsService;
+    private final ChatService chatService;
+    private final ForecastService forecastService;
+    private final SuggestionService suggestionService;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final RequestCoalescer requestCoalescer;
+    private final SyncService syncService;
+    private final FanOut fanOut;
+
+    private record CachedSnapshot(long version, DashboardSnapshot snapshot) {
+    }
+
+    public DashboardService(UserRepository userRepository,
+            ExpenseRepository expenseRepository,
+            BillRepository billRepository,
+            AnalyticsService analyticsService,
+            ChatService chatService,
+            ForecastService forecastService,
+            SuggestionService suggestionService,
+            ObjectMapper objectMapper,
+            CacheManager cacheManager,
+            RequestCoalescer requestCoalescer,
+            SyncService syncService,
+            FanOut fanOut) {
+        this.userRepository = userRepository;
+        this.expenseRepository = expenseRepository;
+        this.billRepository = billRepository;
+        this.analyticsService = analyticsService;
+        this.chatService = chatService;
+        this.forecastService = forecastService;
+        this.suggestionService = suggestionService;
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.requestCoalescer = requestCoalescer;
+        this.syncService = syncService;
+        this.fanOut = fanOut;
+    }
+
+    public DashboardSnapshot getSnapshot(UUID userId) {
+        long version = syncService.getCurrentVersion(userId);
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        CachedSnapshot cached = cache != null ? cache.get(userId, CachedSnapshot.class) : null;
+        DashboardSnapshot snapshot;
+        if (cached != null && cached.version() == version) {
+            snapshot = cached.snapshot();
+        } else {
+            // Double-fired requests and several devices opening at once share one build
+            snapshot = requestCoalescer.execute("dashboard", userId + ":" + version, () -> {
+                DashboardSnapshot built = build(userId);
+                if (cache != null) {
+                    cache.put(userId, new CachedSnapshot(version, built));
+                }
+                return built;
+            });
+        }
+        // The quota moves with every chat message, so it is never served from the cache
+        return new DashboardSnapshot(snapshot.getUser(), snapshot.getBudget(), snapshot.getForecast(),
+                snapshot.getRecentExpenses(), snapshot.getUpcomingBills(), chatService.getRemainingQuota(userId),
+                snapshot.getSuggestions(), snapshot.isSuggestionsReady());
+    }
+
+    private DashboardSnapshot build(UUID userId) {
+        // Independent reads run concurrently; the budget reads the cached identity, not the user row
+        try (FanOut.Scope scope = fanOut.open(FETCH_DEADLINE)) {
+            Supplier<User> user = scope.fork(
+                    () -> userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found")));
+            Supplier<BudgetStatus> budget = scope.fork(() -> analyticsService.getBudgetStatus(userId));
+            Supplier<List<Expense>> expenses = scope.fork(
+                    () -> expenseRepository.findTop10ByUserIdOrderByDateDesc(userId));
+            Supplier<List<Bill>> bills = scope.fork(
+                    () -> billRepository.findTop10ByUserIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc(userId,
+                            LocalDateTime.now().plusDays(UPCOMING_BILL_DAYS)));
+            Supplier<ForecastMonth> forecast = scope.fork(() -> forecastService.getCurrentMonth(userId));
+            // Stored suggestions only; the dashboard never triggers an LLM call
+            Supplier<List<Suggestion>> stored = scope.fork(() -> suggestionService.getStoredSuggestions(userId));
+            scope.join();
+
+            List<Suggestion> suggestions = stored.get();
+            return new DashboardSnapshot(
+                    toSummary(user.get()),
+                    budget.get(),
+                    forecast.get(),
+                    expenses.get(),
+                    bills.get(),
+                    0,
+                    suggestions != null ? suggestions : Collections.emptyList(),
+                    suggestions != null);
+        }
+    }
+
+    // Strong ETag over the serialized snapshot, so clients revalidate with If-None-Match
+    public String computeEtag(DashboardSnapshot snapshot) {
+        try {
+            return "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(snapshot)) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize dashboard snapshot", e);
+        }
+    }
+
+    private UserSummary toSummary(User user) {
+        return new UserSummary(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(),
+                user.getCurrency(), user.getMonthlyBudget(), user.getDarkMode());
+    }
+}
@@ -2,7 +2,7 @@ package com.antigravity.expensetracker.service;
 
 import com.antigravity.expensetracker.model.EmailLog;
 import com.antigravity.expensetracker.model.Expense;
-import com.antigravity.expensetracker.repository.ExpenseRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -10,17 +10,21 @@ import java.math.BigDecimal;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+@Slf4j
 @Service
 public class EmailParsingService {
 
     @Autowired
-    private ExpenseRepository expenseRepository;
+    private BillService billService;
 
     @Autowired
-    private BillService billService;
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategorizationService categorizationService;
 
     @Autowired
-    private com.antigravity.expensetracker.repository.BillRepository billRepository;
+    private BillMatchIndexService billMatchIndexService;
 
     @Autowired
     private com.antigravity.expensetracker.controller.EmailParsingController emailParsingController;
@@ -31,7 +35,7 @@ public class EmailParsingService {
         String normalizedSubject = rawSubject.replace('\u00A0', ' ').replaceAll("\\s+", " ");
         String extractionMethod = "Open AI";
 
-        System.out.println("DEBUG Parsing Subject: [" + normalizedSubject + "]");
+        log.debug("Parsing subject: [{}]", normalizedSubject);
 
         Expense expense = null;
 
@@ -57,7 +61,7 @@ public class EmailParsingService {
                 expense.setNotes(aiBody.getNotes() != null ? aiBody.getNotes() : "Parsed by Gemini AI");
                 expense.setCurrency(aiBody.getCurrency() != null ? aiBody.getCurrency() : "INR");
 
-                System.out.println("Open API extracted expense: " + expense);
+                log.debug("Open API extracted expense: {}", expense);
                 // If AI returns null amount, consider it a failure and fallback
                 if (expense.getAmount() == null) {
                     throw new Exception("Open returned null amount");
@@ -66,11 +70,11 @@ public class EmailParsingService {
                 throw new Exception("Open API returned error status or empty body");
             }
         } catch (Exception e) {
-            System.out.println("Open API extraction failed (" + e.getMessage() + "). Falling back to regex.");
+            log.warn("Open API extraction failed ({}). Falling back to regex.", e.getMessage());
             extractionMethod = "Regex Fallback";
             // 2. Fallback Method: Regex
             expense = extractExpense(normalizedSubject, rawBody);
-            System.out.println("Regex extracted expense: " + expense);
+            log.debug("Regex extracted expense: {}", expense);
         }
 
         if (expense != null) {
@@ -81,9 +85,9 @@ public class EmailParsingService {
             // Currency conversion removed by user request (static fallback on frontend)
             // expense.setAmountInInr(...);
 
-            expenseRepository.save(expense);
-            System.out.println("Parsed and saved expense via " + extractionMethod + ": " + expense.getAmount() + " for "
-                    + expense.getMerchant());
+            expense = expenseService.createExpense(expense);
+            log.info("Parsed and saved expense via {}: {} for {}", extractionMethod, expense.getAmount(),
+                    expense.getMerchant());
 
             // 1. Try to pay an existing bill
             boolean matched = billService.processExpenseForBillPayment(expense);
@@ -94,59 +98,24 @@ public class EmailParsingService {
             }
 
         } else {
-            System.out.println("Could not extract expense from email: " + emailLog.getId());
+            log.warn("Could not extract expense from email: {}", emailLog.getId());
         }
     }
 
     private void checkForRecurringBill(Expense expense, String content) {
-        // 1. Check if bill already exists (Avoid duplicates)
-        java.util.List<com.antigravity.expensetracker.model.Bill> existing = billRepository
-                .findByUserId(expense.getUser().getId());
-        boolean exists = existing.stream().anyMatch(b -> b.getMerchant().equalsIgnoreCase(expense.getMerchant()));
-
-        if (exists)
+        // Keyword detection only. Interval-based detection runs nightly in
+        // RecurringBillDetector, off the ingestion path.
+        String lowerContent = content.toLowerCase();
+        boolean looksRecurring = lowerContent.contains("auto pay") || lowerContent.contains("auto-pay")
+                || lowerContent.contains("subscription") || lowerContent.contains("recurring");
+        if (!looksRecurring)
             return;
 
-        boolean created = false;
-
-        // 2. Fetch History (Recent 5 transactions for this merchant)
-        java.util.List<Expense> history = expenseRepository.findTop5ByUserIdAndMerchantOrderByDateDesc(
-                expense.getUser().getId(),
-                expense.getMerchant());
-
-        // We need at least 2 transactions (Current [0] + Previous [1]) to calculate an
-        // interval
-        if (history.size() >= 2) {
-            Expense current = history.get(0);
-            Expense previous = history.get(1);
-
-            long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(
-                    previous.getDate().toLocalDate(),
-                    current.getDate().toLocalDate());
-
-            String detectedFrequency = null;
-
-            if (daysBetween >= 25 && daysBetween <= 35) {
-                detectedFrequency = "MONTHLY";
-            } else if (daysBetween >= 360 && daysBetween <= 375) {
-                detectedFrequency = "YEARLY";
-            }
-
-            if (detectedFrequency != null) {
-                createBill(expense, detectedFrequency,
-                        "Auto-detected " + detectedFrequency + " pattern based on transaction history.");
-                created = true;
-            }
-        }
+        // Check if bill already exists (Avoid duplicates)
+        if (billMatchIndexService.hasBillForMerchant(expense.getUser().getId(), expense.getMerchantId()))
+            return;
 
-        // 3. Fallback to Keyword Detection if no pattern found yet
-        if (!created) {
-            String lowerContent = content.toLowerCase();
-            if (lowerContent.contains("auto pay") || lowerContent.contains("auto-pay")
-                    || lowerContent.contains("subscription") || lowerContent.contains("recurring")) {
-                createBill(expense, "MONTHLY", "Auto-detected from email keywords");
-            }
-        }
+        createBill(expense, "MONTHLY", "Auto-detected from email keywords");
     }
 
     private void createBill(Expense expense, String frequency, String note) {
@@ -168,8 +137,8 @@ public class EmailParsingService {
             newBill.setDueDate(expense.getDate().plusMonths(1));
         }
 
-        billRepository.save(newBill);
-        System.out.println("Auto-created " + frequency + " Bill for " + expense.getMerchant());
+        billService.createBill(newBill);
+        log.info("Auto-created {} bill for {}", frequency, expense.getMerchant());
     }
 
     private Expense extractExpense(String subject, String rawBody) {
@@ -254,7 +223,7 @@ public class EmailParsingService {
                 } else if (merchant.equalsIgnoreCase("Bank Transaction")) {
                     expense.setCategory("Transaction");
                 } else {
-                    String cat = categorize(merchant, remainder);
+                    String cat = categorizationService.categorize(merchant, remainder);
 
                     if (notes.startsWith("UPI") && cat.equals("General")) {
                         expense.setCategory("Transaction");
@@ -269,75 +238,10 @@ public class EmailParsingService {
                 return expense;
 
             } catch (Exception e) {
-                System.out.println("Error parsing matched expense: " + e.getMessage());
+                log.warn("Error parsing matched expense: {}", e.getMessage());
                 return null;
             }
         }
         return null;
     }
-
-    private String categorize(String merchant, String context) {
-        String m = (merchant + " " + context).toLowerCase();
-
-        if (m.contains("dreamplug") || m.contains("cred "))
-            return "Transaction";
-
-        if (m.contains("swiggy") || m.contains("zomato") || m.contains("food") || m.contains("restaurant")
-                || m.contains("starbucks") || m.contains("cafe") || m.contains("coffee") || m.contains("tea")
-                || m.contains("burger") || m.contains("pizza") || m.contains("dominos") || m.contains("kfc")
-                || m.contains("mcdonalds") || m.contains("subway") || m.contains("dining") || m.contains("eat"))
-            return "Food";
-
-        if (m.contains("uber") || m.contains("ola") || m.contains("rapido") || m.contains("redbus")
-                || m.contains("irctc") || m.contains("railway") || m.contains("metro") || m.contains("train")
-                || m.contains("flight") || m.contains("indigo") || m.contains("vistara") || m.contains("air india")
-                || m.contains("makemytrip") || m.contains("goibibo") || m.contains("yatra") || m.contains("booking")
-                || m.contains("petrol") || m.contains("fuel") || m.contains("diesel") || m.contains("shell")
-                || m.contains("hpcl") || m.contains("bpcl") || m.contains("ioc")
-                || m.contains("fastag") || m.contains("transport")) {
-            System.out.println("DEBUG: Categorized as Travel because of string [" + m + "]");
-            return "Travel";
-        }
-
-        if (m.contains("bigbasket") || m.contains("blinkit") || m.contains("zepto") || m.contains("instamart")
-                || m.contains("dmart") || m.contains("grocery") || m.contains("supermarket") || m.contains("market")
-                || m.contains("fresh") || m.contains("vegetable") || m.contains("fruit") || m.contains("milk")
-                || m.contains("dairy"))
-            return "Groceries";
-
-        if (m.contains("amazon") || m.contains("flipkart") || m.contains("myntra") || m.contains("ajio")
-                || m.contains("meesho") || m.contains("nykaa") || m.contains("reliance") || m.contains("croma")
-                || m.contains("tata") || m.contains("retail") || m.contains("mart") || m.contains("store")
-                || m.contains("decathlon") || m.contains("ikea") || m.contains("zudio") || m.contains("westside")
-                || m.contains("pantaloons") || m.contains("cloth") || m.contains("fashion") || m.contains("shopping"))
-            return "Shopping";
-
-        if (m.contains("netflix") || m.contains("spotify") || m.contains("hotstar") || m.contains("prime video")
-                || m.contains("youtube") || m.contains("movie") || m.contains("cinema") || m.contains("pvr")
-                || m.contains("inox") || m.contains("bookmyshow") || m.contains("game") || m.contains("steam")
-                || m.contains("playstation") || m.contains("entertainment"))
-            return "Entertainment";
-
-        // Utilities & Bills
-        if (m.contains("bill") || m.contains("recharge") || m.contains("airtel") || m.contains("jio")
-                || m.contains("bsnl") || m.contains("vodafone") || m.contains("broadband")
-                || m.contains("hathway") || m.contains("electricity") || m.contains("bescom")
-                || m.contains("water") || m.contains("gas") || m.contains("utility")) {
-            System.out.println("DEBUG: Categorized as Utilities because of string [" + m + "]");
-            return "Utilities";
-        }
-
-        if (m.contains("hospital") || m.contains("pharmacy") || m.contains("medicine") || m.contains("medical")
-                || m.contains("apollo") || m.contains("1mg") || m.contains("pharmeasy") || m.contains("practo")
-                || m.contains("doctor") || m.contains("clinic") || m.contains("lab") || m.contains("diagnostic")
-                || m.contains("health"))
-            return "Health";
-
-        if (m.contains("investment") || m.contains("mutual fund") || m.contains("sip") || m.contains("zerodha")
-                || m.contains("groww") || m.contains("upstox") || m.contains("stock") || m.contains("ppf")
-                || m.contains("lic") || m.contains("insurance") || m.contains("premium") || m.contains("policy"))
-            return "Investment";
-
-        return "General";
-    }
 }
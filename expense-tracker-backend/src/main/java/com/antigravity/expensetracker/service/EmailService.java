@@ -2,9 +2,8 @@ package com.antigravity.expensetracker.service;
 
 import com.antigravity.expensetracker.dto.EmailDto;
 import com.antigravity.expensetracker.model.SmsMessage;
-import com.antigravity.expensetracker.model.User;
 import com.antigravity.expensetracker.repository.SmsMessageRepository;
-import com.antigravity.expensetracker.repository.UserRepository;
+import com.antigravity.expensetracker.service.UserIdentityService.UserIdentity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -18,7 +17,7 @@ import java.util.regex.Pattern;
 public class EmailService {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserIdentityService userIdentityService;
 
     @Autowired
     private SmsMessageRepository smsMessageRepository;
@@ -29,7 +28,7 @@ public class EmailService {
         // forward)
         // or we check if the 'to' address contains a specific marker.
         // For simplicity, we'll search by the sender's email.
-        Optional<User> userOptional = userRepository.findByEmail(emailDto.getFrom());
+        Optional<UserIdentity> userOptional = userIdentityService.findByEmail(emailDto.getFrom());
 
         if (userOptional.isEmpty()) {
             throw new RuntimeException("Unauthorized: No registered user found for email " + emailDto.getFrom());
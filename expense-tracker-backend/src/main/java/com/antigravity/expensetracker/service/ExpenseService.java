@@ -0,0 +1,238 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.dto.BatchItemError;
+import com.antigravity.expensetracker.dto.BatchResult;
+import com.antigravity.expensetracker.event.UserDataChangedEvent;
+import com.antigravity.expensetracker.model.Expense;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class ExpenseService {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final ExpenseRepository expenseRepository;
+    private final SyncService syncService;
+    private final MerchantService merchantService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ExpenseService(ExpenseRepository expenseRepository, SyncService syncService,
+            MerchantService merchantService, ApplicationEventPublisher eventPublisher) {
+        this.expenseRepository = expenseRepository;
+        this.syncService = syncService;
+        this.merchantService = merchantService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public List<Expense> getExpenses(UUID userId) {
+        if (userId != null) {
+            return expenseRepository.findByUserId(userId);
+        }
+        return expenseRepository.findAll();
+    }
+
+    @Transactional
+    public Expense createExpense(Expense expense) {
+        merchantService.assign(expense);
+        syncService.stamp(expense);
+        Expense saved = expenseRepository.save(expense);
+        publishChanges(List.of(saved));
+        return saved;
+    }
+
+    @Transactional
+    public Expense updateExpense(UUID id, Expense expense) {
+        return expenseRepository.findById(id).map(existingExpense -> {
+            applyChanges(existingExpense, expense, merchantService.resolve(expense.getMerchant()));
+            syncService.stamp(existingExpense);
+            Expense saved = expenseRepository.save(existingExpense);
+            publishChanges(List.of(saved));
+            return saved;
+        }).orElseThrow(() -> new RuntimeException("Expense not found"));
+    }
+
+    @Transactional
+    public void deleteExpense(UUID id) {
+        expenseRepository.findById(id).ifPresent(expense -> {
+            UUID userId = expense.getUser() != null ? expense.getUser().getId() : null;
+            syncService.recordDeletion(userId, SyncService.TYPE_EXPENSE, expense.getId());
+            expenseRepository.delete(expense);
+            publishChanges(List.of(expense));
+        });
+    }
+
+    // --- Batch operations: one transaction, JDBC-batched statements, one version
+    // bump and one change event per user. Invalid items are reported and skipped.
+
+    @Transactional
+    public BatchResult createExpenses(List<Expense> expenses) {
+        checkBatchSize(expenses);
+        List<BatchItemError> errors = new ArrayList<>();
+        List<Expense> valid = new ArrayList<>();
+        for (int i = 0; i < expenses.size(); i++) {
+            Expense expense = expenses.get(i);
+            String error = validate(expense);
+            if (error == null && (expense.getUser() == null || expense.getUser().getId() == null)) {
+                error = "user.id is required";
+            }
+            if (error != null) {
+                errors.add(new BatchItemError(i, null, error));
+                continue;
+            }
+            expense.setId(null); // Batch create never overwrites existing rows
+            valid.add(expense);
+        }
+
+        // One lookup per distinct name, not a merchant query per row
+        Map<String, Long> merchantIds = merchantService.resolveAll(
+                valid.stream().map(Expense::getMerchant).collect(Collectors.toList()));
+        for (Expense expense : valid) {
+            expense.setMerchantId(merchantIds.get(expense.getMerchant()));
+        }
+
+        syncService.stampAll(valid);
+        List<Expense> saved = expenseRepository.saveAll(valid);
+        publishChanges(saved);
+        return new BatchResult(expenses.size(), saved.size(), saved, errors);
+    }
+
+    @Transactional
+    public BatchResult updateExpenses(List<Expense> expenses) {
+        checkBatchSize(expenses);
+        List<UUID> ids = expenses.stream()
+                .filter(e -> e != null && e.getId() != null)
+                .map(Expense::getId)
+                .collect(Collectors.toList());
+        Map<UUID, Expense> existing = expenseRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Expense::getId, Function.identity()));
+
+        List<BatchItemError> errors = new ArrayList<>();
+        List<Expense> changed = new ArrayList<>();
+        List<Expense> updates = new ArrayList<>();
+        Set<UUID> seen = new LinkedHashSet<>();
+        for (int i = 0; i < expenses.size(); i++) {
+            Expense update = expenses.get(i);
+            UUID id = update != null ? update.getId() : null;
+            String error = validate(update);
+            if (error == null && id == null) {
+                error = "id is required";
+            } else if (error == null && !existing.containsKey(id)) {
+                error = "Expense not found";
+            } else if (error == null && !seen.add(id)) {
+                error = "Duplicate id in batch";
+            }
+            if (error != null) {
+                errors.add(new BatchItemError(i, id, error));
+                continue;
+            }
+            changed.add(existing.get(id));
+            updates.add(update);
+        }
+
+        // Merchants are resolved before any loaded entity is dirtied, so their inserts flush nothing
+        Map<String, Long> merchantIds = merchantService.resolveAll(
+                updates.stream().map(Expense::getMerchant).collect(Collectors.toList()));
+        for (int i = 0; i < changed.size(); i++) {
+            Expense update = updates.get(i);
+            applyChanges(changed.get(i), update, merchantIds.get(update.getMerchant()));
+        }
+
+        syncService.stampAll(changed);
+        List<Expense> saved = expenseRepository.saveAll(changed);
+        publishChanges(saved);
+        return new BatchResult(expenses.size(), saved.size(), saved, errors);
+    }
+
+    @Transactional
+    public BatchResult deleteExpenses(List<UUID> ids) {
+        checkBatchSize(ids);
+        List<UUID> requested = ids.stream().filter(id -> id != null).distinct().collect(Collectors.toList());
+        List<Expense> found = expenseRepository.findAllById(requested);
+        Set<UUID> foundIds = found.stream().map(Expense::getId).collect(Collectors.toSet());
+
+        List<BatchItemError> errors = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            UUID id = ids.get(i);
+            if (id == null) {
+                errors.add(new BatchItemError(i, null, "id is required"));
+            } else if (!foundIds.contains(id)) {
+                errors.add(new BatchItemError(i, id, "Expense not found"));
+            }
+        }
+
+        Map<UUID, List<UUID>> idsByUser = new HashMap<>();
+        for (Expense expense : found) {
+            if (expense.getUser() != null) {
+                idsByUser.computeIfAbsent(expense.getUser().getId(), k -> new ArrayList<>()).add(expense.getId());
+            }
+        }
+        idsByUser.forEach((userId, userExpenseIds) -> syncService.recordDeletions(userId,
+                SyncService.TYPE_EXPENSE, userExpenseIds));
+
+        if (!foundIds.isEmpty()) {
+            expenseRepository.deleteAllByIdInBatch(foundIds);
+        }
+        publishChanges(found);
+        return new BatchResult(ids.size(), foundIds.size(), Collections.emptyList(), errors);
+    }
+
+    private void applyChanges(Expense target, Expense source, Long merchantId) {
+        target.setAmount(source.getAmount());
+        target.setCurrency(source.getCurrency());
+        target.setCategory(source.getCategory());
+        target.setMerchant(source.getMerchant());
+        target.setMerchantId(merchantId);
+        target.setDate(source.getDate());
+        target.setNotes(source.getNotes());
+        target.setType(source.getType());
+        target.setSource(source.getSource());
+    }
+
+    private String validate(Expense expense) {
+        if (expense == null) {
+            return "Expense is required";
+        }
+        if (expense.getAmount() == null) {
+            return "amount is required";
+        }
+        if (expense.getDate() == null) {
+            return "date is required";
+        }
+        return null;
+    }
+
+    private void checkBatchSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one item");
+        }
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch exceeds maximum size of " + MAX_BATCH_SIZE + " items");
+        }
+    }
+
+    private void publishChanges(List<Expense> expenses) {
+        Set<UUID> userIds = new LinkedHashSet<>();
+        for (Expense expense : expenses) {
+            if (expense.getUser() != null && expense.getUser().getId() != null) {
+                userIds.add(expense.getUser().getId());
+            }
+        }
+        for (UUID userId : userIds) {
+            eventPublisher.publishEvent(new UserDataChangedEvent(userId, UserDataChangedEvent.DataType.EXPENSES));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.antigravity.expensetracker.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Structured fan-out for independent I/O inside one request, in the shape of JDK 21's
+// StructuredTaskScope.ShutdownOnFailure (still a preview API): fork subtasks, join once
+// with a deadline, read results. The first failure or the deadline cancels the subtasks
+// that have not started and stops waiting on the rest; running subtasks are not
+// interrupted, since interrupting a JDBC call can leave its connection broken.
+// Subtasks run on the application executor, which uses virtual threads, and share one
+// application-wide cap (fan-out.max-parallelism) kept below the connection pool size,
+// so concurrent requests cannot take every connection with their parallel reads. A fork
+// that finds no slot free runs in the caller instead of waiting, so a busy server makes a
+// request sequential, not failed.
+@Component
+public class FanOut {
+
+    private final AsyncTaskExecutor executor;
+    private final Semaphore permits;
+
+    public FanOut(@Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+            @Value("${fan-out.max-parallelism:5}") int maxParallelism) {
+        this.executor = executor;
+        this.permits = new Semaphore(maxParallelism);
+    }
+
+    public Scope open(Duration deadline) {
+        return new Scope(System.nanoTime() + deadline.toNanos(), deadline);
+    }
+
+    public final class Scope implements AutoCloseable {
+        private final long deadlineNanos;
+        private final Duration deadline;
+        private final List<FutureTask<?>> tasks = new ArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private int pending;
+        private Throwable failure;
+        private boolean joined;
+        private boolean closed; // Set once the scope gives up; later forks never run
+
+        private Scope(long deadlineNanos, Duration deadline) {
+            this.deadlineNanos = deadlineNanos;
+            this.deadline = deadline;
+        }
+
+        // The result may only be read after join()
+        public <T> Supplier<T> fork(Callable<T> work) {
+            boolean slot = permits.tryAcquire();
+            // Whichever of the run and a cancellation claims the task first releases the slot,
+            // so a subtask cancelled before it starts never runs its query later
+            AtomicBoolean claimed = new AtomicBoolean();
+            FutureTask<T> task = new FutureTask<>(() -> {
+                if (claimed.getAndSet(true)) {
+                    return null; // Cancelled in between; the result is never read
+                }
+                try {
+                    return work.call();
+                } finally {
+                    if (slot) {
+                        permits.release();
+                    }
+                }
+            }) {
+                @Override
+                protected void done() {
+                    if (slot && !claimed.getAndSet(true)) {
+                        permits.release();
+                    }
+                    onDone(this);
+                }
+            };
+            lock.lock();
+            try {
+                tasks.add(task);
+                pending++;
+                if (closed) {
+                    task.cancel(false);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (slot) {
+                executor.execute(task);
+            } else {
+                task.run();
+            }
+            return () -> result(task);
+        }
+
+        // Waits for every subtask; rethrows the first failure, or fails at the deadline
+        public void join() {
+            lock.lock();
+            try {
+                while (pending > 0 && failure == null) {
+                    long remaining = deadlineNanos - System.nanoTime();
+                    if (remaining <= 0) {
+                        cancelAll();
+                        throw new FanOutTimeoutException(
+                                "Parallel fetch exceeded its " + deadline.toMillis() + " ms deadline");
+                    }
+                    changed.awaitNanos(remaining);
+                }
+                joined = true;
+                if (failure != null) {
+                    throw failure instanceof RuntimeException runtime ? runtime : new CompletionException(failure);
+                }
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for parallel fetch", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            cancelAll();
+        }
+
+        private void onDone(FutureTask<?> task) {
+            lock.lock();
+            try {
+                pending--;
+                if (failure == null && !task.isCancelled()) {
+                    try {
+                        task.get();
+                    } catch (ExecutionException e) {
+                        failure = e.getCause();
+                        cancelAll(); // Shut down on the first failure
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void cancelAll() {
+            lock.lock();
+            try {
+                closed = true;
+                for (FutureTask<?> task : tasks) {
+                    task.cancel(false);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private <T> T result(FutureTask<T> task) {
+            lock.lock();
+            try {
+                if (!joined || !task.isDone()) {
+                    throw new IllegalStateException("Subtask result read before join()");
+                }
+            } finally {
+                lock.unlock();
+            }
+            try {
+                return task.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException runtime
+                        ? runtime
+                        : new CompletionException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
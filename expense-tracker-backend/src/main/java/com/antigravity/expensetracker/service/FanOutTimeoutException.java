@@ -0,0 +1,10 @@
+package com.antigravity.expensetracker.service;
+
+// A fan-out scope ran past its deadline; the data is there, the server is just busy,
+// so callers answer 503 rather than blaming the request.
+public class FanOutTimeoutException extends RuntimeException {
+
+    public FanOutTimeoutException(String message) {
+        super(message);
+    }
+}
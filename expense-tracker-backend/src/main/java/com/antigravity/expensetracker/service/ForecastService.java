@@ -0,0 +1,305 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.dto.CashFlowForecast;
+import com.antigravity.expensetracker.dto.ForecastBill;
+import com.antigravity.expensetracker.dto.ForecastMonth;
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository.DailyCategoryTotal;
+import com.antigravity.expensetracker.repository.UserRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Cash-flow forecast: expanded bill recurrences + trailing per-category spend rates,
+// walked day by day against the monthly budget. Spend rates and bills are cached per
+// user and validated against the database, so writes on any node are seen: while the
+// user's sync version is unchanged both are reused; once it moves, only the input whose
+// own version moved is reloaded. The budget is a single column and is read every time.
+@Service
+public class ForecastService {
+
+    public static final String CACHE_NAME = "forecasts";
+
+    private static final int MAX_MONTHS = 12;
+    private static final int RATE_WINDOW_DAYS = 90;
+    private static final String DEFAULT_CATEGORY = "General";
+    private static final BigDecimal DAYS_PER_MONTH = BigDecimal.valueOf(365.0 / 12);
+
+    private final ExpenseRepository expenseRepository;
+    private final BillRepository billRepository;
+    private final UserRepository userRepository;
+    private final SyncService syncService;
+    private final CacheManager cacheManager;
+
+    public ForecastService(ExpenseRepository expenseRepository,
+            BillRepository billRepository,
+            UserRepository userRepository,
+            SyncService syncService,
+            CacheManager cacheManager) {
+        this.expenseRepository = expenseRepository;
+        this.billRepository = billRepository;
+        this.userRepository = userRepository;
+        this.syncService = syncService;
+        this.cacheManager = cacheManager;
+    }
+
+    public CashFlowForecast getForecast(UUID userId, int months) {
+        CashFlowForecast full = getFullForecast(userId);
+        int count = Math.min(Math.max(months, 1), MAX_MONTHS);
+        return new CashFlowForecast(full.getAsOf(), full.getMonthlyBudget(), full.getDailyVariableSpend(),
+                full.getCategoryDailyRates(), full.getFirstBreachDate(), full.getMonths().subList(0, count));
+    }
+
+    public ForecastMonth getCurrentMonth(UUID userId) {
+        return getFullForecast(userId).getMonths().get(0);
+    }
+
+    private CashFlowForecast getFullForecast(UUID userId) {
+        LocalDate today = LocalDate.now();
+        ForecastState state = state(userId);
+
+        // Versions are read before loading, so a write that lands mid-load leaves the
+        // freshly loaded input marked stale instead of being lost.
+        long syncVersion = syncService.getCurrentVersion(userId);
+        SpendInputs spend = state.spend;
+        BillInputs bills = state.bills;
+        if (state.syncVersion != syncVersion || spend == null || bills == null) {
+            long spendVersion = version(expenseRepository.findExpensesVersion(userId));
+            if (spend == null || spend.version != spendVersion) {
+                spend = loadSpend(userId, today, spendVersion);
+                state.spend = spend;
+            }
+            long billsVersion = version(billRepository.findBillsVersion(userId));
+            if (bills == null || bills.version != billsVersion) {
+                bills = new BillInputs(billsVersion, billRepository.findByUserId(userId));
+                state.bills = bills;
+            }
+            state.syncVersion = syncVersion;
+        }
+        if (!spend.asOf.equals(today)) {
+            spend = loadSpend(userId, today, spend.version);
+            state.spend = spend;
+        }
+        Double budget = userRepository.findMonthlyBudget(userId);
+
+        ForecastResult result = state.result;
+        if (result == null || result.spend != spend || result.bills != bills
+                || !Objects.equals(result.budget, budget)) {
+            result = new ForecastResult(spend, bills, budget, project(spend, bills, budget, today));
+            state.result = result;
+        }
+        return result.forecast;
+    }
+
+    private SpendInputs loadSpend(UUID userId, LocalDate today, long version) {
+        LocalDate windowStart = today.minusDays(RATE_WINDOW_DAYS - 1);
+        LocalDate from = windowStart.isBefore(today.withDayOfMonth(1)) ? windowStart : today.withDayOfMonth(1);
+        List<DailyCategoryTotal> rows = expenseRepository.sumDailyByCategory(userId, from.atStartOfDay());
+
+        Map<String, BigDecimal> windowTotals = new HashMap<>();
+        Map<LocalDate, BigDecimal> monthToDate = new TreeMap<>();
+        LocalDate firstSpend = null;
+        for (DailyCategoryTotal row : rows) {
+            LocalDate day = row.getSpendDate();
+            if (!day.isBefore(windowStart)) {
+                windowTotals.merge(category(row.getCategory()), row.getTotal(), BigDecimal::add);
+                firstSpend = firstSpend == null || day.isBefore(firstSpend) ? day : firstSpend;
+            }
+            if (YearMonth.from(day).equals(YearMonth.from(today)) && !day.isAfter(today)) {
+                monthToDate.merge(day, row.getTotal(), BigDecimal::add);
+            }
+        }
+
+        // New users: average over the days we actually have, not the full window
+        long days = firstSpend == null ? RATE_WINDOW_DAYS
+                : Math.max(ChronoUnit.DAYS.between(firstSpend, today) + 1, 14);
+        days = Math.min(days, RATE_WINDOW_DAYS);
+        Map<String, BigDecimal> rates = new TreeMap<>();
+        for (Map.Entry<String, BigDecimal> entry : windowTotals.entrySet()) {
+            rates.put(entry.getKey(), entry.getValue().divide(BigDecimal.valueOf(days), 4, RoundingMode.HALF_UP));
+        }
+        return new SpendInputs(version, today, rates, monthToDate);
+    }
+
+    private CashFlowForecast project(SpendInputs spend, BillInputs bills, Double monthlyBudget, LocalDate today) {
+        LocalDate horizonEnd = YearMonth.from(today).plusMonths(MAX_MONTHS - 1).atEndOfMonth();
+        BigDecimal budget = monthlyBudget != null && monthlyBudget > 0
+                ? BigDecimal.valueOf(monthlyBudget) : null;
+
+        // Bills are forecast explicitly, so their share is taken out of the category rates
+        Map<String, BigDecimal> billDaily = new HashMap<>();
+        Map<LocalDate, List<ForecastBill>> occurrences = new TreeMap<>();
+        for (Bill bill : bills.bills) {
+            if (!isUpcomingDebit(bill)) {
+                continue;
+            }
+            String category = category(bill.getCategory());
+            billDaily.merge(category, monthlyEquivalent(bill).divide(DAYS_PER_MONTH, 4, RoundingMode.HALF_UP),
+                    BigDecimal::add);
+            expand(bill, today, horizonEnd, occurrences);
+        }
+        occurrences.values().forEach(list -> list.sort(Comparator.comparing(ForecastBill::getMerchant,
+                Comparator.nullsLast(Comparator.naturalOrder()))));
+        BigDecimal dailyVariable = BigDecimal.ZERO;
+        for (Map.Entry<String, BigDecimal> rate : spend.rates.entrySet()) {
+            BigDecimal net = rate.getValue().subtract(billDaily.getOrDefault(rate.getKey(), BigDecimal.ZERO));
+            if (net.signum() > 0) {
+                dailyVariable = dailyVariable.add(net);
+            }
+        }
+
+        List<ForecastMonth> months = new ArrayList<>();
+        LocalDate firstBreach = null;
+        for (int i = 0; i < MAX_MONTHS; i++) {
+            YearMonth month = YearMonth.from(today).plusMonths(i);
+            ForecastMonth forecast = projectMonth(month, today, spend, occurrences, dailyVariable, budget);
+            if (firstBreach == null && forecast.getBreachDate() != null) {
+                firstBreach = forecast.getBreachDate();
+            }
+            months.add(forecast);
+        }
+        return new CashFlowForecast(today, budget, dailyVariable.setScale(2, RoundingMode.HALF_UP),
+                round(spend.rates), firstBreach, months);
+    }
+
+    private ForecastMonth projectMonth(YearMonth month, LocalDate today, SpendInputs spend,
+            Map<LocalDate, List<ForecastBill>> occurrences, BigDecimal dailyVariable, BigDecimal budget) {
+        boolean current = month.equals(YearMonth.from(today));
+        BigDecimal cumulative = BigDecimal.ZERO;
+        BigDecimal actual = BigDecimal.ZERO;
+        BigDecimal billTotal = BigDecimal.ZERO;
+        BigDecimal variableTotal = BigDecimal.ZERO;
+        LocalDate breach = null;
+        List<ForecastBill> monthBills = new ArrayList<>();
+
+        for (LocalDate day = month.atDay(1); !day.isAfter(month.atEndOfMonth()); day = day.plusDays(1)) {
+            if (current && !day.isAfter(today)) {
+                BigDecimal spent = spend.monthToDate.getOrDefault(day, BigDecimal.ZERO);
+                actual = actual.add(spent);
+                cumulative = cumulative.add(spent);
+            } else {
+                variableTotal = variableTotal.add(dailyVariable);
+                cumulative = cumulative.add(dailyVariable);
+            }
+            for (ForecastBill bill : occurrences.getOrDefault(day, List.of())) {
+                monthBills.add(bill);
+                billTotal = billTotal.add(bill.getAmount());
+                cumulative = cumulative.add(bill.getAmount());
+            }
+            if (breach == null && budget != null && cumulative.compareTo(budget) > 0) {
+                breach = day;
+            }
+        }
+
+        BigDecimal total = cumulative.setScale(2, RoundingMode.HALF_UP);
+        return new ForecastMonth(month.toString(), actual.setScale(2, RoundingMode.HALF_UP),
+                billTotal.setScale(2, RoundingMode.HALF_UP), variableTotal.setScale(2, RoundingMode.HALF_UP),
+                total, budget, budget != null ? budget.subtract(total) : null, breach, monthBills);
+    }
+
+    // Occurrences from the due date onwards. An overdue unpaid bill is assumed to be paid
+    // once, today; the cycles it missed are not all charged again, and the schedule
+    // resumes from its first due date after today.
+    private void expand(Bill bill, LocalDate today, LocalDate horizonEnd, Map<LocalDate, List<ForecastBill>> out) {
+        LocalDate due = bill.getDueDate().toLocalDate();
+        if (due.isBefore(today)) {
+            add(bill, today, out);
+            while (!due.isAfter(today)) {
+                LocalDate next = BillService.advance(due.atStartOfDay(), bill.getFrequency()).toLocalDate();
+                if (!next.isAfter(due)) {
+                    return; // One-off bill
+                }
+                due = next;
+            }
+        }
+        while (!due.isAfter(horizonEnd)) {
+            add(bill, due, out);
+            LocalDate next = BillService.advance(due.atStartOfDay(), bill.getFrequency()).toLocalDate();
+            if (!next.isAfter(due)) {
+                break; // One-off bill
+            }
+            due = next;
+        }
+    }
+
+    private static void add(Bill bill, LocalDate day, Map<LocalDate, List<ForecastBill>> out) {
+        out.computeIfAbsent(day, d -> new ArrayList<>())
+                .add(new ForecastBill(day, bill.getMerchant(), category(bill.getCategory()), bill.getAmount()));
+    }
+
+    private static boolean isUpcomingDebit(Bill bill) {
+        return bill.getDueDate() != null && bill.getAmount() != null
+                && !Boolean.TRUE.equals(bill.getIsPaid())
+                && !"credit".equalsIgnoreCase(bill.getType());
+    }
+
+    private static BigDecimal monthlyEquivalent(Bill bill) {
+        String frequency = bill.getFrequency() == null ? "" : bill.getFrequency().toUpperCase();
+        return switch (frequency) {
+            case "WEEKLY" -> bill.getAmount().multiply(BigDecimal.valueOf(52)).divide(BigDecimal.valueOf(12), 4,
+                    RoundingMode.HALF_UP);
+            case "MONTHLY" -> bill.getAmount();
+            case "QUARTERLY" -> bill.getAmount().divide(BigDecimal.valueOf(3), 4, RoundingMode.HALF_UP);
+            case "YEARLY" -> bill.getAmount().divide(BigDecimal.valueOf(12), 4, RoundingMode.HALF_UP);
+            default -> BigDecimal.ZERO;
+        };
+    }
+
+    private ForecastState state(UUID userId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return new ForecastState();
+        }
+        return cache.get(userId, ForecastState::new);
+    }
+
+    private static long version(Long version) {
+        return version != null ? version : 0L;
+    }
+
+    private static Map<String, BigDecimal> round(Map<String, BigDecimal> rates) {
+        Map<String, BigDecimal> rounded = new TreeMap<>();
+        rates.forEach((category, rate) -> rounded.put(category, rate.setScale(2, RoundingMode.HALF_UP)));
+        return rounded;
+    }
+
+    private static String category(String category) {
+        return category == null || category.isBlank() ? DEFAULT_CATEGORY : category;
+    }
+
+    // Cached per user. Inputs are immutable and replaced whole; syncVersion is the user's
+    // sync version when they were last checked against the database.
+    private static final class ForecastState {
+        volatile long syncVersion = -1;
+        volatile SpendInputs spend;
+        volatile BillInputs bills;
+        volatile ForecastResult result;
+    }
+
+    private record SpendInputs(long version, LocalDate asOf, Map<String, BigDecimal> rates,
+            Map<LocalDate, BigDecimal> monthToDate) {
+    }
+
+    private record BillInputs(long version, List<Bill> bills) {
+    }
+
+    private record ForecastResult(SpendInputs spend, BillInputs bills, Double budget,
+            CashFlowForecast forecast) {
+    }
+}
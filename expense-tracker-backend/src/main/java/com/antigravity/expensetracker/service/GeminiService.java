@@ -2,35 +2,52 @@ package com.antigravity.expensetracker.service;
 
 import com.antigravity.expensetracker.dto.EmailParseRequest;
 import com.antigravity.expensetracker.dto.ExpenseExtractionResponse;
+import com.antigravity.expensetracker.llm.LlmClient;
+import com.antigravity.expensetracker.llm.LlmOperation;
+import com.antigravity.expensetracker.llm.LlmRoute;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.util.retry.Retry;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
 
 @Service
 @Slf4j
 public class GeminiService {
 
-    private final WebClient webClient;
+    private final LlmClient llmClient;
     private final ObjectMapper objectMapper;
+    private final RequestCoalescer requestCoalescer;
 
-    @Value("${openai.api.key}")
-    private String apiKey;
+    private static final int MAX_TOOL_ROUNDS = 3;
 
-    private static final String OPENAI_URL = "https://api.openai.com/v1/chat/completions";
-    private static final String MODEL = "gpt-4o-mini";
+    // Templated bank alerts: a currency amount plus a debit/credit verb
+    private static final Pattern TEMPLATED_AMOUNT = Pattern.compile("(?:rs\\.?|inr|₹)\\s?[\\d,]+",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern TEMPLATED_DIRECTION = Pattern.compile(
+            "\\b(?:debited|credited|spent|paid|received|withdrawn)\\b", Pattern.CASE_INSENSITIVE);
 
-    public GeminiService(WebClient.Builder webClientBuilder, ObjectMapper objectMapper) {
-        this.webClient = webClientBuilder.build();
+    @Value("${llm.routing.fast-max-chars:2000}")
+    private int fastMaxChars;
+
+    @Value("${llm.routing.escalate-below-confidence:0.6}")
+    private double escalateBelowConfidence;
+
+    public GeminiService(LlmClient llmClient, ObjectMapper objectMapper, RequestCoalescer requestCoalescer) {
+        this.llmClient = llmClient;
         this.objectMapper = objectMapper;
+        this.requestCoalescer = requestCoalescer;
     }
 
     public ExpenseExtractionResponse parseEmail(EmailParseRequest request) {
@@ -38,10 +55,42 @@ public class GeminiService {
             throw new IllegalArgumentException("Email body cannot be empty");
         }
 
+        // The same email forwarded twice at once is extracted by a single LLM call
+        String contentKey = DigestUtils.md5DigestAsHex((request.getSender() + "\n" + request.getSubject() + "\n"
+                + request.getBody()).getBytes(StandardCharsets.UTF_8));
+        return requestCoalescer.execute("parseEmail", contentKey, () -> extract(request));
+    }
+
+    // Short templated alerts go to the fast model; anything else, or a fast answer the
+    // model itself is unsure of, goes to the strong one. A failed fast call (shed, overload,
+    // timeout, unparseable reply) is returned as is: escalating it would double the cost
+    // exactly when the provider is struggling
+    private ExpenseExtractionResponse extract(EmailParseRequest request) {
+        LlmRoute route = isTemplated(request) ? LlmRoute.FAST : LlmRoute.STRONG;
+        ExpenseExtractionResponse response = extract(request, route);
+        if (route == LlmRoute.FAST && isUnsure(response)) {
+            log.info("Escalating unsure extraction to the strong model");
+            response = extract(request, LlmRoute.STRONG);
+        }
+        return response;
+    }
+
+    private boolean isTemplated(EmailParseRequest request) {
+        String text = (request.getSubject() != null ? request.getSubject() + "\n" : "") + request.getBody();
+        return text.length() <= fastMaxChars && TEMPLATED_AMOUNT.matcher(text).find()
+                && TEMPLATED_DIRECTION.matcher(text).find();
+    }
+
+    private boolean isUnsure(ExpenseExtractionResponse response) {
+        return !response.isError() && (response.getAmount() == null
+                || (response.getConfidence() != null && response.getConfidence() < escalateBelowConfidence));
+    }
+
+    private ExpenseExtractionResponse extract(EmailParseRequest request, LlmRoute route) {
         String prompt = createPrompt(request);
 
         try {
-            String jsonResponse = callOpenAiApi(prompt);
+            String jsonResponse = callOpenAiApi(route, LlmOperation.EXTRACTION, prompt);
             return parseOpenAiResponse(jsonResponse);
         } catch (Exception e) {
             log.error("Failed to parse email with OpenAI", e);
@@ -70,33 +119,18 @@ public class GeminiService {
                 request.getSender(), request.getSubject(), request.getBody());
     }
 
-    private String callOpenAiApi(String prompt) {
-        log.info("Calling OpenAI API...");
+    private String callOpenAiApi(LlmRoute route, LlmOperation operation, String prompt) {
+        log.info("Calling LLM ({} route, {})...", route.key(), operation.key());
         Map<String, Object> requestBody = Map.of(
-                "model", MODEL,
                 "messages", List.of(
                         Map.of("role", "system", "content",
                                 "You are a helpful financial assistant. You extract structured data from emails."),
                         Map.of("role", "user", "content", prompt)),
                 "temperature", 0.1);
 
-        try {
-            String response = webClient.post()
-                    .uri(OPENAI_URL)
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(60)) // Increased timeout
-                    .retryWhen(Retry.backoff(3, Duration.ofSeconds(2)))
-                    .block();
-            log.debug("OpenAI Response: {}", response);
-            return response;
-        } catch (Exception e) {
-            log.error("OpenAI FAILURE: {}", e.getMessage());
-            throw e;
-        }
+        String response = llmClient.completeHedged(route, operation, requestBody);
+        log.debug("OpenAI Response: {}", response);
+        return response;
     }
 
     private ExpenseExtractionResponse parseOpenAiResponse(String rawResponse) {
@@ -149,42 +183,49 @@ public class GeminiService {
         return response;
     }
 
-    public List<com.antigravity.expensetracker.dto.Suggestion> generateInsights(
-            List<com.antigravity.expensetracker.model.Expense> expenses) {
-        if (expenses.isEmpty()) {
-            return java.util.Collections.emptyList();
+    // Insights are computed locally (InsightsEngine); the LLM only rewords title and description.
+    // Figures, ids and types always come from the originals; on any failure they are returned as-is.
+    public List<com.antigravity.expensetracker.dto.Suggestion> rephraseInsights(
+            List<com.antigravity.expensetracker.dto.Suggestion> insights) {
+        if (insights.isEmpty()) {
+            return insights;
         }
 
-        // Summarize expenses to save tokens
-        StringBuilder expenseSummary = new StringBuilder();
-        // Group by Merchant to make it concise
-        Map<String, Double> merchantTotals = expenses.stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                        com.antigravity.expensetracker.model.Expense::getMerchant,
-                        java.util.stream.Collectors.summingDouble(e -> e.getAmount().doubleValue())));
-
-        merchantTotals.forEach((m, total) -> {
-            expenseSummary.append(String.format("- %s: %.2f\n", m, total));
-        });
-
-        String prompt = "You are a financial advisor. Analyze the following expense summary (last 30 days). " +
-                "Identify 3-5 specific opportunities for savings or unusual spending habits. " +
-                "Return ONLY a clean JSON array (no markdown code blocks) of objects with these fields:\n" +
-                "- title (Short, punchy header)\n" +
-                "- description (Friendly advice, be specific about the merchant/category)\n" +
-                "- category (e.g. 'Food', 'Subscription', 'Transport')\n" +
-                "- potentialSavings (Estimated numeric amount per month)\n" +
-                "- type ('habit', 'subscription', 'one-time')\n" +
-                "- merchant (The exact merchant name to filter by, if applicable, else null)\n\n" +
-                "Expense Summary:\n" + expenseSummary.toString();
+        String prompt;
+        try {
+            prompt = "You are a friendly financial advisor. Rewrite the title (short, punchy) and description " +
+                    "(friendly, specific advice) of each insight below. Keep every number, merchant and category " +
+                    "exactly as given. Return ONLY a clean JSON array (no markdown code blocks) with the same " +
+                    "objects and ids, in the same order.\n\nInsights:\n" + objectMapper.writeValueAsString(insights);
+        } catch (Exception e) {
+            return insights;
+        }
 
+        Map<String, com.antigravity.expensetracker.dto.Suggestion> reworded = new HashMap<>();
         try {
-            String jsonResponse = callOpenAiApi(prompt);
-            return parseSuggestions(jsonResponse);
+            String response = callOpenAiApi(LlmRoute.FAST, LlmOperation.REPHRASE, prompt);
+            for (com.antigravity.expensetracker.dto.Suggestion s : parseSuggestions(response)) {
+                if (s.getId() != null) {
+                    reworded.put(s.getId(), s);
+                }
+            }
         } catch (Exception e) {
-            log.error("Failed to generate insights", e);
-            return java.util.Collections.emptyList();
+            log.warn("Insight rephrasing failed, keeping local wording: {}", e.getMessage());
+            return insights;
         }
+
+        List<com.antigravity.expensetracker.dto.Suggestion> result = new ArrayList<>(insights.size());
+        for (com.antigravity.expensetracker.dto.Suggestion original : insights) {
+            com.antigravity.expensetracker.dto.Suggestion text = reworded.get(original.getId());
+            boolean usable = text != null && text.getTitle() != null && !text.getTitle().isBlank()
+                    && text.getDescription() != null && !text.getDescription().isBlank();
+            result.add(usable
+                    ? new com.antigravity.expensetracker.dto.Suggestion(original.getId(), text.getTitle(),
+                            text.getDescription(), original.getCategory(), original.getPotentialSavings(),
+                            original.getType(), original.getMerchant())
+                    : original);
+        }
+        return result;
     }
 
     private List<com.antigravity.expensetracker.dto.Suggestion> parseSuggestions(String rawResponse) {
@@ -212,33 +253,79 @@ public class GeminiService {
 
     }
 
-    public String chatWithData(String systemPrompt, String userMessage) {
-        log.info("Chat Request: {}", userMessage);
+    // Relays the provider's token stream (OpenAI SSE chunks) as plain text deltas
+    public Flux<String> streamChat(String systemPrompt, String userMessage) {
+        log.info("Streaming chat request: {}", userMessage);
 
         Map<String, Object> requestBody = Map.of(
-                "model", MODEL,
                 "messages", List.of(
                         Map.of("role", "system", "content", systemPrompt),
                         Map.of("role", "user", "content", userMessage)),
-                "temperature", 0.7 // Slightly more creative for chat
-        );
+                "temperature", 0.7,
+                "stream", true);
+
+        return llmClient.stream(LlmRoute.FAST, LlmOperation.CHAT, requestBody)
+                .takeWhile(data -> !"[DONE]".equals(data.trim()))
+                .map(this::extractDelta)
+                .filter(delta -> !delta.isEmpty());
+    }
+
+    private String extractDelta(String chunk) {
+        try {
+            JsonNode choices = objectMapper.readTree(chunk).path("choices");
+            return choices.isArray() && !choices.isEmpty()
+                    ? choices.get(0).path("delta").path("content").asText("")
+                    : "";
+        } catch (Exception e) {
+            log.warn("Skipping unreadable stream chunk: {}", chunk);
+            return "";
+        }
+    }
+
+    // Function calling: while the model asks for tools, run them server-side and send the
+    // results back, up to MAX_TOOL_ROUNDS; the last round forces a plain answer.
+    public String chatWithData(String systemPrompt, String userMessage, List<Map<String, Object>> tools,
+            BiFunction<String, JsonNode, String> toolHandler) {
+        log.info("Chat Request: {}", userMessage);
+
+        List<Object> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", systemPrompt));
+        messages.add(Map.of("role", "user", "content", userMessage));
 
         try {
-            String response = webClient.post()
-                    .uri(OPENAI_URL)
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
-
-            JsonNode root = objectMapper.readTree(response);
-            return root.path("choices").get(0).path("message").path("content").asText();
+            for (int round = 0; ; round++) {
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("messages", messages);
+                requestBody.put("temperature", 0.7); // Slightly more creative for chat
+                if (!tools.isEmpty()) {
+                    requestBody.put("tools", tools);
+                    requestBody.put("tool_choice", round < MAX_TOOL_ROUNDS ? "auto" : "none");
+                }
+
+                String response = llmClient.complete(LlmRoute.FAST, LlmOperation.CHAT, requestBody);
+
+                JsonNode message = objectMapper.readTree(response).path("choices").get(0).path("message");
+                JsonNode toolCalls = message.path("tool_calls");
+                if (!toolCalls.isArray() || toolCalls.isEmpty() || toolHandler == null) {
+                    return message.path("content").asText();
+                }
+
+                Map<String, Object> assistant = new HashMap<>();
+                assistant.put("role", "assistant");
+                assistant.put("content", message.path("content").isNull() ? null : message.path("content").asText());
+                assistant.put("tool_calls", objectMapper.convertValue(toolCalls, List.class));
+                messages.add(assistant);
+                for (JsonNode call : toolCalls) {
+                    String name = call.path("function").path("name").asText();
+                    JsonNode args = objectMapper.readTree(call.path("function").path("arguments").asText("{}"));
+                    String result = toolHandler.apply(name, args);
+                    log.debug("Chat tool {}({}) -> {} chars", name, args, result.length());
+                    messages.add(Map.of("role", "tool", "tool_call_id", call.path("id").asText(), "content", result));
+                }
+            }
         } catch (Exception e) {
             log.error("Chat API failed", e);
-            return "I'm having trouble connecting to my brain right now. Please try again later.";
+            throw new RuntimeException("Chat API failed: " + e.getMessage(), e);
         }
     }
 }
@@ -0,0 +1,211 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.dto.Suggestion;
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository.CategoryMerchantTotal;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+// Deterministic insights from two grouped queries (last 30 days vs the 90 before) and the
+// user's bills: category spikes, newly detected subscriptions, overlapping subscriptions
+// and merchants the user is visiting more often. Savings are monthly estimates.
+@Service
+public class InsightsEngine {
+
+    private static final int CURRENT_DAYS = 30;
+    private static final int BASELINE_DAYS = 90;
+    private static final double SPIKE_RATIO = 1.3;
+    private static final double MIN_SPIKE_AMOUNT = 500;
+    private static final double FREQUENCY_RATIO = 1.5;
+    private static final int MIN_RECENT_VISITS = 4;
+    private static final int NEW_SUBSCRIPTION_DAYS = 30;
+    private static final int MAX_SUGGESTIONS = 5;
+
+    private record Totals(double amount, long count) {
+        static Totals of(CategoryMerchantTotal row) {
+            return new Totals(row.getTotal().doubleValue(), row.getTxnCount());
+        }
+
+        Totals plus(Totals other) {
+            return new Totals(amount + other.amount, count + other.count);
+        }
+    }
+
+    private final ExpenseRepository expenseRepository;
+    private final BillRepository billRepository;
+    private final MerchantService merchantService;
+
+    public InsightsEngine(ExpenseRepository expenseRepository,
+            BillRepository billRepository,
+            MerchantService merchantService) {
+        this.expenseRepository = expenseRepository;
+        this.billRepository = billRepository;
+        this.merchantService = merchantService;
+    }
+
+    public List<Suggestion> analyze(UUID userId) {
+        LocalDate today = LocalDate.now();
+        LocalDateTime currentFrom = today.minusDays(CURRENT_DAYS - 1L).atStartOfDay();
+        LocalDateTime baselineFrom = currentFrom.minusDays(BASELINE_DAYS);
+        List<CategoryMerchantTotal> current = expenseRepository.sumByCategoryAndMerchant(userId, currentFrom,
+                today.plusDays(1).atStartOfDay());
+        List<CategoryMerchantTotal> baseline = expenseRepository.sumByCategoryAndMerchant(userId, baselineFrom,
+                currentFrom);
+        List<Bill> bills = billRepository.findByUserId(userId);
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        categorySpikes(current, baseline, suggestions);
+        newSubscriptions(bills, today, suggestions);
+        overlappingSubscriptions(bills, suggestions);
+        risingMerchants(current, baseline, suggestions);
+
+        suggestions.sort(Comparator.comparing(Suggestion::getPotentialSavings).reversed());
+        return suggestions.size() > MAX_SUGGESTIONS ? new ArrayList<>(suggestions.subList(0, MAX_SUGGESTIONS))
+                : suggestions;
+    }
+
+    private void categorySpikes(List<CategoryMerchantTotal> current, List<CategoryMerchantTotal> baseline,
+            List<Suggestion> out) {
+        Map<String, Totals> now = byCategory(current);
+        Map<String, Totals> before = byCategory(baseline);
+        for (Map.Entry<String, Totals> entry : now.entrySet()) {
+            Totals previous = before.get(entry.getKey());
+            if (previous == null) {
+                continue; // No baseline to compare against
+            }
+            double monthlyBaseline = previous.amount * CURRENT_DAYS / BASELINE_DAYS;
+            double excess = entry.getValue().amount - monthlyBaseline;
+            if (entry.getValue().amount >= monthlyBaseline * SPIKE_RATIO && excess >= MIN_SPIKE_AMOUNT) {
+                out.add(new Suggestion("spike-" + entry.getKey(),
+                        entry.getKey() + " spending is up " + percent(entry.getValue().amount, monthlyBaseline),
+                        String.format("You spent ₹%,.0f on %s in the last %d days, against a usual ₹%,.0f. "
+                                + "Getting back to your normal level would save about ₹%,.0f a month.",
+                                entry.getValue().amount, entry.getKey(), CURRENT_DAYS, monthlyBaseline, excess),
+                        entry.getKey(), round(excess), "habit", null));
+            }
+        }
+    }
+
+    private void newSubscriptions(List<Bill> bills, LocalDate today, List<Suggestion> out) {
+        for (Bill bill : bills) {
+            if (bill.getConfidence() == null || bill.getCreatedAt() == null
+                    || bill.getCreatedAt().toLocalDate().isBefore(today.minusDays(NEW_SUBSCRIPTION_DAYS))) {
+                continue; // Only recently auto-detected schedules
+            }
+            String merchant = merchantName(bill);
+            double monthly = monthlyAmount(bill);
+            out.add(new Suggestion("new-sub-" + bill.getId(), "New recurring charge: " + merchant,
+                    String.format("We noticed a %s payment of ₹%,.0f to %s. If you don't use it, "
+                            + "cancelling saves about ₹%,.0f a month.",
+                            frequency(bill).toLowerCase(Locale.ROOT), bill.getAmount(), merchant, monthly),
+                    bill.getCategory(), round(monthly), "subscription", merchant));
+        }
+    }
+
+    // Two or more recurring entertainment charges usually means overlapping streaming plans
+    private void overlappingSubscriptions(List<Bill> bills, List<Suggestion> out) {
+        Map<Long, Bill> byMerchant = new HashMap<>();
+        for (Bill bill : bills) {
+            Long merchantId = merchantService.idOf(bill);
+            if (merchantId != null && "Entertainment".equalsIgnoreCase(bill.getCategory())) {
+                byMerchant.putIfAbsent(merchantId, bill);
+            }
+        }
+        if (byMerchant.size() < 2) {
+            return;
+        }
+        List<Bill> subscriptions = new ArrayList<>(byMerchant.values());
+        subscriptions.sort(Comparator.comparingDouble(this::monthlyAmount));
+        double cheapest = monthlyAmount(subscriptions.get(0));
+        List<String> names = subscriptions.stream().map(this::merchantName).toList();
+        out.add(new Suggestion("overlap-Entertainment",
+                "You pay for " + subscriptions.size() + " entertainment subscriptions",
+                String.format("%s all bill you every period. Keeping one fewer saves at least ₹%,.0f a month.",
+                        String.join(", ", names), cheapest),
+                "Entertainment", round(cheapest), "subscription", merchantName(subscriptions.get(0))));
+    }
+
+    private void risingMerchants(List<CategoryMerchantTotal> current, List<CategoryMerchantTotal> baseline,
+            List<Suggestion> out) {
+        Map<Long, Totals> now = byMerchant(current);
+        Map<Long, Totals> before = byMerchant(baseline);
+        for (Map.Entry<Long, Totals> entry : now.entrySet()) {
+            Totals recent = entry.getValue();
+            Totals previous = before.getOrDefault(entry.getKey(), new Totals(0, 0));
+            double usualVisits = (double) previous.count * CURRENT_DAYS / BASELINE_DAYS;
+            if (recent.count < MIN_RECENT_VISITS || recent.count < usualVisits * FREQUENCY_RATIO + 1) {
+                continue;
+            }
+            String merchant = merchantService.getDisplayName(entry.getKey());
+            if (merchant == null) {
+                continue; // Created on another node and not loaded here yet; next run picks it up
+            }
+            double avgTicket = recent.amount / recent.count;
+            double extra = (recent.count - usualVisits) * avgTicket;
+            out.add(new Suggestion("frequency-" + entry.getKey(), "More frequent " + merchant + " orders",
+                    String.format("%d payments to %s in the last %d days, up from about %.0f. "
+                            + "Cutting back to your usual pace saves about ₹%,.0f a month.",
+                            recent.count, merchant, CURRENT_DAYS, usualVisits, extra),
+                    null, round(extra), "habit", merchant));
+        }
+    }
+
+    private static Map<String, Totals> byCategory(List<CategoryMerchantTotal> rows) {
+        Map<String, Totals> totals = new HashMap<>();
+        for (CategoryMerchantTotal row : rows) {
+            String category = row.getCategory() != null ? row.getCategory() : "General";
+            totals.merge(category, Totals.of(row), Totals::plus);
+        }
+        return totals;
+    }
+
+    private static Map<Long, Totals> byMerchant(List<CategoryMerchantTotal> rows) {
+        Map<Long, Totals> totals = new HashMap<>();
+        for (CategoryMerchantTotal row : rows) {
+            if (row.getMerchantId() != null) {
+                totals.merge(row.getMerchantId(), Totals.of(row), Totals::plus);
+            }
+        }
+        return totals;
+    }
+
+    private double monthlyAmount(Bill bill) {
+        double amount = bill.getAmount() != null ? bill.getAmount().doubleValue() : 0;
+        return switch (frequency(bill)) {
+            case "WEEKLY" -> amount * 52 / 12;
+            case "QUARTERLY" -> amount / 3;
+            case "YEARLY" -> amount / 12;
+            default -> amount;
+        };
+    }
+
+    private static String frequency(Bill bill) {
+        return bill.getFrequency() != null ? bill.getFrequency().toUpperCase(Locale.ROOT) : "MONTHLY";
+    }
+
+    private String merchantName(Bill bill) {
+        String name = merchantService.getDisplayName(merchantService.idOf(bill));
+        return name != null ? name : bill.getMerchant();
+    }
+
+    private static String percent(double now, double before) {
+        return String.format("%.0f%%", (now / before - 1) * 100);
+    }
+
+    private static Double round(double value) {
+        return BigDecimal.valueOf(value).setScale(0, RoundingMode.HALF_UP).doubleValue();
+    }
+}
@@ -0,0 +1,392 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.model.Expense;
+import com.antigravity.expensetracker.model.Merchant;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.MerchantRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.ToIntBiFunction;
+
+// Canonical merchant dictionary. Raw merchant strings are reduced to a normalized key
+// (the whole name without legal, payment-rail and city noise), looked up exactly, then
+// scored against a trigram index, and only then inserted as a new merchant. Ids are
+// resolved once at ingestion and stored on Expense and Bill, so matching and grouping
+// compare Longs instead of strings. Only write paths insert; a new merchant enters this
+// node's dictionary after its transaction commits, and a miss first loads merchants other
+// nodes have created, so every node maps a name to the same id.
+@Service
+@Slf4j
+public class MerchantService {
+
+    private static final double MIN_SIMILARITY = 0.75;
+    private static final int BACKFILL_PAGE_SIZE = 500;
+    private static final String UNKNOWN_KEY = "unknown";
+
+    private static final Set<String> NOISE_TOKENS = Set.of(
+            "pvt", "private", "ltd", "limited", "llp", "inc", "india", "the", "co", "com", "www", "in",
+            "payment", "payments", "technologies", "services", "upi", "p2m", "p2a", "pos", "ecom");
+
+    // Branch labels: "Starbucks Mumbai" and "Starbucks Pune" are one merchant
+    private static final Set<String> CITY_TOKENS = Set.of(
+            "mumbai", "bombay", "navimumbai", "thane", "delhi", "newdelhi", "noida", "gurgaon", "gurugram",
+            "bangalore", "bengaluru", "blr", "chennai", "madras", "hyderabad", "secunderabad", "kolkata", "calcutta",
+            "pune", "ahmedabad", "surat", "vadodara", "jaipur", "lucknow", "kochi", "cochin", "chandigarh",
+            "indore", "bhopal", "nagpur", "coimbatore", "mysore", "mysuru", "visakhapatnam", "patna", "goa");
+
+    private final MerchantRepository merchantRepository;
+    private final ExpenseRepository expenseRepository;
+    private final BillRepository billRepository;
+    private final AsyncTaskExecutor executor;
+
+    // Every map hands out the same Long instance per merchant
+    private final Map<String, Long> idsByKey = new ConcurrentHashMap<>();
+    private final Map<Long, String> displayNames = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> trigramIndex = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> trigramCounts = new ConcurrentHashMap<>();
+    private final Map<Long, String> keysById = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private long loadedThroughId; // Guarded by loadLock
+    private final ReentrantLock loadLock = new ReentrantLock(); // The load queries the DB; a monitor would pin
+
+    public MerchantService(MerchantRepository merchantRepository,
+            ExpenseRepository expenseRepository,
+            BillRepository billRepository,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor) {
+        this.merchantRepository = merchantRepository;
+        this.expenseRepository = expenseRepository;
+        this.billRepository = billRepository;
+        this.executor = executor;
+    }
+
+    // Write paths only: creates the merchant when nothing matches
+    public Long resolve(String rawMerchant) {
+        if (rawMerchant == null) {
+            return null;
+        }
+        ensureLoaded();
+        String key = normalizedKey(rawMerchant);
+        Long id = match(key);
+        if (id == null) {
+            loadNewMerchants(); // Perhaps created on another node since the last load
+            id = match(key);
+        }
+        return id != null ? id : create(key, displayName(rawMerchant));
+    }
+
+    // Batch write paths: resolves every distinct name once, with one reload for all misses,
+    // before the caller touches its entities, so the inserts flush nothing mid-batch
+    public Map<String, Long> resolveAll(Collection<String> rawMerchants) {
+        ensureLoaded();
+        Map<String, Long> ids = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String rawMerchant : rawMerchants) {
+            if (rawMerchant == null || ids.containsKey(rawMerchant)) {
+                continue;
+            }
+            Long id = match(normalizedKey(rawMerchant));
+            if (id != null) {
+                ids.put(rawMerchant, id);
+            } else {
+                missing.add(rawMerchant);
+            }
+        }
+        if (!missing.isEmpty()) {
+            loadNewMerchants();
+            Map<String, Long> created = new HashMap<>(); // Not in the dictionary until commit
+            for (String rawMerchant : missing) {
+                String key = normalizedKey(rawMerchant);
+                Long id = match(key);
+                if (id == null) {
+                    id = created.computeIfAbsent(key, k -> create(k, displayName(rawMerchant)));
+                }
+                ids.put(rawMerchant, id);
+            }
+        }
+        return ids;
+    }
+
+    // Exact (or previously aliased) match only; never creates a merchant
+    public Long find(String rawMerchant) {
+        if (rawMerchant == null || rawMerchant.isBlank()) {
+            return null;
+        }
+        ensureLoaded();
+        return idsByKey.get(normalizedKey(rawMerchant));
+    }
+
+    public void assign(Expense expense) {
+        expense.setMerchantId(resolve(expense.getMerchant()));
+    }
+
+    public void assign(Bill bill) {
+        bill.setMerchantId(resolve(bill.getMerchant()));
+    }
+
+    // Stored id, or a read-only lookup for rows the startup backfill has not reached yet
+    public Long idOf(Expense expense) {
+        return expense.getMerchantId() != null ? expense.getMerchantId() : lookup(expense.getMerchant());
+    }
+
+    public Long idOf(Bill bill) {
+        return bill.getMerchantId() != null ? bill.getMerchantId() : lookup(bill.getMerchant());
+    }
+
+    public String getDisplayName(Long merchantId) {
+        ensureLoaded();
+        return merchantId != null ? displayNames.get(merchantId) : null;
+    }
+
+    // Rows written before merchant ids existed are resolved once, one distinct name at a time
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        executor.execute(() -> {
+            try {
+                int expenses = backfill(expenseRepository::findUnresolvedMerchantsAfter,
+                        expenseRepository::assignMerchantId);
+                int bills = backfill(billRepository::findUnresolvedMerchantsAfter, billRepository::assignMerchantId);
+                if (expenses > 0 || bills > 0) {
+                    log.info("Assigned merchant ids to {} expenses and {} bills", expenses, bills);
+                }
+            } catch (Exception e) {
+                log.error("Merchant id backfill failed", e);
+            }
+        });
+    }
+
+    // Pages by name, so a name whose rows were not updated is never fetched again
+    private int backfill(BiFunction<String, Pageable, List<String>> unresolvedAfter,
+            ToIntBiFunction<String, Long> assign) {
+        int assigned = 0;
+        String after = "";
+        List<String> names;
+        while (!(names = unresolvedAfter.apply(after, PageRequest.of(0, BACKFILL_PAGE_SIZE))).isEmpty()) {
+            for (String name : names) {
+                Long id = resolve(name);
+                if (id != null) {
+                    assigned += assign.applyAsInt(name, id);
+                }
+            }
+            after = names.get(names.size() - 1);
+        }
+        return assigned;
+    }
+
+    private Long lookup(String rawMerchant) {
+        if (rawMerchant == null) {
+            return null;
+        }
+        ensureLoaded();
+        return match(normalizedKey(rawMerchant));
+    }
+
+    private Long match(String key) {
+        Long id = idsByKey.get(key);
+        if (id != null) {
+            return id;
+        }
+        id = findSimilar(key);
+        if (id != null) {
+            idsByKey.putIfAbsent(key, id); // Remember the alias so the next lookup is exact
+        }
+        return id;
+    }
+
+    // Dice coefficient over trigrams. Prefixes get no bonus: "amazonpay" and "amazonprime"
+    // share a prefix but are different merchants.
+    private Long findSimilar(String key) {
+        List<String> grams = trigrams(key);
+        Map<Long, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            Set<Long> ids = trigramIndex.get(gram);
+            if (ids != null) {
+                for (Long id : ids) {
+                    shared.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+
+        Long best = null;
+        double bestScore = 0;
+        for (Map.Entry<Long, Integer> candidate : shared.entrySet()) {
+            Long id = candidate.getKey();
+            double score = 2.0 * candidate.getValue() / (grams.size() + trigramCounts.getOrDefault(id, 0));
+            if (score >= MIN_SIMILARITY && score > bestScore) {
+                best = id;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private Long create(String key, String displayName) {
+        merchantRepository.insertIfAbsent(key, displayName, LocalDateTime.now());
+        Merchant merchant = merchantRepository.findByNormalizedKey(key)
+                .orElseThrow(() -> new IllegalStateException("Merchant missing after insert: " + key));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return register(merchant);
+        }
+        // A rolled-back insert must not leave a phantom id in the dictionary
+        createdInTransaction().add(merchant.getId());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                register(merchant);
+            }
+        });
+        return merchant.getId();
+    }
+
+    // Ids this transaction inserted. A reload on the same connection sees them before they
+    // commit, so it skips them and leaves them to the afterCommit registration above.
+    @SuppressWarnings("unchecked")
+    private Set<Long> createdInTransaction() {
+        Set<Long> ids = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (ids == null) {
+            Set<Long> created = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MerchantService.this);
+                }
+            });
+            ids = created;
+        }
+        return ids;
+    }
+
+    private Long register(Merchant merchant) {
+        Long id = idsByKey.computeIfAbsent(merchant.getNormalizedKey(), k -> merchant.getId());
+        if (keysById.putIfAbsent(id, merchant.getNormalizedKey()) == null) {
+            displayNames.put(id, merchant.getDisplayName());
+            List<String> grams = trigrams(merchant.getNormalizedKey());
+            trigramCounts.put(id, grams.size());
+            for (String gram : grams) {
+                trigramIndex.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+        return id;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                loadedThroughId = 0;
+                registerAll(merchantRepository.findAll());
+                loaded = true;
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void loadNewMerchants() {
+        loadLock.lock();
+        try {
+            registerAll(merchantRepository.findByIdGreaterThanOrderByIdAsc(loadedThroughId));
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    // Skipping an uncommitted id of our own is safe to load past: it is registered on commit,
+    // and after a rollback it no longer exists
+    private void registerAll(List<Merchant> merchants) {
+        @SuppressWarnings("unchecked")
+        Set<Long> uncommitted = TransactionSynchronizationManager.isSynchronizationActive()
+                ? (Set<Long>) TransactionSynchronizationManager.getResource(this)
+                : null;
+        for (Merchant merchant : merchants) {
+            if (uncommitted == null || !uncommitted.contains(merchant.getId())) {
+                register(merchant);
+            }
+            loadedThroughId = Math.max(loadedThroughId, merchant.getId());
+        }
+    }
+
+    // "Swiggy Instamart" -> swiggyinstamart, "UPI/P2M/123/swiggy@icici/..." -> swiggy,
+    // "Reliance Fresh Pvt Ltd Mumbai" -> reliancefresh, "RAHUL SHARMA" -> rahulsharma
+    static String normalizedKey(String rawMerchant) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : extractName(rawMerchant).toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (!token.isEmpty() && !NOISE_TOKENS.contains(token) && !token.chars().allMatch(Character::isDigit)) {
+                tokens.add(token);
+            }
+        }
+        // Trailing city names only; one left on its own is the name itself
+        while (tokens.size() > 1) {
+            int last = tokens.size() - 1;
+            if (tokens.size() > 2 && CITY_TOKENS.contains(tokens.get(last - 1) + tokens.get(last))) {
+                tokens.subList(last - 1, last + 1).clear(); // "new delhi", "navi mumbai"
+            } else if (CITY_TOKENS.contains(tokens.get(last))) {
+                tokens.remove(last);
+            } else {
+                break;
+            }
+        }
+        if (tokens.isEmpty()) {
+            String compact = rawMerchant.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+            return compact.isEmpty() ? UNKNOWN_KEY : compact;
+        }
+        return String.join("", tokens);
+    }
+
+    private static String extractName(String rawMerchant) {
+        String value = rawMerchant.trim();
+        if (value.toUpperCase(Locale.ROOT).startsWith("UPI/")) {
+            String[] parts = value.split("/");
+            value = parts.length >= 4 ? parts[3] : parts[parts.length - 1];
+        }
+        int at = value.indexOf('@');
+        if (at > 0 && !value.substring(0, at).contains(" ")) {
+            value = value.substring(0, at); // VPA: swiggy@icici
+        }
+        return value;
+    }
+
+    private static String displayName(String rawMerchant) {
+        String name = extractName(rawMerchant).trim();
+        if (name.isEmpty()) {
+            name = rawMerchant.trim();
+        }
+        return name.length() > 255 ? name.substring(0, 255) : name;
+    }
+
+    private static List<String> trigrams(String key) {
+        String padded = "$" + key + "$";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return new ArrayList<>(grams);
+    }
+}
@@ -0,0 +1,306 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository.MerchantHistoryRow;
+import com.antigravity.expensetracker.repository.SchedulerLeaseRepository;
+import com.antigravity.expensetracker.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Nightly scan of each user's spend history, ordered by merchant and date. A merchant is
+// recurring when its payment intervals cluster around a known period (low variance) and
+// the amounts are stable. Detected schedules are upserted as bills with a confidence score.
+// Each night's run holds a SchedulerLease, so with several nodes only one of them runs it.
+@Service
+@Slf4j
+public class RecurringBillDetector {
+
+    private static final String JOB_NAME = "recurring-bills";
+
+    private static final int HISTORY_MONTHS = 24;
+    private static final double MAX_INTERVAL_CV = 0.25;
+    private static final double MAX_AMOUNT_CV = 0.20;
+    private static final double MIN_CONFIDENCE = 0.6;
+    private static final double STALE_AFTER_PERIODS = 1.5;
+
+    // Frequency, nominal period in days, allowed deviation of the mean interval, and the
+    // payments needed. Three yearly payments would not fit in the history window, so two a
+    // year apart (one interval within the tolerance) are enough for YEARLY.
+    private enum Period {
+        WEEKLY(7, 1.5, 3), MONTHLY(30.44, 4, 3), QUARTERLY(91.31, 10, 3), YEARLY(365.25, 15, 2);
+
+        final double days;
+        final double tolerance;
+        final int minOccurrences;
+
+        Period(double days, double tolerance, int minOccurrences) {
+            this.days = days;
+            this.tolerance = tolerance;
+            this.minOccurrences = minOccurrences;
+        }
+    }
+
+    private record Detection(Long merchantId, String merchant, String category, Period period,
+            BigDecimal amount, LocalDateTime lastPaid, double confidence) {
+    }
+
+    private final ExpenseRepository expenseRepository;
+    private final BillRepository billRepository;
+    private final UserRepository userRepository;
+    private final BillService billService;
+    private final MerchantService merchantService;
+    private final SchedulerLeaseRepository leaseRepository;
+    private final AsyncTaskExecutor executor;
+    private final String nodeId = BillNotificationScheduler.newLeaseOwner();
+
+    @Value("${recurring.detector.parallelism:4}")
+    private int parallelism;
+
+    @Value("${recurring.detector.lease-minutes:10}")
+    private long leaseMinutes;
+
+    public RecurringBillDetector(ExpenseRepository expenseRepository,
+            BillRepository billRepository,
+            UserRepository userRepository,
+            BillService billService,
+            MerchantService merchantService,
+            SchedulerLeaseRepository leaseRepository,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor) {
+        this.expenseRepository = expenseRepository;
+        this.billRepository = billRepository;
+        this.userRepository = userRepository;
+        this.billService = billService;
+        this.merchantService = merchantService;
+        this.leaseRepository = leaseRepository;
+        this.executor = executor;
+    }
+
+    // Users are split into a fixed number of lanes so the job never takes over the executor.
+    // The lease is extended after every user; a node that loses it stops.
+    @Scheduled(cron = "${recurring.detector.cron:0 0 2 * * ?}")
+    public void detectAll() {
+        String key = JOB_NAME + ":" + LocalDate.now();
+        if (leaseRepository.tryAcquire(key, nodeId, leaseExpiry(), LocalDateTime.now()) == 0) {
+            return; // Another node runs tonight's detection, or already has
+        }
+
+        List<UUID> userIds = userRepository.findAllIds();
+        int lanes = Math.max(1, Math.min(parallelism, userIds.size()));
+        AtomicInteger upserted = new AtomicInteger();
+        AtomicBoolean leaseLost = new AtomicBoolean();
+        List<CompletableFuture<Void>> work = new ArrayList<>();
+        for (int lane = 0; lane < lanes; lane++) {
+            int current = lane;
+            work.add(CompletableFuture.runAsync(() -> {
+                for (int i = current; i < userIds.size() && !leaseLost.get(); i += lanes) {
+                    try {
+                        upserted.addAndGet(detectForUser(userIds.get(i)));
+                    } catch (Exception e) {
+                        log.error("Recurring bill detection failed for user {}", userIds.get(i), e);
+                    }
+                    if (leaseRepository.checkpoint(key, nodeId, null, null, leaseExpiry()) == 0) {
+                        leaseLost.set(true);
+                    }
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(work.toArray(new CompletableFuture[0])).join();
+        if (leaseLost.get()) {
+            log.warn("Lost lease {} after {} bills upserted", key, upserted.get());
+            return;
+        }
+        leaseRepository.complete(key, nodeId);
+        log.info("Recurring bill detection finished: {} users, {} bills upserted", userIds.size(), upserted.get());
+    }
+
+    public int detectForUser(UUID userId) {
+        LocalDate today = LocalDate.now();
+        List<MerchantHistoryRow> history = expenseRepository.findMerchantHistory(userId,
+                today.minusMonths(HISTORY_MONTHS).atStartOfDay());
+
+        List<Detection> detections = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= history.size(); i++) {
+            if (i == history.size() || !history.get(i).getMerchantId().equals(history.get(start).getMerchantId())) {
+                Detection detection = analyze(history.subList(start, i), today);
+                if (detection != null) {
+                    detections.add(detection);
+                }
+                start = i;
+            }
+        }
+        if (detections.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Bill> billsByMerchant = new HashMap<>();
+        for (Bill bill : billRepository.findByUserId(userId)) {
+            Long merchantId = merchantService.idOf(bill);
+            if (merchantId != null) {
+                billsByMerchant.putIfAbsent(merchantId, bill);
+            }
+        }
+
+        int upserted = 0;
+        for (Detection detection : detections) {
+            Bill existing = billsByMerchant.get(detection.merchantId);
+            if (existing != null && existing.getConfidence() == null) {
+                continue; // Created or edited by the user; never overwrite
+            }
+            if (existing != null && !changed(existing, detection, today)) {
+                continue;
+            }
+            LocalDateTime dueDate = nextDue(detection, today);
+            String note = String.format("Auto-detected %s pattern (%.0f%% confidence)",
+                    detection.period.name(), detection.confidence * 100);
+            if (existing != null) {
+                // Re-read under a row lock: the user may have edited the bill since it was loaded
+                if (billService.updateDetectedBill(existing.getId(), detection.amount, detection.period.name(),
+                        dueDate, detection.confidence, note)) {
+                    upserted++;
+                }
+                continue;
+            }
+            Bill bill = newBill(userId, detection);
+            bill.setAmount(detection.amount);
+            bill.setFrequency(detection.period.name());
+            bill.setDueDate(dueDate);
+            bill.setConfidence(detection.confidence);
+            bill.setNote(note);
+            billService.saveDetectedBill(bill);
+            upserted++;
+        }
+        return upserted;
+    }
+
+    private Detection analyze(List<MerchantHistoryRow> rows, LocalDate today) {
+        // Several payments on one day count once
+        List<MerchantHistoryRow> payments = new ArrayList<>();
+        for (MerchantHistoryRow row : rows) {
+            if (payments.isEmpty() || !payments.get(payments.size() - 1).getTxnDate().toLocalDate()
+                    .equals(row.getTxnDate().toLocalDate())) {
+                payments.add(row);
+            }
+        }
+        if (payments.size() < 2) {
+            return null;
+        }
+
+        double[] intervals = new double[payments.size() - 1];
+        for (int i = 1; i < payments.size(); i++) {
+            intervals[i - 1] = ChronoUnit.DAYS.between(payments.get(i - 1).getTxnDate().toLocalDate(),
+                    payments.get(i).getTxnDate().toLocalDate());
+        }
+        double meanInterval = mean(intervals);
+        Period period = closestPeriod(meanInterval);
+        if (period == null || payments.size() < period.minOccurrences) {
+            return null;
+        }
+        double intervalCv = stdDev(intervals, meanInterval) / meanInterval;
+
+        double[] amounts = new double[payments.size()];
+        for (int i = 0; i < payments.size(); i++) {
+            amounts[i] = payments.get(i).getAmount().doubleValue();
+        }
+        double meanAmount = mean(amounts);
+        double amountCv = meanAmount == 0 ? 1 : stdDev(amounts, meanAmount) / meanAmount;
+        if (intervalCv > MAX_INTERVAL_CV || amountCv > MAX_AMOUNT_CV) {
+            return null;
+        }
+
+        MerchantHistoryRow last = payments.get(payments.size() - 1);
+        long sinceLast = ChronoUnit.DAYS.between(last.getTxnDate().toLocalDate(), today);
+        if (sinceLast > period.days * STALE_AFTER_PERIODS) {
+            return null; // Looks cancelled
+        }
+
+        // Regular timing matters most, then stable amounts, then how much evidence we have
+        double timing = 1 - intervalCv / MAX_INTERVAL_CV;
+        double amount = 1 - amountCv / MAX_AMOUNT_CV;
+        double support = Math.min(1.0, intervals.length / 5.0);
+        double confidence = round(0.5 * timing + 0.3 * amount + 0.2 * support);
+        if (confidence < MIN_CONFIDENCE) {
+            return null;
+        }
+        return new Detection(last.getMerchantId(), last.getMerchant(), last.getCategory(), period,
+                last.getAmount(), last.getTxnDate(), confidence);
+    }
+
+    private Bill newBill(UUID userId, Detection detection) {
+        Bill bill = new Bill();
+        bill.setUser(userRepository.getReferenceById(userId));
+        bill.setMerchant(detection.merchant);
+        bill.setMerchantId(detection.merchantId);
+        bill.setCategory(detection.category);
+        bill.setType("Debit");
+        return bill;
+    }
+
+    private boolean changed(Bill bill, Detection detection, LocalDate today) {
+        return !detection.period.name().equals(bill.getFrequency())
+                || bill.getAmount() == null || bill.getAmount().compareTo(detection.amount) != 0
+                || bill.getConfidence() == null || Math.abs(bill.getConfidence() - detection.confidence) >= 0.01
+                || bill.getDueDate() == null || bill.getDueDate().toLocalDate().isBefore(today);
+    }
+
+    private LocalDateTime leaseExpiry() {
+        return LocalDateTime.now().plusMinutes(leaseMinutes);
+    }
+
+    private static LocalDateTime nextDue(Detection detection, LocalDate today) {
+        LocalDateTime due = BillService.advance(detection.lastPaid, detection.period.name());
+        while (due.toLocalDate().isBefore(today)) {
+            due = BillService.advance(due, detection.period.name());
+        }
+        return due;
+    }
+
+    private static Period closestPeriod(double meanInterval) {
+        for (Period period : Period.values()) {
+            if (Math.abs(meanInterval - period.days) <= period.tolerance) {
+                return period;
+            }
+        }
+        return null;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double stdDev(double[] values, double mean) {
+        double sum = 0;
+        for (double value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(sum / values.length);
+    }
+
+    private static double round(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+}
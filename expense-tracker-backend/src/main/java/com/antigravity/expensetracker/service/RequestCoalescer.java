@@ -0,0 +1,70 @@
+package com.antigravity.expensetracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Singleflight: concurrent calls with the same operation and key share one execution.
+// The first caller runs the work on its own thread; the rest block on its result (or
+// its exception). Nothing is kept once the work finishes, so this is not a cache.
+// Published as coalescer.calls{operation, result=leader|joined}.
+@Component
+public class RequestCoalescer {
+
+    private record Key(String operation, Object key) {
+    }
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("coalescer.in_flight", inFlight, Map::size)
+                .description("Distinct computations currently running")
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> work) {
+        Key flightKey = new Key(operation, key);
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, own);
+        if (existing != null) {
+            counter(operation, "joined").increment();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        counter(operation, "leader").increment();
+        try {
+            T result = work.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, own);
+        }
+    }
+
+    private Counter counter(String operation, String result) {
+        return Counter.builder("coalescer.calls")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
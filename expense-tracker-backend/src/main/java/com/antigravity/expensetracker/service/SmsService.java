@@ -2,9 +2,8 @@ package com.antigravity.expensetracker.service;
 
 import com.antigravity.expensetracker.dto.SmsDto;
 import com.antigravity.expensetracker.model.SmsMessage;
-import com.antigravity.expensetracker.model.User;
 import com.antigravity.expensetracker.repository.SmsMessageRepository;
-import com.antigravity.expensetracker.repository.UserRepository;
+import com.antigravity.expensetracker.service.UserIdentityService.UserIdentity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -18,14 +17,14 @@ public class SmsService {
     private SmsMessageRepository smsMessageRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserIdentityService userIdentityService;
 
     public SmsMessage processSms(SmsDto smsDto) {
         // 1. Validation of required fields
         validateSmsDto(smsDto);
 
         // 2. Authorization: verify if sender is a registered user
-        Optional<User> userOptional = userRepository.findByMobileNumber(smsDto.getSenderNumber());
+        Optional<UserIdentity> userOptional = userIdentityService.findByMobileNumber(smsDto.getSenderNumber());
         if (userOptional.isEmpty()) {
             throw new RuntimeException("Unauthorized: Sender phone number not recognized.");
         }
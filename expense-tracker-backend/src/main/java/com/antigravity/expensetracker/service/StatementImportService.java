@@ -0,0 +1,346 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.dto.BatchResult;
+import com.antigravity.expensetracker.dto.ImportStatus;
+import com.antigravity.expensetracker.model.Expense;
+import com.antigravity.expensetracker.model.StatementImport;
+import com.antigravity.expensetracker.model.User;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.StatementImportRepository;
+import com.antigravity.expensetracker.repository.UserRepository;
+import com.antigravity.expensetracker.service.StatementParser.StatementRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Statement import pipeline: stream-parse -> categorize chunk in parallel ->
+// dedupe against existing rows in the chunk's date window -> batch insert.
+// Only one chunk of rows is held in memory at a time. Job state lives in
+// statement_imports, so status is visible from every node, and its unique active-user
+// key allows one running import per user; dedupe relies on that serialization.
+@Service
+@Slf4j
+public class StatementImportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final long JOB_RETENTION_HOURS = 24;
+    private static final long STALE_JOB_MINUTES = 10; // No progress for this long: the node died
+
+    private final StatementParser statementParser;
+    private final CategorizationService categorizationService;
+    private final ExpenseService expenseService;
+    private final ExpenseRepository expenseRepository;
+    private final StatementImportRepository importRepository;
+    private final UserRepository userRepository;
+    private final AsyncTaskExecutor executor;
+
+    public StatementImportService(StatementParser statementParser,
+            CategorizationService categorizationService,
+            ExpenseService expenseService,
+            ExpenseRepository expenseRepository,
+            StatementImportRepository importRepository,
+            UserRepository userRepository,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor) {
+        this.statementParser = statementParser;
+        this.categorizationService = categorizationService;
+        this.expenseService = expenseService;
+        this.expenseRepository = expenseRepository;
+        this.importRepository = importRepository;
+        this.userRepository = userRepository;
+        this.executor = executor;
+    }
+
+    public ImportStatus startImport(UUID userId, MultipartFile file) throws IOException {
+        String format = detectFormat(file.getOriginalFilename());
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        importRepository.failStale(now.minusMinutes(STALE_JOB_MINUTES), now);
+        importRepository.deleteFinishedBefore(now.minusHours(JOB_RETENTION_HOURS));
+
+        ImportJob job = new ImportJob(UUID.randomUUID(), userId, format, file.getSize());
+        if (importRepository.tryStart(job.id, userId, truncate(String.valueOf(file.getOriginalFilename())), format,
+                job.totalBytes, now) == 0) {
+            throw new IllegalStateException("An import is already in progress for this user");
+        }
+
+        // The multipart temp file is removed when the request ends, so keep our own copy
+        Path copy;
+        try {
+            copy = Files.createTempFile("statement-import-", "." + format.toLowerCase(Locale.ROOT));
+            file.transferTo(copy);
+        } catch (IOException e) {
+            importRepository.finish(job.id, StatementImport.STATE_FAILED, "Could not store upload",
+                    LocalDateTime.now());
+            throw e;
+        }
+        executor.execute(() -> run(job, copy));
+        return getStatus(job.id);
+    }
+
+    public ImportStatus getStatus(UUID importId) {
+        return importRepository.findById(importId)
+                .map(this::toStatus)
+                .orElseThrow(() -> new IllegalArgumentException("Import not found"));
+    }
+
+    public List<ImportStatus> getStatuses(UUID userId) {
+        return importRepository.findByUserIdOrderByStartedAtDesc(userId).stream()
+                .map(this::toStatus)
+                .collect(Collectors.toList());
+    }
+
+    private void run(ImportJob job, Path file) {
+        String state = StatementImport.STATE_FAILED;
+        String error = null;
+        User user = userRepository.getReferenceById(job.userId);
+        List<StatementRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(file))) {
+            job.input = in;
+            saveProgress(job);
+            Consumer<StatementRow> onRow = row -> {
+                job.rowsRead.incrementAndGet();
+                chunk.add(row);
+                if (chunk.size() >= CHUNK_SIZE) {
+                    importChunk(job, user, chunk);
+                    chunk.clear();
+                    saveProgress(job);
+                }
+            };
+            Runnable onRejected = () -> {
+                job.rowsRead.incrementAndGet();
+                job.rejected.incrementAndGet();
+            };
+
+            if ("OFX".equals(job.format)) {
+                statementParser.parseOfx(in, onRow, onRejected);
+            } else {
+                statementParser.parseCsv(in, onRow, onRejected);
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(job, user, chunk);
+            }
+            saveProgress(job);
+            state = StatementImport.STATE_COMPLETED;
+            log.info("Statement import {} finished: {} imported, {} duplicates, {} rejected", job.id,
+                    job.imported.get(), job.duplicates.get(), job.rejected.get());
+        } catch (Exception e) {
+            log.error("Statement import {} failed", job.id, e);
+            error = e.getMessage() != null && e.getMessage().length() > MAX_ERROR_LENGTH
+                    ? e.getMessage().substring(0, MAX_ERROR_LENGTH)
+                    : e.getMessage();
+        } finally {
+            try {
+                importRepository.finish(job.id, state, error, LocalDateTime.now());
+            } catch (Exception e) {
+                log.error("Could not record the end of statement import {}", job.id, e);
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", file, e);
+            }
+        }
+    }
+
+    private void importChunk(ImportJob job, User user, List<StatementRow> rows) {
+        // Categorization is pure CPU work with no shared state
+        List<Expense> candidates = rows.parallelStream()
+                .map(row -> toExpense(row, user, job))
+                .collect(Collectors.toList());
+
+        // Hash window join: count existing rows per (day, amount, direction) in the
+        // chunk's date range; each one absorbs at most one incoming row. Rows written by
+        // this job are excluded so repeated lines in the same file are kept; no other
+        // import of this user can be writing at the same time.
+        LocalDate from = rows.stream().map(StatementRow::getDate).min(LocalDate::compareTo).orElseThrow();
+        LocalDate to = rows.stream().map(StatementRow::getDate).max(LocalDate::compareTo).orElseThrow();
+        Map<String, Integer> existing = new HashMap<>();
+        for (ExpenseRepository.ExpenseFingerprint fingerprint : expenseRepository.findFingerprints(job.userId,
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            if (job.id.equals(fingerprint.getImportId())) {
+                continue;
+            }
+            existing.merge(dedupeKey(fingerprint.getTxnDate().toLocalDate(), fingerprint.getTxnAmount(),
+                    fingerprint.getTxnType()), 1, Integer::sum);
+        }
+
+        List<Expense> fresh = new ArrayList<>(candidates.size());
+        for (Expense candidate : candidates) {
+            String key = dedupeKey(candidate.getDate().toLocalDate(), candidate.getAmount(), candidate.getType());
+            Integer remaining = existing.get(key);
+            if (remaining != null && remaining > 0) {
+                existing.put(key, remaining - 1);
+                job.duplicates.incrementAndGet();
+            } else {
+                fresh.add(candidate);
+            }
+        }
+
+        if (!fresh.isEmpty()) {
+            BatchResult result = expenseService.createExpenses(fresh);
+            job.imported.addAndGet(result.getSucceeded());
+            job.rejected.addAndGet(result.getErrors().size());
+        }
+    }
+
+    private Expense toExpense(StatementRow row, User user, ImportJob job) {
+        String description = row.getDescription() == null ? "" : row.getDescription().trim();
+        String merchant = merchantFrom(description);
+
+        Expense expense = new Expense();
+        expense.setUser(user);
+        expense.setAmount(row.getAmount());
+        expense.setDate(row.getDate().atStartOfDay());
+        expense.setCurrency(row.getCurrency() != null && !row.getCurrency().isBlank()
+                ? row.getCurrency().trim().toUpperCase(Locale.ROOT)
+                : "INR");
+        expense.setType(row.isCredit() ? "Credited" : "Debited");
+        expense.setMerchant(merchant);
+        expense.setCategory(categorizationService.categorize(merchant, description));
+        expense.setNotes(truncate(description));
+        expense.setSource("Statement Import (" + job.format + ")");
+        expense.setImportId(job.id);
+        return expense;
+    }
+
+    // Same narration convention as the email parser: UPI/P2M/<ref>/<name>/...
+    private String merchantFrom(String description) {
+        if (description.isEmpty()) {
+            return "Unknown";
+        }
+        if (description.toUpperCase(Locale.ROOT).startsWith("UPI/")) {
+            String[] parts = description.split("/");
+            if (parts.length >= 4 && parts[3].trim().length() > 1) {
+                return truncate(parts[3].trim());
+            }
+        }
+        return description.length() > 60 ? description.substring(0, 60).trim() : description;
+    }
+
+    private static String dedupeKey(LocalDate day, BigDecimal amount, String type) {
+        boolean credit = type != null && type.equalsIgnoreCase("credited");
+        return day + "|" + amount.abs().stripTrailingZeros().toPlainString() + "|" + (credit ? "C" : "D");
+    }
+
+    private static String truncate(String value) {
+        return value.length() > MAX_TEXT_LENGTH ? value.substring(0, MAX_TEXT_LENGTH) : value;
+    }
+
+    private static String detectFormat(String fileName) {
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv") || name.endsWith(".txt")) {
+            return "CSV";
+        }
+        if (name.endsWith(".ofx") || name.endsWith(".qfx")) {
+            return "OFX";
+        }
+        if (name.endsWith(".xls") || name.endsWith(".xlsx")) {
+            throw new IllegalArgumentException("Excel statements are not supported yet. Please export as CSV.");
+        }
+        throw new IllegalArgumentException("Unsupported statement format. Upload a .csv or .ofx file.");
+    }
+
+    // Also the job's heartbeat: an active job that stops saving is failed by the next start
+    private void saveProgress(ImportJob job) {
+        CountingInputStream input = job.input;
+        importRepository.updateProgress(job.id, StatementImport.STATE_RUNNING, input != null ? input.getCount() : 0,
+                job.rowsRead.get(), job.imported.get(), job.duplicates.get(), job.rejected.get(),
+                LocalDateTime.now());
+    }
+
+    private ImportStatus toStatus(StatementImport job) {
+        int percent;
+        if (StatementImport.STATE_COMPLETED.equals(job.getState())) {
+            percent = 100;
+        } else if (job.getTotalBytes() == 0) {
+            percent = 0;
+        } else {
+            percent = (int) Math.min(99, job.getBytesRead() * 100 / job.getTotalBytes());
+        }
+        return new ImportStatus(job.getId(), job.getUserId(), job.getFileName(), job.getFormat(), job.getState(),
+                job.getRowsRead(), job.getImported(), job.getDuplicates(), job.getRejected(), percent,
+                job.getError(), job.getStartedAt(), job.getFinishedAt());
+    }
+
+    // Live counters of a job running on this node; persisted after every chunk
+    private static class ImportJob {
+        final UUID id;
+        final UUID userId;
+        final String format;
+        final long totalBytes;
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong duplicates = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        volatile CountingInputStream input;
+
+        ImportJob(UUID id, UUID userId, String format, long totalBytes) {
+            this.id = id;
+            this.userId = userId;
+            this.format = format;
+            this.totalBytes = totalBytes;
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count = new AtomicLong();
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count.addAndGet(skipped);
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.antigravity.expensetracker.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Line-by-line statement parsers. Rows are handed to the consumer as they are
+// read, so memory use does not depend on the file size.
+@Component
+public class StatementParser {
+
+    private static final int MAX_HEADER_SCAN_LINES = 30;
+    private static final int SIGN_LOOKAHEAD_ROWS = 200;
+    private static final int SIGN_LOOKAHEAD_BYTES = 256 * 1024;
+
+    private static final List<DateTimeFormatter> DATE_FORMATS = buildDateFormats(
+            "yyyy-MM-dd", "dd/MM/yyyy", "dd-MM-yyyy", "dd.MM.yyyy", "dd/MM/yy", "dd-MM-yy",
+            "dd MMM yyyy", "dd-MMM-yyyy", "dd MMM yy", "dd-MMM-yy", "MM/dd/yyyy", "yyyyMMdd");
+
+    @Data
+    @AllArgsConstructor
+    public static class StatementRow {
+        private LocalDate date;
+        private BigDecimal amount; // Always positive
+        private boolean credit;
+        private String description;
+        private String currency;
+    }
+
+    public void parseCsv(InputStream in, Consumer<StatementRow> rows, Runnable onRejected) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        // Bank exports often start with account details; find the real header row.
+        String line;
+        CsvColumns columns = null;
+        int scanned = 0;
+        while (columns == null && (line = reader.readLine()) != null && scanned++ < MAX_HEADER_SCAN_LINES) {
+            columns = CsvColumns.detect(line);
+        }
+        if (columns == null) {
+            throw new IllegalArgumentException("Could not find a header row with date and amount columns");
+        }
+
+        if (columns.needsSignDetection()) {
+            columns.signedAmounts = hasNegativeAmounts(reader, columns);
+        }
+
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            StatementRow row = columns.toRow(splitCsvLine(line, columns.delimiter));
+            if (row != null) {
+                rows.accept(row);
+            } else {
+                onRejected.run();
+            }
+        }
+    }
+
+    // Bounded look-ahead: a single amount column is treated as signed if any of the
+    // first rows is negative; the reader is rewound afterwards.
+    private boolean hasNegativeAmounts(BufferedReader reader, CsvColumns columns) throws IOException {
+        reader.mark(SIGN_LOOKAHEAD_BYTES);
+        try {
+            String line;
+            int read = 0;
+            long bytes = 0;
+            while ((line = reader.readLine()) != null && read++ < SIGN_LOOKAHEAD_ROWS) {
+                bytes += line.length() + 2L;
+                if (bytes >= SIGN_LOOKAHEAD_BYTES) {
+                    break;
+                }
+                BigDecimal value = parseAmount(CsvColumns.cell(splitCsvLine(line, columns.delimiter), columns.amount));
+                if (value != null && value.signum() < 0) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            reader.reset();
+        }
+    }
+
+    // OFX/QFX: SGML-style tags, closing tags optional, possibly several per line
+    public void parseOfx(InputStream in, Consumer<StatementRow> rows, Runnable onRejected) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Map<String, String> txn = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int start = line.indexOf('<');
+            while (start >= 0) {
+                int end = line.indexOf('>', start);
+                if (end < 0) {
+                    break;
+                }
+                String tag = line.substring(start + 1, end).trim().toUpperCase(Locale.ROOT);
+                int next = line.indexOf('<', end);
+                String value = (next < 0 ? line.substring(end + 1) : line.substring(end + 1, next)).trim();
+
+                if (tag.equals("STMTTRN")) {
+                    txn = new HashMap<>();
+                } else if (tag.equals("/STMTTRN")) {
+                    if (txn != null) {
+                        StatementRow row = toOfxRow(txn);
+                        if (row != null) {
+                            rows.accept(row);
+                        } else {
+                            onRejected.run();
+                        }
+                    }
+                    txn = null;
+                } else if (txn != null && !tag.startsWith("/") && !value.isEmpty()) {
+                    txn.put(tag, value);
+                }
+                start = next;
+            }
+        }
+    }
+
+    private StatementRow toOfxRow(Map<String, String> txn) {
+        String posted = txn.get("DTPOSTED");
+        BigDecimal amount = parseAmount(txn.get("TRNAMT"));
+        if (posted == null || posted.length() < 8 || amount == null) {
+            return null;
+        }
+        LocalDate date = parseDate(posted.substring(0, 8));
+        if (date == null) {
+            return null;
+        }
+        String name = txn.getOrDefault("NAME", "");
+        String memo = txn.getOrDefault("MEMO", "");
+        String description = name.isEmpty() ? memo : (memo.isEmpty() ? name : name + " " + memo);
+        boolean credit = amount.signum() > 0 || "CREDIT".equalsIgnoreCase(txn.get("TRNTYPE"));
+        return new StatementRow(date, amount.abs(), credit, description, txn.get("CURRENCY"));
+    }
+
+    static List<String> splitCsvLine(String line, char delimiter) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                cells.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        cells.add(current.toString().trim());
+        return cells;
+    }
+
+    static LocalDate parseDate(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        String value = raw.trim();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            for (DateTimeFormatter format : DATE_FORMATS) {
+                try {
+                    return LocalDate.parse(value, format);
+                } catch (DateTimeParseException ignored) {
+                    // try the next format
+                }
+            }
+            // "12/03/2026 10:15:00" -> retry without the time part
+            int space = value.indexOf(' ');
+            if (space < 0 || !value.contains(":")) {
+                break;
+            }
+            value = value.substring(0, space);
+        }
+        return null;
+    }
+
+    static BigDecimal parseAmount(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String value = raw.replaceAll("[^0-9.\\-()]", "");
+        boolean negative = value.startsWith("-") || (value.startsWith("(") && value.endsWith(")"));
+        value = value.replaceAll("[()\\-]", "");
+        if (value.isEmpty() || value.equals(".")) {
+            return null;
+        }
+        try {
+            BigDecimal amount = new BigDecimal(value);
+            return negative ? amount.negate() : amount;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static List<DateTimeFormatter> buildDateFormats(String... patterns) {
+        List<DateTimeFormatter> formats = new ArrayList<>();
+        for (String pattern : patterns) {
+            formats.add(new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern(pattern)
+                    .toFormatter(Locale.ENGLISH));
+        }
+        return formats;
+    }
+
+    // Column positions resolved from the header row
+    private static class CsvColumns {
+        char delimiter;
+        int date = -1;
+        int description = -1;
+        int amount = -1;
+        int debit = -1;
+        int credit = -1;
+        int type = -1;
+        int currency = -1;
+        boolean signedAmounts;
+
+        boolean needsSignDetection() {
+            return amount >= 0 && type < 0 && debit < 0 && credit < 0;
+        }
+
+        static CsvColumns detect(String headerLine) {
+            char delimiter = pickDelimiter(headerLine);
+            List<String> headers = splitCsvLine(headerLine, delimiter);
+            CsvColumns columns = new CsvColumns();
+            columns.delimiter = delimiter;
+            for (int i = 0; i < headers.size(); i++) {
+                String h = headers.get(i).toLowerCase(Locale.ROOT);
+                if (columns.date < 0 && h.contains("date")) {
+                    columns.date = i;
+                } else if (columns.description < 0 && (h.contains("description") || h.contains("narration")
+                        || h.contains("particular") || h.contains("details") || h.contains("remark")
+                        || h.contains("merchant") || h.contains("payee") || h.equals("name"))) {
+                    columns.description = i;
+                } else if (columns.debit < 0 && (h.contains("debit") || h.contains("withdrawal") || h.equals("dr"))) {
+                    columns.debit = i;
+                } else if (columns.credit < 0 && (h.contains("credit") || h.contains("deposit") || h.equals("cr"))) {
+                    columns.credit = i;
+                } else if (columns.amount < 0 && h.contains("amount") && !h.contains("balance")) {
+                    columns.amount = i;
+                } else if (columns.type < 0 && (h.equals("type") || h.contains("dr/cr") || h.contains("cr/dr"))) {
+                    columns.type = i;
+                } else if (columns.currency < 0 && h.contains("currency")) {
+                    columns.currency = i;
+                }
+            }
+            boolean hasAmount = columns.amount >= 0 || columns.debit >= 0 || columns.credit >= 0;
+            return columns.date >= 0 && hasAmount ? columns : null;
+        }
+
+        private static char pickDelimiter(String line) {
+            char best = ',';
+            long bestCount = line.chars().filter(c -> c == ',').count();
+            for (char candidate : new char[] { ';', '\t', '|' }) {
+                long count = line.chars().filter(c -> c == candidate).count();
+                if (count > bestCount) {
+                    best = candidate;
+                    bestCount = count;
+                }
+            }
+            return best;
+        }
+
+        StatementRow toRow(List<String> cells) {
+            LocalDate parsedDate = parseDate(cell(cells, date));
+            if (parsedDate == null) {
+                return null;
+            }
+
+            BigDecimal value = null;
+            boolean isCredit = false;
+            BigDecimal debitValue = parseAmount(cell(cells, debit));
+            BigDecimal creditValue = parseAmount(cell(cells, credit));
+            if (debitValue != null && debitValue.signum() != 0) {
+                value = debitValue;
+            } else if (creditValue != null && creditValue.signum() != 0) {
+                value = creditValue;
+                isCredit = true;
+            } else if (amount >= 0) {
+                value = parseAmount(cell(cells, amount));
+                String typeCell = cell(cells, type);
+                if (value != null && typeCell != null && !typeCell.isBlank()) {
+                    isCredit = typeCell.trim().toLowerCase(Locale.ROOT).startsWith("c");
+                } else if (value != null) {
+                    // Signed column: negative is money out. Unsigned column (card statements): all spends.
+                    isCredit = signedAmounts && value.signum() > 0;
+                }
+            }
+            if (value == null || value.signum() == 0) {
+                return null;
+            }
+
+            String text = cell(cells, description);
+            return new StatementRow(parsedDate, value.abs(), isCredit, text != null ? text : "",
+                    cell(cells, currency));
+        }
+
+        private static String cell(List<String> cells, int index) {
+            return index >= 0 && index < cells.size() ? cells.get(index) : null;
+        }
+    }
+}
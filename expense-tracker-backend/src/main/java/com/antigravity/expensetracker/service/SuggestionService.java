@@ -1,38 +1,189 @@
 package com.antigravity.expensetracker.service;
 
 import com.antigravity.expensetracker.dto.Suggestion;
-import com.antigravity.expensetracker.model.Expense;
-import com.antigravity.expensetracker.repository.ExpenseRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.antigravity.expensetracker.event.UserDataChangedEvent;
+import com.antigravity.expensetracker.model.UserSuggestions;
+import com.antigravity.expensetracker.repository.UserSuggestionsRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+// Stale-while-revalidate suggestions. Reads return the stored payload immediately and,
+// if the user's data changed since it was built (sync version), queue a background
+// refresh. A scheduled sweep picks up whatever reads could not start. Refreshes are
+// capped by a semaphore, and a per-user cooldown bounds how often one user regenerates.
+// Insights come from InsightsEngine; the LLM only rewords them, within a daily budget.
 @Service
+@Slf4j
 public class SuggestionService {
 
-    private final ExpenseRepository expenseRepository;
+    private static final TypeReference<List<Suggestion>> SUGGESTION_LIST = new TypeReference<>() {
+    };
+
+    private record LlmAllowance(LocalDate day, AtomicInteger used) {
+    }
+
+    private final InsightsEngine insightsEngine;
+    private final UserSuggestionsRepository userSuggestionsRepository;
+    private final SyncService syncService;
     private final GeminiService geminiService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AsyncTaskExecutor executor;
+    private final Semaphore permits;
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<LlmAllowance> llmAllowance = new AtomicReference<>(
+            new LlmAllowance(LocalDate.now(), new AtomicInteger()));
+
+    @Value("${suggestions.refresh.min-interval-minutes:60}")
+    private long minIntervalMinutes;
 
-    @Autowired
-    public SuggestionService(ExpenseRepository expenseRepository, GeminiService geminiService) {
-        this.expenseRepository = expenseRepository;
+    @Value("${suggestions.refresh.claim-minutes:5}")
+    private long claimMinutes;
+
+    @Value("${suggestions.llm.rephrase:true}")
+    private boolean rephrase;
+
+    @Value("${suggestions.llm.daily-budget:200}")
+    private int llmDailyBudget;
+
+    public SuggestionService(InsightsEngine insightsEngine,
+            UserSuggestionsRepository userSuggestionsRepository,
+            SyncService syncService,
+            GeminiService geminiService,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+            @Value("${suggestions.refresh.concurrency:2}") int concurrency) {
+        this.insightsEngine = insightsEngine;
+        this.userSuggestionsRepository = userSuggestionsRepository;
+        this.syncService = syncService;
         this.geminiService = geminiService;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.executor = executor;
+        this.permits = new Semaphore(Math.max(1, concurrency));
     }
 
-    @org.springframework.cache.annotation.Cacheable(value = "suggestions", key = "#userId")
+    // Never waits on the LLM: an empty list means the first generation is still running
     public List<Suggestion> getSuggestions(UUID userId) {
-        // Fetch expenses from the last 30 days
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<Expense> recentExpenses = expenseRepository.findByUserIdAndDateAfter(userId, thirtyDaysAgo);
+        UserSuggestions stored = userSuggestionsRepository.findById(userId).orElse(null);
+        if (stored == null) {
+            userSuggestionsRepository.insertIfAbsent(userId);
+        }
+        if (isStale(stored, syncService.getCurrentVersion(userId))) {
+            requestRefresh(userId);
+        }
+        List<Suggestion> suggestions = stored != null ? parse(stored.getPayload()) : null;
+        return suggestions != null ? suggestions : Collections.emptyList();
+    }
+
+    // Stored payload only, no refresh; null if never generated
+    public List<Suggestion> getStoredSuggestions(UUID userId) {
+        return userSuggestionsRepository.findById(userId).map(s -> parse(s.getPayload())).orElse(null);
+    }
 
-        if (recentExpenses.isEmpty()) {
-            return java.util.Collections.emptyList();
+    @Scheduled(fixedDelayString = "${suggestions.refresh.interval-ms:60000}")
+    public void refreshStale() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> stale = userSuggestionsRepository.findStaleUserIds(now.minusMinutes(minIntervalMinutes), now,
+                permits.availablePermits());
+        stale.forEach(this::requestRefresh);
+    }
+
+    private boolean isStale(UserSuggestions stored, long currentVersion) {
+        if (stored == null || stored.getGeneratedAt() == null) {
+            return true;
         }
+        return stored.getSourceVersion() < currentVersion
+                && stored.getGeneratedAt().isBefore(LocalDateTime.now().minusMinutes(minIntervalMinutes));
+    }
 
-        // Generate insights via Gemini
-        return geminiService.generateInsights(recentExpenses);
+    // Skipped when all permits are busy; the scheduled sweep retries later
+    private void requestRefresh(UUID userId) {
+        if (!inFlight.add(userId)) {
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            inFlight.remove(userId);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    regenerate(userId);
+                } finally {
+                    permits.release();
+                    inFlight.remove(userId);
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            inFlight.remove(userId);
+            log.warn("Could not queue suggestion refresh for user {}", userId, e);
+        }
+    }
+
+    private void regenerate(UUID userId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (userSuggestionsRepository.claim(userId, now, now.plusMinutes(claimMinutes)) == 0) {
+            return; // Another node is on it
+        }
+        try {
+            // Version first: rows written during generation make the result stale again
+            long version = syncService.getCurrentVersion(userId);
+            List<Suggestion> suggestions = generate(userId);
+            userSuggestionsRepository.store(userId, objectMapper.writeValueAsString(suggestions), version,
+                    LocalDateTime.now());
+            eventPublisher.publishEvent(new UserDataChangedEvent(userId, UserDataChangedEvent.DataType.SUGGESTIONS));
+        } catch (Exception e) {
+            // The claim expires on its own and acts as a retry delay
+            log.error("Suggestion refresh failed for user {}", userId, e);
+        }
+    }
+
+    private List<Suggestion> generate(UUID userId) {
+        List<Suggestion> insights = insightsEngine.analyze(userId);
+        if (insights.isEmpty() || !rephrase || !tryConsumeLlmBudget()) {
+            return insights;
+        }
+        return geminiService.rephraseInsights(insights);
+    }
+
+    // Per-node daily cap on rephrasing calls; local wording is used once it runs out
+    private boolean tryConsumeLlmBudget() {
+        LocalDate today = LocalDate.now();
+        LlmAllowance allowance = llmAllowance.updateAndGet(
+                a -> a.day().equals(today) ? a : new LlmAllowance(today, new AtomicInteger()));
+        return allowance.used().incrementAndGet() <= llmDailyBudget;
+    }
+
+    private List<Suggestion> parse(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(payload, SUGGESTION_LIST);
+        } catch (Exception e) {
+            log.warn("Unreadable stored suggestions, treating as empty", e);
+            return Collections.emptyList();
+        }
     }
 }
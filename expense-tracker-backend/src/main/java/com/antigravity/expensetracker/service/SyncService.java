@@ -0,0 +1,159 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.dto.SyncDeletion;
+import com.antigravity.expensetracker.dto.SyncResponse;
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.model.Expense;
+import com.antigravity.expensetracker.model.SyncTombstone;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.SyncTombstoneRepository;
+import com.antigravity.expensetracker.repository.UserChangeVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Delta sync: every expense/bill write is stamped with the next per-user version
+// and deletes leave a tombstone, so clients only fetch what changed after their token.
+// Tombstones are kept for sync.tombstones.retention-days; a token older than the
+// newest pruned tombstone gets a full resync instead of a delta that misses deletes.
+@Service
+@Slf4j
+public class SyncService {
+
+    public static final String TYPE_EXPENSE = "EXPENSE";
+    public static final String TYPE_BILL = "BILL";
+
+    private final UserChangeVersionRepository versionRepository;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final ExpenseRepository expenseRepository;
+    private final BillRepository billRepository;
+
+    @Value("${sync.tombstones.retention-days:90}")
+    private int tombstoneRetentionDays;
+
+    public SyncService(UserChangeVersionRepository versionRepository,
+            SyncTombstoneRepository tombstoneRepository,
+            ExpenseRepository expenseRepository,
+            BillRepository billRepository) {
+        this.versionRepository = versionRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.expenseRepository = expenseRepository;
+        this.billRepository = billRepository;
+    }
+
+    // Must run inside the writer's transaction so the version and the row commit together
+    @Transactional
+    public long nextVersion(UUID userId) {
+        versionRepository.increment(userId);
+        return versionRepository.findCurrentVersion(userId)
+                .orElseThrow(() -> new IllegalStateException("Change version missing for user " + userId));
+    }
+
+    @Transactional
+    public void stamp(Expense expense) {
+        if (expense.getUser() != null && expense.getUser().getId() != null) {
+            expense.setChangeVersion(nextVersion(expense.getUser().getId()));
+        }
+    }
+
+    @Transactional
+    public void stamp(Bill bill) {
+        if (bill.getUser() != null && bill.getUser().getId() != null) {
+            bill.setChangeVersion(nextVersion(bill.getUser().getId()));
+        }
+    }
+
+    // A batch shares one version per user instead of bumping the counter per row
+    @Transactional
+    public void stampAll(Collection<Expense> expenses) {
+        Map<UUID, Long> versions = new HashMap<>();
+        for (Expense expense : expenses) {
+            if (expense.getUser() != null && expense.getUser().getId() != null) {
+                expense.setChangeVersion(versions.computeIfAbsent(expense.getUser().getId(), this::nextVersion));
+            }
+        }
+    }
+
+    @Transactional
+    public void recordDeletion(UUID userId, String entityType, UUID entityId) {
+        recordDeletions(userId, entityType, List.of(entityId));
+    }
+
+    @Transactional
+    public void recordDeletions(UUID userId, String entityType, Collection<UUID> entityIds) {
+        if (userId == null || entityIds.isEmpty()) {
+            return;
+        }
+        long version = nextVersion(userId);
+        List<SyncTombstone> tombstones = new ArrayList<>();
+        for (UUID entityId : entityIds) {
+            SyncTombstone tombstone = new SyncTombstone();
+            tombstone.setUserId(userId);
+            tombstone.setEntityType(entityType);
+            tombstone.setEntityId(entityId);
+            tombstone.setChangeVersion(version);
+            tombstones.add(tombstone);
+        }
+        tombstoneRepository.saveAll(tombstones);
+    }
+
+    public long getCurrentVersion(UUID userId) {
+        return versionRepository.findCurrentVersion(userId).orElse(0L);
+    }
+
+    private long getPrunedVersion(UUID userId) {
+        Long pruned = versionRepository.findPrunedVersion(userId).orElse(null);
+        return pruned != null ? pruned : 0L;
+    }
+
+    // Idempotent, so every node may run it; the watermark and the delete commit together
+    @Scheduled(cron = "${sync.tombstones.prune-cron:0 45 3 * * ?}")
+    @Transactional
+    public void pruneTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(tombstoneRetentionDays);
+        versionRepository.advancePrunedVersions(cutoff);
+        int pruned = tombstoneRepository.deleteDeletedBefore(cutoff);
+        if (pruned > 0) {
+            log.info("Pruned {} sync tombstones older than {} days", pruned, tombstoneRetentionDays);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public SyncResponse getChanges(UUID userId, long since) {
+        // Read the version first: every row stamped at or below it has already committed.
+        long current = getCurrentVersion(userId);
+
+        if (since <= 0 || since > current || since < getPrunedVersion(userId)) {
+            // First sync, a token from another database, or one older than tombstone retention
+            return new SyncResponse(current, true, expenseRepository.findByUserId(userId),
+                    billRepository.findByUserId(userId), Collections.emptyList());
+        }
+        if (since == current) {
+            return new SyncResponse(current, false, Collections.emptyList(), Collections.emptyList(),
+                    Collections.emptyList());
+        }
+
+        List<SyncDeletion> deleted = new ArrayList<>();
+        for (SyncTombstone tombstone : tombstoneRepository.findByUserIdAndChangeVersionBetween(userId, since + 1,
+                current)) {
+            deleted.add(new SyncDeletion(tombstone.getEntityType(), tombstone.getEntityId()));
+        }
+
+        return new SyncResponse(current, false,
+                expenseRepository.findByUserIdAndChangeVersionBetween(userId, since + 1, current),
+                billRepository.findByUserIdAndChangeVersionBetween(userId, since + 1, current),
+                deleted);
+    }
+}
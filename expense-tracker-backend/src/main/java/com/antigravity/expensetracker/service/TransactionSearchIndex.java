@@ -0,0 +1,201 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Expense;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// In-memory BM25 index over one user's transactions (merchant, category, notes / UPI
+// narration). Documents are added, replaced and removed one at a time, so the index
+// follows the user's sync version instead of being rebuilt. Reads share a lock.
+public final class TransactionSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MERCHANT_BOOST = 2;
+    private static final int MAX_NUMERIC_TOKEN_LENGTH = 4; // Keeps years, drops UPI reference numbers
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "a", "an", "and", "or", "of", "to", "for", "on", "in", "at", "by", "from", "with", "is", "was",
+            "did", "do", "i", "my", "me", "how", "much", "many", "what", "when", "who", "which", "spend", "spent",
+            "pay", "paid", "send", "sent", "money", "transaction", "transactions", "payment", "payments");
+
+    public record Hit(UUID id, LocalDate date, BigDecimal amount, boolean credit, String merchant, String category,
+            double score) {
+    }
+
+    private record Doc(UUID id, LocalDate date, BigDecimal amount, boolean credit, String merchant, String category,
+            Map<String, Integer> terms, int length) {
+    }
+
+    private final Map<UUID, Doc> docs = new HashMap<>();
+    private final Map<String, Map<UUID, Integer>> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+    private volatile long version;
+
+    TransactionSearchIndex(long version) {
+        this.version = version;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Applies one sync delta: changed rows replace their previous document
+    void apply(Collection<Expense> upserts, Collection<UUID> deletions, Function<Expense, String> merchantNames,
+            long toVersion) {
+        lock.writeLock().lock();
+        try {
+            for (UUID id : deletions) {
+                remove(id);
+            }
+            for (Expense expense : upserts) {
+                remove(expense.getId());
+                add(expense, merchantNames.apply(expense));
+            }
+            version = Math.max(version, toVersion);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<Hit> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (docs.isEmpty()) {
+                return List.of();
+            }
+            double avgLength = (double) totalLength / docs.size();
+            Map<UUID, Double> scores = new HashMap<>();
+            for (String term : Set.copyOf(queryTerms)) {
+                Map<UUID, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docs.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Map.Entry<UUID, Integer> entry : posting.entrySet()) {
+                    Doc doc = docs.get(entry.getKey());
+                    double tf = entry.getValue();
+                    double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * doc.length / avgLength));
+                    scores.merge(entry.getKey(), idf * norm, Double::sum);
+                }
+            }
+
+            // Top-k by score, newest first on ties
+            Comparator<Map.Entry<UUID, Double>> order = Comparator.<Map.Entry<UUID, Double>>comparingDouble(
+                    Map.Entry::getValue).thenComparing(e -> docs.get(e.getKey()).date);
+            PriorityQueue<Map.Entry<UUID, Double>> top = new PriorityQueue<>(order);
+            for (Map.Entry<UUID, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Map.Entry<UUID, Double> entry = top.poll();
+                Doc doc = docs.get(entry.getKey());
+                hits.add(0, new Hit(doc.id, doc.date, doc.amount, doc.credit, doc.merchant, doc.category,
+                        entry.getValue()));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Expense expense, String merchant) {
+        if (expense.getId() == null || expense.getDate() == null || expense.getAmount() == null) {
+            return;
+        }
+        Map<String, Integer> terms = new HashMap<>();
+        int length = 0;
+        for (int i = 0; i < MERCHANT_BOOST; i++) {
+            length += count(terms, merchant);
+        }
+        if (expense.getMerchant() != null && !expense.getMerchant().equalsIgnoreCase(merchant)) {
+            length += count(terms, expense.getMerchant()); // Raw name, e.g. the payee behind a canonical VPA
+        }
+        length += count(terms, expense.getCategory());
+        length += count(terms, expense.getNotes());
+        if (terms.isEmpty()) {
+            return;
+        }
+
+        boolean credit = expense.getType() != null && expense.getType().equalsIgnoreCase("credited");
+        Doc doc = new Doc(expense.getId(), expense.getDate().toLocalDate(), expense.getAmount(), credit, merchant,
+                expense.getCategory() != null ? expense.getCategory() : "General", terms, length);
+        docs.put(doc.id, doc);
+        totalLength += length;
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(doc.id, term.getValue());
+        }
+    }
+
+    private void remove(UUID id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        totalLength -= doc.length;
+        for (String term : doc.terms.keySet()) {
+            Map<UUID, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static int count(Map<String, Integer> terms, String text) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            terms.merge(token, 1, Integer::sum);
+        }
+        return tokens.size();
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            boolean numeric = !token.isEmpty() && token.chars().allMatch(Character::isDigit);
+            if (token.length() >= 2 && !STOP_WORDS.contains(token)
+                    && (!numeric || token.length() <= MAX_NUMERIC_TOKEN_LENGTH)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
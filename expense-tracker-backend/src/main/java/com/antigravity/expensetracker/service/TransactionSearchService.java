@@ -0,0 +1,102 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Expense;
+import com.antigravity.expensetracker.model.SyncTombstone;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.SyncTombstoneRepository;
+import com.antigravity.expensetracker.service.TransactionSearchIndex.Hit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Per-user TransactionSearchIndex held in the "transactionSearch" cache. The first search
+// builds the index from all of the user's rows; later searches only apply the sync delta
+// (changed rows and tombstones) since the version the index was last brought up to.
+@Service
+@Slf4j
+public class TransactionSearchService {
+
+    public static final String CACHE_NAME = "transactionSearch";
+
+    private final ExpenseRepository expenseRepository;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final SyncService syncService;
+    private final MerchantService merchantService;
+    private final CacheManager cacheManager;
+    private final RequestCoalescer requestCoalescer;
+
+    public TransactionSearchService(ExpenseRepository expenseRepository,
+            SyncTombstoneRepository tombstoneRepository,
+            SyncService syncService,
+            MerchantService merchantService,
+            CacheManager cacheManager,
+            RequestCoalescer requestCoalescer) {
+        this.expenseRepository = expenseRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.syncService = syncService;
+        this.merchantService = merchantService;
+        this.cacheManager = cacheManager;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    public List<Hit> search(UUID userId, String query, int limit) {
+        long current = syncService.getCurrentVersion(userId);
+        TransactionSearchIndex index = getIndex(userId, current);
+        if (index.getVersion() < current) {
+            // One delta query per version step, however many searches are waiting on it
+            requestCoalescer.execute("transactionSearch", userId + ":" + current, () -> {
+                catchUp(userId, index, current);
+                return index;
+            });
+        }
+        return index.search(query, limit);
+    }
+
+    // Built outside the cache's own loader, which would hold a map lock across the full scan
+    private TransactionSearchIndex getIndex(UUID userId, long current) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        TransactionSearchIndex cached = cache != null ? cache.get(userId, TransactionSearchIndex.class) : null;
+        if (cached != null) {
+            return cached;
+        }
+        return requestCoalescer.execute("transactionSearchBuild", userId + ":" + current, () -> {
+            TransactionSearchIndex index = buildIndex(userId, current);
+            if (cache == null) {
+                return index;
+            }
+            // A concurrent build under another version may have landed first; keep that one
+            Cache.ValueWrapper existing = cache.putIfAbsent(userId, index);
+            return existing != null && existing.get() instanceof TransactionSearchIndex other ? other : index;
+        });
+    }
+
+    // The version is read before the rows, so anything written meanwhile is re-applied by the next delta
+    private TransactionSearchIndex buildIndex(UUID userId, long version) {
+        TransactionSearchIndex index = new TransactionSearchIndex(0);
+        index.apply(expenseRepository.findByUserId(userId), List.of(), this::merchantName, version);
+        log.debug("Built transaction search index for user {}: {} documents", userId, index.size());
+        return index;
+    }
+
+    private void catchUp(UUID userId, TransactionSearchIndex index, long current) {
+        long from = index.getVersion() + 1;
+        List<UUID> deleted = new ArrayList<>();
+        for (SyncTombstone tombstone : tombstoneRepository.findByUserIdAndChangeVersionBetween(userId, from, current)) {
+            if (SyncService.TYPE_EXPENSE.equals(tombstone.getEntityType())) {
+                deleted.add(tombstone.getEntityId());
+            }
+        }
+        index.apply(expenseRepository.findByUserIdAndChangeVersionBetween(userId, from, current), deleted,
+                this::merchantName, current);
+    }
+
+    private String merchantName(Expense expense) {
+        String name = merchantService.getDisplayName(merchantService.idOf(expense));
+        return name != null ? name : expense.getMerchant();
+    }
+}
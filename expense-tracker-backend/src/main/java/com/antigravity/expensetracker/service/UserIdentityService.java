@@ -0,0 +1,141 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.User;
+import com.antigravity.expensetracker.repository.UserRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Read-through identity lookups for the ingestion paths (SMS sender, forwarded email,
+// email log owner). The principal is cached once, under its id; the email and mobile keys
+// only point to that id and are followed only while the id entry exists and still carries
+// the same email or mobile, so the three keys can never disagree whatever expires first.
+// Misses are not cached, so a user registered on another node is found immediately;
+// profile changes evict the id entry via CacheInvalidationListener.
+@Service
+public class UserIdentityService {
+
+    public static final String CACHE_NAME = "userIdentity";
+
+    public record UserIdentity(UUID id, String email, String mobileNumber, Double monthlyBudget) {
+    }
+
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    // Bumped by every eviction; a load that overlapped one is not cached, since it may have
+    // read the row before the write that caused the eviction committed
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UserIdentityService(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    public Optional<UserIdentity> findById(UUID id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        UserIdentity cached = cached(id);
+        return cached != null ? Optional.of(cached) : load(() -> userRepository.findById(id));
+    }
+
+    public Optional<UserIdentity> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        UserIdentity cached = cached(pointer(emailKey(email)));
+        if (cached != null && email.equals(cached.email())) {
+            return Optional.of(cached);
+        }
+        return load(() -> userRepository.findByEmail(email));
+    }
+
+    public Optional<UserIdentity> findByMobileNumber(String mobileNumber) {
+        if (mobileNumber == null) {
+            return Optional.empty();
+        }
+        UserIdentity cached = cached(pointer(mobileKey(mobileNumber)));
+        if (cached != null && mobileNumber.equals(cached.mobileNumber())) {
+            return Optional.of(cached);
+        }
+        return load(() -> userRepository.findByMobileNumber(mobileNumber));
+    }
+
+    // Dropping the id entry is enough: the pointers to it stop resolving. They are removed
+    // too when known, only to free their space.
+    public void evict(UUID id) {
+        if (id == null) {
+            return;
+        }
+        evictions.incrementAndGet();
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        UserIdentity cached = cache.get(idKey(id), UserIdentity.class);
+        cache.evict(idKey(id));
+        if (cached != null) {
+            evictPointer(cache, emailKey(cached.email()), id);
+            evictPointer(cache, mobileKey(cached.mobileNumber()), id);
+        }
+    }
+
+    private Optional<UserIdentity> load(Supplier<Optional<User>> loader) {
+        long epoch = evictions.get();
+        Optional<UserIdentity> loaded = loader.get().map(UserIdentityService::toIdentity);
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null || loaded.isEmpty() || evictions.get() != epoch) {
+            return loaded;
+        }
+        UserIdentity identity = loaded.get();
+        cache.put(idKey(identity.id()), identity);
+        if (identity.email() != null) {
+            cache.put(emailKey(identity.email()), identity.id());
+        }
+        if (identity.mobileNumber() != null) {
+            cache.put(mobileKey(identity.mobileNumber()), identity.id());
+        }
+        // An eviction between the check above and the put would otherwise be lost
+        if (evictions.get() != epoch) {
+            cache.evict(idKey(identity.id()));
+        }
+        return loaded;
+    }
+
+    private UserIdentity cached(UUID id) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        return cache != null && id != null ? cache.get(idKey(id), UserIdentity.class) : null;
+    }
+
+    private UUID pointer(String key) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        return cache != null ? cache.get(key, UUID.class) : null;
+    }
+
+    private static void evictPointer(Cache cache, String key, UUID id) {
+        if (id.equals(cache.get(key, UUID.class))) {
+            cache.evict(key);
+        }
+    }
+
+    private static UserIdentity toIdentity(User user) {
+        return new UserIdentity(user.getId(), user.getEmail(), user.getMobileNumber(), user.getMonthlyBudget());
+    }
+
+    private static String idKey(UUID id) {
+        return "id:" + id;
+    }
+
+    private static String emailKey(String email) {
+        return "email:" + email;
+    }
+
+    private static String mobileKey(String mobileNumber) {
+        return "mobile:" + mobileNumber;
+    }
+}
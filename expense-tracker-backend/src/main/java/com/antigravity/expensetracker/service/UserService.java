@@ -1,8 +1,10 @@
 package com.antigravity.expensetracker.service;
 
+import com.antigravity.expensetracker.event.UserDataChangedEvent;
 import com.antigravity.expensetracker.model.User;
 import com.antigravity.expensetracker.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -13,6 +15,9 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public User registerUser(User user) {
         if (userRepository.findByMobileNumber(user.getMobileNumber()).isPresent()) {
             throw new RuntimeException("User with this mobile number already exists");
@@ -20,7 +25,9 @@ public class UserService {
         if (userRepository.findByEmail(user.getEmail()).isPresent()) {
             throw new RuntimeException("User with this email already exists");
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserDataChangedEvent(saved.getId(), UserDataChangedEvent.DataType.PROFILE));
+        return saved;
     }
 
     public User loginUser(String mobileNumber, String password) {
@@ -42,7 +49,10 @@ public class UserService {
             newUser.setLastName(lastName);
             newUser.setMobileNumber("G-" + System.currentTimeMillis()); // Placeholder for Google login
             newUser.setPassword("google-auth-pwd"); // Dummy password
-            return userRepository.save(newUser);
+            User saved = userRepository.save(newUser);
+            eventPublisher.publishEvent(
+                    new UserDataChangedEvent(saved.getId(), UserDataChangedEvent.DataType.PROFILE));
+            return saved;
         });
     }
 
@@ -61,6 +71,8 @@ public class UserService {
         user.setLastName(userDetails.getLastName());
         user.setMonthlyBudget(userDetails.getMonthlyBudget());
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserDataChangedEvent(saved.getId(), UserDataChangedEvent.DataType.PROFILE));
+        return saved;
     }
 }
@@ -0,0 +1,146 @@
+package com.antigravity.expensetracker.llm;
+
+import com.antigravity.expensetracker.llm.AdaptiveConcurrencyLimiter.Lane;
+import com.antigravity.expensetracker.llm.AdaptiveConcurrencyLimiter.Permit;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void overloadHalvesTheLimitDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(16, 1, 64, lanes(1.0, 1.0, 1.0));
+
+        limiter.acquire(LlmPriority.INTERACTIVE).failure(status(429));
+        assertThat(limiter.getLimit()).isEqualTo(8);
+        limiter.acquire(LlmPriority.INTERACTIVE).failure(status(503));
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        limiter.acquire(LlmPriority.INTERACTIVE).failure(new TimeoutException());
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        limiter.acquire(LlmPriority.INTERACTIVE).failure(new TimeoutException());
+        limiter.acquire(LlmPriority.INTERACTIVE).failure(new TimeoutException());
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void otherErrorsLeaveTheLimitAlone() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 64, lanes(1.0, 1.0, 1.0));
+
+        limiter.acquire(LlmPriority.INTERACTIVE).failure(status(500));
+        limiter.acquire(LlmPriority.INTERACTIVE).failure(new IllegalStateException("bad response"));
+
+        assertThat(limiter.getLimit()).isEqualTo(8);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void fastAnswersRaiseTheLimitByAboutOnePerLimitsWorth() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 64, lanes(1.0, 1.0, 1.0));
+
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire(LlmPriority.INTERACTIVE).success(100);
+        }
+
+        assertThat(limiter.getLimit()).isCloseTo(5.0, within(0.1));
+    }
+
+    @Test
+    void increaseStopsAtTheMaximum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 5, lanes(1.0, 1.0, 1.0));
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire(LlmPriority.INTERACTIVE).success(100);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void muchSlowerAnswerCountsAsCongestion() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 64, lanes(1.0, 1.0, 1.0));
+        limiter.acquire(LlmPriority.INTERACTIVE).success(100);
+        double before = limiter.getLimit();
+
+        limiter.acquire(LlmPriority.INTERACTIVE).success(1000);
+
+        assertThat(limiter.getLimit()).isCloseTo(before * 0.9, within(0.001));
+    }
+
+    @Test
+    void lowerLaneIsShedWhileAHigherLaneWaits() throws Exception {
+        // Background may use the whole limit, interactive only half of it
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 64, lanes(0.5, 1.0, 1.0));
+        Permit first = limiter.acquire(LlmPriority.INTERACTIVE);
+        limiter.acquire(LlmPriority.INTERACTIVE);
+
+        CompletableFuture<Permit> waiter = CompletableFuture.supplyAsync(
+                () -> limiter.acquire(LlmPriority.INTERACTIVE));
+        awaitWaiting(waiter);
+
+        // There is room for background work, but an interactive caller is queued
+        assertThat(limiter.tryAcquire(LlmPriority.BACKGROUND)).isNull();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        first.release();
+        assertThat(waiter.get(2, TimeUnit.SECONDS)).isNotNull();
+        assertThat(limiter.tryAcquire(LlmPriority.BACKGROUND)).isNotNull();
+    }
+
+    @Test
+    void callIsShedAfterItsLaneMaxWait() {
+        Lane[] lanes = {
+                new Lane(1.0, Duration.ofMillis(100)), new Lane(1.0, Duration.ZERO), new Lane(1.0, Duration.ZERO) };
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1, lanes);
+        limiter.acquire(LlmPriority.INTERACTIVE);
+
+        long started = System.nanoTime();
+        Permit permit = limiter.acquire(LlmPriority.INTERACTIVE);
+
+        assertThat(permit).isNull();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    void permitIsReleasedOnlyOnce() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 64, lanes(1.0, 1.0, 1.0));
+        Permit permit = limiter.acquire(LlmPriority.INTERACTIVE);
+        limiter.acquire(LlmPriority.INTERACTIVE);
+
+        permit.success(100);
+        double afterSuccess = limiter.getLimit();
+        permit.failure(status(429)); // e.g. a late error after the hedge already answered
+        permit.release();
+
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.getLimit()).isEqualTo(afterSuccess);
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initial, int min, int max, Lane[] lanes) {
+        return new AdaptiveConcurrencyLimiter(lanes, initial, min, max, 3.0);
+    }
+
+    private static Lane[] lanes(double interactive, double ingestion, double background) {
+        return new Lane[] {
+                new Lane(interactive, Duration.ofSeconds(5)),
+                new Lane(ingestion, Duration.ofSeconds(5)),
+                new Lane(background, Duration.ZERO) };
+    }
+
+    private static WebClientResponseException status(int code) {
+        return WebClientResponseException.create(code, "status " + code, null, null, null);
+    }
+
+    // The waiter cannot be observed directly; give it time to queue, and make sure it has not got through
+    private static void awaitWaiting(CompletableFuture<Permit> waiter) throws InterruptedException {
+        Thread.sleep(200);
+        assertThat(waiter).isNotDone();
+    }
+}
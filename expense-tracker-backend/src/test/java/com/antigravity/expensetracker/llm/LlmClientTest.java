@@ -0,0 +1,181 @@
+package com.antigravity.expensetracker.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Routing, hedging and cancellation against local stub providers, one per route
+class LlmClientTest {
+
+    private static final long HEDGE_DELAY_MS = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> requests = new CopyOnWriteArrayList<>(); // "<path> <model>"
+    private final AtomicInteger fastCalls = new AtomicInteger();
+    private final CountDownLatch slowCancelled = new CountDownLatch(1);
+    private final CountDownLatch stopStalling = new CountDownLatch(1);
+    private volatile boolean firstFastCallStalls;
+    private volatile boolean fastCallsThrottled;
+    private HttpServer server;
+    private LlmClient llmClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/fast", exchange -> serve(exchange, "fast answer"));
+        server.createContext("/strong", exchange -> serve(exchange, "strong answer"));
+        server.start();
+
+        String base = "http://localhost:" + server.getAddress().getPort();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("llm.routes.fast.url", base + "/fast")
+                .withProperty("llm.routes.strong.url", base + "/strong");
+        llmClient = new LlmClient(WebClient.builder(), objectMapper, meterRegistry, environment, 8, 1, 64, 3.0, 5000);
+        ReflectionTestUtils.setField(llmClient, "hedgeEnabled", true);
+        ReflectionTestUtils.setField(llmClient, "hedgePercentile", 0.95);
+        ReflectionTestUtils.setField(llmClient, "minHedgeDelayMs", HEDGE_DELAY_MS);
+        ReflectionTestUtils.setField(llmClient, "defaultHedgeDelayMs", HEDGE_DELAY_MS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stopStalling.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void eachRouteCallsItsOwnProviderAndModel() throws Exception {
+        String fast = llmClient.complete(LlmRoute.FAST, LlmOperation.CHAT, body());
+        String strong = llmClient.complete(LlmRoute.STRONG, LlmOperation.EXTRACTION, body());
+
+        assertThat(content(fast)).isEqualTo("fast answer");
+        assertThat(content(strong)).isEqualTo("strong answer");
+        assertThat(requests).containsExactly("/fast gpt-4o-mini", "/strong gpt-4o");
+        assertThat(meterRegistry.get("llm.requests").tag("route", "strong").tag("operation", "extraction")
+                .tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("llm.tokens").tag("route", "fast").tag("type", "output").counter().count())
+                .isEqualTo(5);
+    }
+
+    @Test
+    void fastAnswerIsNotHedged() throws Exception {
+        llmClient.completeHedged(LlmRoute.FAST, LlmOperation.EXTRACTION, body());
+        Thread.sleep(HEDGE_DELAY_MS * 3);
+
+        assertThat(fastCalls.get()).isEqualTo(1);
+        assertThat(meterRegistry.find("llm.hedges").tag("result", "launched").counter()).isNull();
+    }
+
+    @Test
+    void slowAttemptIsHedgedAndTheLoserCancelled() throws Exception {
+        firstFastCallStalls = true;
+
+        long started = System.nanoTime();
+        String result = llmClient.completeHedged(LlmRoute.FAST, LlmOperation.EXTRACTION, body());
+        long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(content(result)).isEqualTo("fast answer");
+        assertThat(tookMs).isLessThan(2000);
+        assertThat(fastCalls.get()).isEqualTo(2);
+        assertThat(hedges("launched")).isEqualTo(1);
+        assertThat(hedges("won")).isEqualTo(1);
+        // The stalled request is dropped on the wire and its permit handed back
+        assertThat(slowCancelled.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(inFlight("fast")).isZero();
+    }
+
+    @Test
+    void fastFailureIsNotHedged() throws Exception {
+        fastCallsThrottled = true;
+
+        assertThatThrownBy(() -> llmClient.completeHedged(LlmRoute.FAST, LlmOperation.EXTRACTION, body()))
+                .isInstanceOf(WebClientResponseException.TooManyRequests.class);
+        Thread.sleep(HEDGE_DELAY_MS * 3);
+
+        assertThat(fastCalls.get()).isEqualTo(1);
+        assertThat(hedges("launched")).isZero();
+        assertThat(inFlight("fast")).isZero();
+    }
+
+    private void serve(HttpExchange exchange, String answer) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        String path = exchange.getRequestURI().getPath();
+        requests.add(path + " " + request.path("model").asText());
+        boolean stall = path.equals("/fast") && fastCalls.incrementAndGet() == 1 && firstFastCallStalls;
+
+        if (path.equals("/fast") && fastCallsThrottled) {
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (stall) {
+                // Whitespace keeps the connection busy until the client gives up on it
+                while (!stopStalling.await(50, TimeUnit.MILLISECONDS)) {
+                    out.write(' ');
+                    out.flush();
+                }
+                return;
+            }
+            out.write(objectMapper.writeValueAsString(Map.of(
+                    "choices", List.of(Map.of("message", Map.of("content", answer))),
+                    "usage", Map.of("prompt_tokens", 10, "completion_tokens", 5))).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            slowCancelled.countDown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String content(String response) throws IOException {
+        return objectMapper.readTree(response).path("choices").get(0).path("message").path("content").asText();
+    }
+
+    private double hedges(String result) {
+        Counter counter = meterRegistry.find("llm.hedges").tag("result", result).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private double inFlight(String route) throws InterruptedException {
+        Gauge gauge = meterRegistry.get("llm.limiter.in_flight").tag("route", route).gauge();
+        for (int i = 0; i < 20 && gauge.value() > 0; i++) {
+            Thread.sleep(50);
+        }
+        return gauge.value();
+    }
+
+    private static Map<String, Object> body() {
+        return Map.of("messages", List.of(Map.of("role", "user", "content", "hi")));
+    }
+}
@@ -0,0 +1,86 @@
+package com.antigravity.expensetracker.notification;
+
+import com.antigravity.expensetracker.model.NotificationOutbox;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileNotificationSinkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendsOneJsonLinePerMessage() throws Exception {
+        Path file = dir.resolve("notifications.jsonl");
+        FileNotificationSink sink = new FileNotificationSink(file.toString(), objectMapper);
+        NotificationOutbox first = message("Electricity bill due \"tomorrow\"\nPay now");
+        NotificationOutbox second = message("Rent due");
+
+        sink.send(first);
+        sink.send(second);
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(2);
+        JsonNode line = objectMapper.readTree(lines.get(0));
+        assertThat(line.get("id").asText()).isEqualTo(first.getId().toString());
+        assertThat(line.get("userId").asText()).isEqualTo(first.getUserId().toString());
+        assertThat(line.get("type").asText()).isEqualTo("BILL_DUE");
+        assertThat(line.get("message").asText()).isEqualTo(first.getMessage());
+        assertThat(objectMapper.readTree(lines.get(1)).get("message").asText()).isEqualTo("Rent due");
+    }
+
+    @Test
+    void concurrentSendsDoNotInterleaveLines() throws Exception {
+        Path file = dir.resolve("concurrent.jsonl");
+        FileNotificationSink sink = new FileNotificationSink(file.toString(), objectMapper);
+        int count = 200;
+
+        List<Future<?>> sends = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                NotificationOutbox message = message("Reminder " + i + " " + "x".repeat(500));
+                sends.add(executor.submit(() -> {
+                    sink.send(message);
+                    return null;
+                }));
+            }
+            for (Future<?> send : sends) {
+                send.get();
+            }
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(count);
+        Set<String> ids = new HashSet<>();
+        for (String line : lines) {
+            ids.add(objectMapper.readTree(line).get("id").asText());
+        }
+        assertThat(ids).hasSize(count);
+    }
+
+    private static NotificationOutbox message(String text) {
+        NotificationOutbox message = new NotificationOutbox();
+        message.setId(UUID.randomUUID());
+        message.setUserId(UUID.randomUUID());
+        message.setType("BILL_DUE");
+        message.setMessage(text);
+        return message;
+    }
+}
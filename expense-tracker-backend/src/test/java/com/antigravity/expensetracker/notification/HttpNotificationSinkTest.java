@@ -0,0 +1,98 @@
+package com.antigravity.expensetracker.notification;
+
+import com.antigravity.expensetracker.model.NotificationOutbox;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs the sink against a local stub push gateway
+class HttpNotificationSinkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicLong delayMs = new AtomicLong();
+    private HttpServer server;
+    private String url;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/notifications", exchange -> {
+            received.add(objectMapper.readTree(exchange.getRequestBody()));
+            try {
+                Thread.sleep(delayMs.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/notifications";
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void postsNotificationAsJson() {
+        HttpNotificationSink sink = new HttpNotificationSink(WebClient.builder(), url, 2000);
+        NotificationOutbox message = message();
+
+        sink.send(message);
+
+        assertThat(received).hasSize(1);
+        JsonNode body = received.get(0);
+        assertThat(body.get("id").asText()).isEqualTo(message.getId().toString());
+        assertThat(body.get("userId").asText()).isEqualTo(message.getUserId().toString());
+        assertThat(body.get("type").asText()).isEqualTo("BILL_DUE");
+        assertThat(body.get("message").asText()).isEqualTo("Electricity bill due tomorrow");
+    }
+
+    @Test
+    void serverErrorFailsTheSendSoItIsRetried() {
+        status.set(503);
+        HttpNotificationSink sink = new HttpNotificationSink(WebClient.builder(), url, 2000);
+
+        assertThatThrownBy(() -> sink.send(message()))
+                .isInstanceOf(WebClientResponseException.class)
+                .satisfies(e -> assertThat(((WebClientResponseException) e).getStatusCode().value())
+                        .isEqualTo(503));
+    }
+
+    @Test
+    void slowGatewayTimesOut() {
+        delayMs.set(1000);
+        HttpNotificationSink sink = new HttpNotificationSink(WebClient.builder(), url, 100);
+
+        assertThatThrownBy(() -> sink.send(message())).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static NotificationOutbox message() {
+        NotificationOutbox message = new NotificationOutbox();
+        message.setId(UUID.randomUUID());
+        message.setUserId(UUID.randomUUID());
+        message.setType("BILL_DUE");
+        message.setMessage("Electricity bill due tomorrow");
+        return message;
+    }
+}
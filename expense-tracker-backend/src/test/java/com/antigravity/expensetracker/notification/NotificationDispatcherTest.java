@@ -0,0 +1,149 @@
+package com.antigravity.expensetracker.notification;
+
+import com.antigravity.expensetracker.model.NotificationOutbox;
+import com.antigravity.expensetracker.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Retry, failure and rate-limit transitions against a mocked outbox and sink
+class NotificationDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final NotificationOutboxRepository outboxRepository = mock(NotificationOutboxRepository.class);
+    private final List<NotificationOutbox> delivered = new ArrayList<>();
+    private volatile boolean sinkFails;
+
+    @BeforeEach
+    void setUp() {
+        when(outboxRepository.lockDue(any(), anyInt())).thenReturn(List.of());
+    }
+
+    @Test
+    void failedSendsBackOffExponentially() {
+        sinkFails = true;
+        NotificationOutbox first = message(UUID.randomUUID(), 0);
+        NotificationOutbox second = message(UUID.randomUUID(), 1);
+
+        dispatch(5, first, second);
+
+        assertThat(first.getStatus()).isEqualTo(NotificationOutbox.STATUS_PENDING);
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(first.getNextAttemptAt())
+                .isCloseTo(LocalDateTime.now().plusSeconds(30), within(5, ChronoUnit.SECONDS));
+        assertThat(second.getAttempts()).isEqualTo(2);
+        assertThat(second.getNextAttemptAt())
+                .isCloseTo(LocalDateTime.now().plusSeconds(60), within(5, ChronoUnit.SECONDS));
+        assertThat(first.getLastError()).isEqualTo("sink down");
+        assertThat(first.getLockedUntil()).isNull();
+        verify(outboxRepository).saveAll(List.of(first, second));
+        verify(outboxRepository, never()).markSent(any(), any());
+    }
+
+    @Test
+    void lastAttemptMarksTheMessageFailed() {
+        sinkFails = true;
+        NotificationOutbox message = message(UUID.randomUUID(), MAX_ATTEMPTS - 1);
+
+        dispatch(5, message);
+
+        assertThat(message.getStatus()).isEqualTo(NotificationOutbox.STATUS_FAILED);
+        assertThat(message.getAttempts()).isEqualTo(MAX_ATTEMPTS);
+        assertThat(message.getLastError()).isEqualTo("sink down");
+    }
+
+    @Test
+    void overTheUserLimitWaitsForTheWindowToReset() {
+        UUID userId = UUID.randomUUID();
+        NotificationOutbox sent = message(userId, 0);
+        NotificationOutbox deferred = message(userId, 0);
+
+        dispatch(1, sent, deferred);
+
+        assertThat(delivered).containsExactly(sent);
+        verify(outboxRepository).markSent(eq(List.of(sent.getId())), any());
+        assertThat(deferred.getStatus()).isEqualTo(NotificationOutbox.STATUS_PENDING);
+        assertThat(deferred.getAttempts()).isZero(); // Deferring is not a failed attempt
+        assertThat(deferred.getNextAttemptAt())
+                .isCloseTo(LocalDateTime.now().plusMinutes(60), within(5, ChronoUnit.SECONDS));
+        verify(outboxRepository).saveAll(List.of(deferred));
+    }
+
+    @Test
+    void expiredClaimIsSentAgain() {
+        NotificationOutbox stale = message(UUID.randomUUID(), 0);
+        stale.setStatus(NotificationOutbox.STATUS_SENDING); // A dispatcher died mid-send
+        stale.setLockedUntil(LocalDateTime.now().minusMinutes(1));
+
+        dispatch(5, stale);
+
+        verify(outboxRepository).markSending(eq(List.of(stale.getId())), any());
+        assertThat(delivered).containsExactly(stale);
+        verify(outboxRepository).markSent(eq(List.of(stale.getId())), any());
+    }
+
+    private void dispatch(int perUserLimit, NotificationOutbox... due) {
+        when(outboxRepository.lockDue(any(), anyInt())).thenReturn(List.of(due), List.of());
+        NotificationSink sink = new NotificationSink() {
+            @Override
+            public String name() {
+                return "stub";
+            }
+
+            @Override
+            public void send(NotificationOutbox message) throws Exception {
+                if (sinkFails) {
+                    throw new IllegalStateException("sink down");
+                }
+                synchronized (delivered) {
+                    delivered.add(message);
+                }
+            }
+        };
+        NotificationDispatcher dispatcher = new NotificationDispatcher(outboxRepository, sink,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleAsyncTaskExecutor(),
+                new SimpleMeterRegistry(), perUserLimit, 60);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+        ReflectionTestUtils.setField(dispatcher, "maxBatchesPerRun", 20);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffSeconds", 30L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMinutes", 60L);
+        ReflectionTestUtils.setField(dispatcher, "claimMinutes", 5L);
+        dispatcher.dispatch();
+    }
+
+    private static NotificationOutbox message(UUID userId, int attempts) {
+        NotificationOutbox message = new NotificationOutbox();
+        message.setId(UUID.randomUUID());
+        message.setUserId(userId);
+        message.setType("BILL_DUE");
+        message.setDedupeKey(UUID.randomUUID().toString());
+        message.setMessage("Rent due");
+        message.setStatus(NotificationOutbox.STATUS_PENDING);
+        message.setAttempts(attempts);
+        message.setNextAttemptAt(LocalDateTime.now());
+        message.setCreatedAt(LocalDateTime.now());
+        return message;
+    }
+}
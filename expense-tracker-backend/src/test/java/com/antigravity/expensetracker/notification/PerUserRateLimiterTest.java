@@ -0,0 +1,49 @@
+package com.antigravity.expensetracker.notification;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerUserRateLimiterTest {
+
+    private final PerUserRateLimiter limiter = new PerUserRateLimiter(2, Duration.ofMinutes(60));
+    private final Instant start = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Test
+    void defersPastTheLimitUntilTheWindowResets() {
+        UUID userId = UUID.randomUUID();
+
+        assertThat(limiter.tryAcquire(userId, start)).isNull();
+        assertThat(limiter.tryAcquire(userId, start.plusSeconds(60))).isNull();
+        assertThat(limiter.tryAcquire(userId, start.plusSeconds(120))).isEqualTo(start.plus(Duration.ofMinutes(60)));
+        // The window runs from the first message, not the last
+        assertThat(limiter.tryAcquire(userId, start.plus(Duration.ofMinutes(60)))).isNull();
+    }
+
+    @Test
+    void countsEachUserSeparately() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        limiter.tryAcquire(first, start);
+        limiter.tryAcquire(first, start);
+
+        assertThat(limiter.tryAcquire(first, start)).isNotNull();
+        assertThat(limiter.tryAcquire(second, start)).isNull();
+        assertThat(limiter.tryAcquire(null, start)).isNull();
+    }
+
+    @Test
+    void evictedWindowsStartOver() {
+        UUID userId = UUID.randomUUID();
+        limiter.tryAcquire(userId, start);
+        limiter.tryAcquire(userId, start);
+
+        limiter.evictExpired(start.plus(Duration.ofMinutes(61)));
+
+        assertThat(limiter.tryAcquire(userId, start.plus(Duration.ofMinutes(61)))).isNull();
+    }
+}
@@ -0,0 +1,67 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Bill;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BillMatchIndexTest {
+
+    private static final LocalDateTime DUE = LocalDateTime.of(2024, 3, 10, 0, 0);
+
+    @Test
+    void matchesByCanonicalMerchantId() {
+        Bill bill = bill("Netflix", 7L, "649");
+        BillMatchIndex index = new BillMatchIndex(List.of(bill), Bill::getMerchantId, 1);
+
+        assertThat(index.findMatch(7L, "NFLX DIGITAL", new BigDecimal("649"), DUE.plusDays(1)))
+                .isEqualTo(bill.getId());
+        assertThat(index.hasMerchant(7L)).isTrue();
+    }
+
+    @Test
+    void keepsTwoWayNameMatchingWhenIdsDiffer() {
+        Bill bill = bill("Netflix", 7L, "649");
+        BillMatchIndex index = new BillMatchIndex(List.of(bill), Bill::getMerchantId, 1);
+
+        assertThat(index.findMatch(8L, "NETFLIX.COM", new BigDecimal("649"), DUE)).isEqualTo(bill.getId());
+        assertThat(index.findMatch(null, "flix", new BigDecimal("649"), DUE)).isEqualTo(bill.getId());
+    }
+
+    @Test
+    void rejectsOtherMerchantsAmountsAndDates() {
+        Bill bill = bill("Netflix", 7L, "649");
+        BillMatchIndex index = new BillMatchIndex(List.of(bill), Bill::getMerchantId, 1);
+
+        assertThat(index.findMatch(8L, "Spotify", new BigDecimal("649"), DUE)).isNull();
+        assertThat(index.findMatch(7L, "Netflix", new BigDecimal("700"), DUE)).isNull();
+        assertThat(index.findMatch(7L, "Netflix", new BigDecimal("649"), DUE.plusDays(7))).isNull();
+        assertThat(index.findMatch(null, " ", new BigDecimal("649"), DUE)).isNull();
+    }
+
+    @Test
+    void closestDueDateWins() {
+        Bill march = bill("Rent", 1L, "20000");
+        Bill april = bill("Rent", 1L, "20000");
+        april.setDueDate(DUE.plusDays(10));
+        BillMatchIndex index = new BillMatchIndex(List.of(march, april), Bill::getMerchantId, 1);
+
+        assertThat(index.findMatch(1L, "Rent", new BigDecimal("20000"), DUE.plusDays(6))).isEqualTo(april.getId());
+        assertThat(index.findMatch(1L, "Rent", new BigDecimal("20000"), DUE.plusDays(2))).isEqualTo(march.getId());
+    }
+
+    private static Bill bill(String merchant, Long merchantId, String amount) {
+        Bill bill = new Bill();
+        bill.setId(UUID.randomUUID());
+        bill.setMerchant(merchant);
+        bill.setMerchantId(merchantId);
+        bill.setAmount(new BigDecimal(amount));
+        bill.setDueDate(DUE);
+        return bill;
+    }
+}
@@ -0,0 +1,142 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository.CategoryMerchantTotal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ChatIntentServiceTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private ExpenseRepository expenseRepository;
+    private BillRepository billRepository;
+    private MerchantService merchantService;
+    private ChatIntentService chatIntentService;
+
+    @BeforeEach
+    void setUp() {
+        expenseRepository = mock(ExpenseRepository.class);
+        billRepository = mock(BillRepository.class);
+        merchantService = mock(MerchantService.class);
+        // Any leftover word would match a merchant, so only the escalation rules keep these local answers out
+        when(merchantService.find(anyString())).thenReturn(42L);
+        when(merchantService.getDisplayName(42L)).thenReturn("Swiggy");
+        when(expenseRepository.sumByCategoryAndMerchant(eq(userId), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(List.of(total("Food", 42L, "1250", 3)));
+        chatIntentService = new ChatIntentService(expenseRepository, billRepository, merchantService);
+    }
+
+    @Test
+    void answersCategorySpendForANamedRange() {
+        Optional<String> answer = chatIntentService.tryAnswer(userId, "How much did I spend on food last month?");
+
+        assertThat(answer).contains("You spent ₹1,250 on Food last month (3 transactions).");
+        YearMonth last = YearMonth.now().minusMonths(1);
+        verify(expenseRepository).sumByCategoryAndMerchant(userId, last.atDay(1).atStartOfDay(),
+                last.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    @Test
+    void countsOrdersAtAMerchant() {
+        Optional<String> answer = chatIntentService.tryAnswer(userId, "how many swiggy orders this week");
+
+        assertThat(answer).hasValueSatisfying(text -> assertThat(text).startsWith("You made 3 transactions at Swiggy"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "how much was I paid last month",
+            "how much salary did I get in march",
+            "how much did I receive this month",
+            "total credited this week",
+            "how much money do I have",
+            "what is my balance",
+            "how much budget is left this month",
+            "how much have I saved this year",
+            "have I paid my electricity bill due this week",
+            "did I pay the rent bill due today",
+            "how much did I pay for netflix"
+    })
+    void incomeBalanceAndBillStatusQuestionsGoToTheLlm(String question) {
+        assertThat(chatIntentService.tryAnswer(userId, question)).isEmpty();
+        verifyNoInteractions(expenseRepository, billRepository);
+    }
+
+    @Test
+    void modalMayIsNotAMonth() {
+        assertThat(chatIntentService.tryAnswer(userId, "May I know how much I spent on food")).isEmpty();
+        assertThat(chatIntentService.tryAnswer(userId, "how much spending on food may be too much")).isEmpty();
+        verifyNoInteractions(expenseRepository);
+    }
+
+    @Test
+    void mayWithDateContextIsTheMonth() {
+        Optional<String> answer = chatIntentService.tryAnswer(userId, "how much did I spend on food in may 2025");
+
+        assertThat(answer).hasValueSatisfying(text -> assertThat(text).contains("in May 2025"));
+        verify(expenseRepository).sumByCategoryAndMerchant(userId, LocalDate.of(2025, 5, 1).atStartOfDay(),
+                LocalDate.of(2025, 6, 1).atStartOfDay());
+    }
+
+    @Test
+    void listsBillsDueThisWeek() {
+        Bill bill = new Bill();
+        bill.setMerchant("Airtel");
+        bill.setAmount(new BigDecimal("499"));
+        bill.setDueDate(LocalDate.now().atStartOfDay());
+        when(billRepository.findByUserIdAndIsPaidFalseOrderByDueDateAsc(userId)).thenReturn(List.of(bill));
+        when(merchantService.idOf(bill)).thenReturn(7L);
+        when(merchantService.getDisplayName(7L)).thenReturn("Airtel");
+
+        Optional<String> answer = chatIntentService.tryAnswer(userId, "what bills are due this week");
+
+        assertThat(answer).hasValueSatisfying(text -> assertThat(text)
+                .startsWith("You have 1 unpaid bill due this week, totalling ₹499:")
+                .contains("- Airtel ₹499 due " + LocalDate.now()));
+    }
+
+    private static CategoryMerchantTotal total(String category, Long merchantId, String amount, long count) {
+        return new CategoryMerchantTotal() {
+            @Override
+            public String getCategory() {
+                return category;
+            }
+
+            @Override
+            public Long getMerchantId() {
+                return merchantId;
+            }
+
+            @Override
+            public BigDecimal getTotal() {
+                return new BigDecimal(amount);
+            }
+
+            @Override
+            public Long getTxnCount() {
+                return count;
+            }
+        };
+    }
+}
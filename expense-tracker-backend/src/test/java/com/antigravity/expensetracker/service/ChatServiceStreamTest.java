@@ -0,0 +1,182 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.llm.LlmClient;
+import com.antigravity.expensetracker.service.ChatContextService.ChatContext;
+import com.antigravity.expensetracker.service.ChatQuotaService.Reservation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Streams a chat answer end to end (ChatService, GeminiService, LlmClient and the real
+// WebClient) against a local stub that speaks the OpenAI SSE format
+class ChatServiceStreamTest {
+
+    private static final long IDLE_TIMEOUT_MS = 300;
+
+    private final UUID userId = UUID.randomUUID();
+    private final Reservation reservation = new Reservation(userId, LocalDate.now(), 4);
+    private final CountDownLatch stopStalling = new CountDownLatch(1);
+    private final CountDownLatch disconnected = new CountDownLatch(1);
+    private volatile List<String> frames = List.of();
+    private volatile boolean stallAfterFrames;
+    private HttpServer server;
+    private ChatQuotaService chatQuotaService;
+    private ChatContextService chatContextService;
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/chat/completions", this::serve);
+        server.start();
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("openai.api.url",
+                        "http://localhost:" + server.getAddress().getPort() + "/v1/chat/completions");
+        LlmClient llmClient = new LlmClient(WebClient.builder(), new ObjectMapper(), new SimpleMeterRegistry(),
+                environment, 8, 1, 64, 3.0, IDLE_TIMEOUT_MS);
+        GeminiService geminiService = new GeminiService(llmClient, new ObjectMapper(), mock(RequestCoalescer.class));
+
+        chatQuotaService = mock(ChatQuotaService.class);
+        when(chatQuotaService.reserve(userId)).thenReturn(reservation);
+        ChatIntentService chatIntentService = mock(ChatIntentService.class);
+        when(chatIntentService.tryAnswer(any(), anyString())).thenReturn(Optional.empty());
+        chatContextService = mock(ChatContextService.class);
+        when(chatContextService.getContext(userId))
+                .thenReturn(new ChatContext(1, LocalDate.now(), "No expenses yet.", 4));
+        TransactionSearchService transactionSearchService = mock(TransactionSearchService.class);
+        when(transactionSearchService.search(any(), anyString(), anyInt())).thenReturn(List.of());
+
+        chatService = new ChatService(chatQuotaService, chatIntentService, mock(ChatToolService.class),
+                transactionSearchService, chatContextService, geminiService,
+                new FanOut(new SimpleAsyncTaskExecutor(), 5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stopStalling.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void relaysDeltasSplitAcrossNetworkChunks() {
+        // Frames deliberately break mid-event and mid-JSON
+        frames = List.of(
+                "data: " + delta("Hel") + "\n\ndata: {\"choices\":[{\"del",
+                "ta\":{\"content\":\"lo\"}}]}\n\n",
+                "data: " + delta(" there") + "\n",
+                "\ndata: [DONE]\n\n");
+
+        List<ServerSentEvent<String>> events = chatService.streamUserMessage(userId, "hi", List.of())
+                .collectList().block(Duration.ofSeconds(10));
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("token", "token", "token", "done");
+        assertThat(events).extracting(ServerSentEvent::data).containsExactly("Hel", "lo", " there", "4");
+        verify(chatQuotaService, never()).release(any());
+    }
+
+    @Test
+    void idleStreamFailsAndHandsTheQuotaBack() {
+        frames = List.of("data: " + delta("Thinking") + "\n\n");
+        stallAfterFrames = true;
+
+        List<ServerSentEvent<String>> events = chatService.streamUserMessage(userId, "hi", List.of())
+                .collectList().block(Duration.ofSeconds(10));
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("token", "error");
+        verify(chatQuotaService, timeout(2000)).release(reservation);
+    }
+
+    @Test
+    void clientLeavingBeforeDoneStillUsesTheQuota() throws InterruptedException {
+        frames = List.of("data: " + delta("Part") + "\n\n");
+        stallAfterFrames = true;
+
+        List<ServerSentEvent<String>> events = chatService.streamUserMessage(userId, "hi", List.of())
+                .take(1).collectList().block(Duration.ofSeconds(10));
+
+        assertThat(events).extracting(ServerSentEvent::data).containsExactly("Part");
+        // The upstream request is cancelled, and the message stays counted
+        assertThat(disconnected.await(IDLE_TIMEOUT_MS * 10, TimeUnit.MILLISECONDS)).isTrue();
+        verify(chatQuotaService, never()).release(any());
+    }
+
+    @Test
+    void failedContextEndsWithAnErrorEventAndHandsTheQuotaBack() {
+        when(chatContextService.getContext(userId)).thenThrow(new FanOutTimeoutException("Too slow"));
+
+        List<ServerSentEvent<String>> events = chatService.streamUserMessage(userId, "hi", List.of())
+                .collectList().block(Duration.ofSeconds(10));
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("error");
+        verify(chatQuotaService).release(reservation);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (String frame : frames) {
+                out.write(frame.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                pause(20);
+            }
+            if (stallAfterFrames) {
+                // Keep probing until the client hangs up or the test ends
+                while (!stopStalling.await(50, TimeUnit.MILLISECONDS)) {
+                    out.write(":\n".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            disconnected.countDown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String delta(String text) {
+        return "{\"choices\":[{\"delta\":{\"content\":\"" + text + "\"}}]}";
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
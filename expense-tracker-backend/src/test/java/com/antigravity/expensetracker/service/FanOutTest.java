@@ -0,0 +1,63 @@
+package com.antigravity.expensetracker.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FanOutTest {
+
+    @Test
+    void forksBeyondTheCapRunInTheCaller() {
+        FanOut fanOut = new FanOut(new SimpleAsyncTaskExecutor(), 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+
+        try (FanOut.Scope scope = fanOut.open(Duration.ofSeconds(5))) {
+            Supplier<Boolean> first = scope.fork(() -> release.await(5, TimeUnit.SECONDS));
+            Supplier<Thread> second = scope.fork(Thread::currentThread); // No slot left: runs here
+            release.countDown();
+            scope.join();
+
+            assertThat(first.get()).isTrue();
+            assertThat(second.get()).isSameAs(caller);
+        }
+    }
+
+    @Test
+    void subtasksCancelledAfterAFailureNeverRun() {
+        FanOut fanOut = new FanOut(new SimpleAsyncTaskExecutor(), 0);
+        AtomicInteger ran = new AtomicInteger();
+
+        try (FanOut.Scope scope = fanOut.open(Duration.ofSeconds(5))) {
+            scope.fork(() -> {
+                throw new IllegalStateException("boom");
+            });
+            scope.fork(ran::incrementAndGet);
+
+            assertThatThrownBy(scope::join).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+        }
+        assertThat(ran).hasValue(0);
+    }
+
+    @Test
+    void deadlineFailsWithATimeout() {
+        FanOut fanOut = new FanOut(new SimpleAsyncTaskExecutor(), 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (FanOut.Scope scope = fanOut.open(Duration.ofMillis(50))) {
+            scope.fork(() -> release.await(5, TimeUnit.SECONDS));
+
+            assertThatThrownBy(scope::join).isInstanceOf(FanOutTimeoutException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.dto.CashFlowForecast;
+import com.antigravity.expensetracker.dto.ForecastBill;
+import com.antigravity.expensetracker.dto.ForecastMonth;
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ForecastServiceTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private ExpenseRepository expenseRepository;
+    private BillRepository billRepository;
+    private SyncService syncService;
+    private ForecastService forecastService;
+
+    @BeforeEach
+    void setUp() {
+        expenseRepository = mock(ExpenseRepository.class);
+        billRepository = mock(BillRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        syncService = mock(SyncService.class);
+        when(expenseRepository.sumDailyByCategory(eq(userId), any(LocalDateTime.class))).thenReturn(List.of());
+        when(expenseRepository.findExpensesVersion(userId)).thenReturn(1L);
+        when(billRepository.findBillsVersion(userId)).thenReturn(1L);
+        when(userRepository.findMonthlyBudget(userId)).thenReturn(50000.0);
+        when(syncService.getCurrentVersion(userId)).thenReturn(1L);
+        forecastService = new ForecastService(expenseRepository, billRepository, userRepository, syncService,
+                new ConcurrentMapCacheManager(ForecastService.CACHE_NAME));
+    }
+
+    @Test
+    void overdueBillIsChargedOnceThenFollowsItsSchedule() {
+        LocalDate today = LocalDate.now();
+        when(billRepository.findByUserId(userId)).thenReturn(List.of(bill("Rent", today.minusMonths(3))));
+
+        CashFlowForecast forecast = forecastService.getForecast(userId, 2);
+
+        List<ForecastBill> thisMonth = forecast.getMonths().get(0).getBills();
+        assertThat(thisMonth).extracting(ForecastBill::getDate).containsExactly(today);
+        List<LocalDate> later = forecast.getMonths().stream().skip(1).map(ForecastMonth::getBills)
+                .flatMap(List::stream).map(ForecastBill::getDate).toList();
+        assertThat(later).containsExactly(today.minusMonths(3).plusMonths(4));
+    }
+
+    @Test
+    void reusesInputsUntilTheSyncVersionMoves() {
+        LocalDate today = LocalDate.now();
+        when(billRepository.findByUserId(userId)).thenReturn(List.of(bill("Rent", today.plusDays(1))));
+
+        forecastService.getCurrentMonth(userId);
+        forecastService.getCurrentMonth(userId);
+        verify(billRepository, times(1)).findByUserId(userId);
+        verify(billRepository, times(1)).findBillsVersion(userId);
+
+        // A write on another node: only bills moved, so spend rates are not reloaded
+        when(syncService.getCurrentVersion(userId)).thenReturn(2L);
+        when(billRepository.findBillsVersion(userId)).thenReturn(2L);
+        when(billRepository.findByUserId(userId)).thenReturn(List.of());
+        ForecastMonth month = forecastService.getCurrentMonth(userId);
+
+        assertThat(month.getBills()).isEmpty();
+        verify(billRepository, times(2)).findByUserId(userId);
+        verify(expenseRepository, times(1)).sumDailyByCategory(eq(userId), any(LocalDateTime.class));
+    }
+
+    private static Bill bill(String merchant, LocalDate dueDate) {
+        Bill bill = new Bill();
+        bill.setMerchant(merchant);
+        bill.setCategory("Housing");
+        bill.setAmount(new BigDecimal("1000"));
+        bill.setDueDate(dueDate.atStartOfDay());
+        bill.setFrequency("MONTHLY");
+        return bill;
+    }
+}
@@ -0,0 +1,105 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.dto.Suggestion;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository.CategoryMerchantTotal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InsightsEngineTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private ExpenseRepository expenseRepository;
+    private MerchantService merchantService;
+    private InsightsEngine insightsEngine;
+
+    @BeforeEach
+    void setUp() {
+        expenseRepository = mock(ExpenseRepository.class);
+        merchantService = mock(MerchantService.class);
+        insightsEngine = new InsightsEngine(expenseRepository, mock(BillRepository.class), merchantService);
+    }
+
+    @Test
+    void flagsCategoriesWellAboveTheirUsualMonth() {
+        // Baselines cover 90 days, so each is three times the usual month
+        given(List.of(row("Food", 1600), row("Transport", 1400), row("Shopping", 12000)),
+                List.of(row("Food", 3000), row("Transport", 3000), row("Shopping", 30000)));
+
+        List<Suggestion> suggestions = insightsEngine.analyze(userId);
+
+        // Transport is up 40% but only ₹400; Shopping is ₹2,000 over but only up 20%
+        assertThat(suggestions).extracting(Suggestion::getId).containsExactly("spike-Food");
+        assertThat(suggestions.get(0).getTitle()).isEqualTo("Food spending is up 60%");
+        assertThat(suggestions.get(0).getPotentialSavings()).isEqualTo(600.0);
+    }
+
+    @Test
+    void flagsMerchantsVisitedMoreOftenThanUsual() {
+        when(merchantService.getDisplayName(7L)).thenReturn("Swiggy");
+        when(merchantService.getDisplayName(8L)).thenReturn("Zomato");
+        when(merchantService.getDisplayName(9L)).thenReturn("Uber");
+        given(List.of(visits(7L, 4), visits(8L, 3), visits(9L, 5)),
+                List.of(visits(7L, 3), visits(9L, 9)));
+
+        List<Suggestion> suggestions = insightsEngine.analyze(userId);
+
+        // Zomato is below the minimum visit count; Uber is under 1.5x its usual pace plus one
+        assertThat(suggestions).extracting(Suggestion::getId).containsExactly("frequency-7");
+        assertThat(suggestions.get(0).getTitle()).isEqualTo("More frequent Swiggy orders");
+        assertThat(suggestions.get(0).getPotentialSavings()).isEqualTo(300.0);
+    }
+
+    @Test
+    void skipsMerchantsWithoutADisplayName() {
+        given(List.of(visits(7L, 6)), List.of());
+
+        assertThat(insightsEngine.analyze(userId)).isEmpty();
+    }
+
+    private void given(List<CategoryMerchantTotal> current, List<CategoryMerchantTotal> baseline) {
+        when(expenseRepository.sumByCategoryAndMerchant(any(), any(), any())).thenReturn(current, baseline);
+    }
+
+    private static CategoryMerchantTotal row(String category, double total) {
+        return new Row(category, null, BigDecimal.valueOf(total), 1L);
+    }
+
+    // ₹100 a visit, in one category per merchant so no category spike is reported
+    private static CategoryMerchantTotal visits(Long merchantId, long count) {
+        return new Row("Merchant " + merchantId, merchantId, BigDecimal.valueOf(100 * count), count);
+    }
+
+    private record Row(String category, Long merchantId, BigDecimal total, Long txnCount)
+            implements CategoryMerchantTotal {
+        @Override
+        public String getCategory() {
+            return category;
+        }
+
+        @Override
+        public Long getMerchantId() {
+            return merchantId;
+        }
+
+        @Override
+        public BigDecimal getTotal() {
+            return total;
+        }
+
+        @Override
+        public Long getTxnCount() {
+            return txnCount;
+        }
+    }
+}
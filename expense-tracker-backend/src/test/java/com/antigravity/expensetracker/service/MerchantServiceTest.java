@@ -0,0 +1,155 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Expense;
+import com.antigravity.expensetracker.model.Merchant;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.MerchantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MerchantServiceTest {
+
+    private final List<Merchant> stored = new ArrayList<>();
+    private MerchantRepository merchantRepository;
+    private MerchantService merchantService;
+
+    @BeforeEach
+    void setUp() {
+        merchantRepository = mock(MerchantRepository.class);
+        when(merchantRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(stored));
+        when(merchantRepository.findByIdGreaterThanOrderByIdAsc(anyLong())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return stored.stream().filter(m -> m.getId() > after).toList();
+        });
+        when(merchantRepository.insertIfAbsent(anyString(), anyString(), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> {
+                    String key = invocation.getArgument(0);
+                    if (stored.stream().anyMatch(m -> m.getNormalizedKey().equals(key))) {
+                        return 0;
+                    }
+                    stored.add(new Merchant((long) stored.size() + 1, key, invocation.getArgument(1),
+                            LocalDateTime.now()));
+                    return 1;
+                });
+        when(merchantRepository.findByNormalizedKey(anyString())).thenAnswer(invocation -> stored.stream()
+                .filter(m -> m.getNormalizedKey().equals(invocation.getArgument(0))).findFirst());
+        merchantService = new MerchantService(merchantRepository, mock(ExpenseRepository.class),
+                mock(BillRepository.class), mock(AsyncTaskExecutor.class));
+    }
+
+    @Test
+    void keysOnTheWholeNameWithoutNoise() {
+        assertThat(MerchantService.normalizedKey("Reliance Fresh Pvt Ltd")).isEqualTo("reliancefresh");
+        assertThat(MerchantService.normalizedKey("UPI/P2M/412345678/swiggy@icici/Payment")).isEqualTo("swiggy");
+        assertThat(MerchantService.normalizedKey("Starbucks Mumbai")).isEqualTo("starbucks");
+        assertThat(MerchantService.normalizedKey("Haldiram New Delhi")).isEqualTo("haldiram");
+        assertThat(MerchantService.normalizedKey("Pune")).isEqualTo("pune");
+        assertThat(MerchantService.normalizedKey("RAHUL SHARMA")).isEqualTo("rahulsharma");
+        assertThat(MerchantService.normalizedKey("   ")).isEqualTo("unknown");
+    }
+
+    @Test
+    void distinctMerchantsSharingAFirstWordStayApart() {
+        assertDistinct("Reliance Digital", "Reliance Fresh");
+        assertDistinct("Amazon Pay", "Amazon Prime");
+        assertDistinct("UPI/P2A/1234/RAHUL SHARMA/x", "UPI/P2A/5678/RAHUL VERMA/x");
+        assertDistinct("Swiggy", "Swiggy Instamart");
+    }
+
+    @Test
+    void variantsOfOneMerchantResolveToTheSameId() {
+        Long id = merchantService.resolve("SWIGGY");
+
+        assertThat(merchantService.resolve("Swiggy Pvt Ltd")).isEqualTo(id);
+        assertThat(merchantService.resolve("UPI/P2M/9988/swiggy@icici/Food")).isEqualTo(id);
+        assertThat(merchantService.resolve("SWIGGY INSTAMRT")).isEqualTo(merchantService.resolve("Swiggy Instamart"));
+    }
+
+    @Test
+    void readPathsNeverCreateMerchants() {
+        Expense expense = new Expense();
+        expense.setMerchant("Brand New Cafe");
+
+        assertThat(merchantService.idOf(expense)).isNull();
+        assertThat(merchantService.find("Brand New Cafe")).isNull();
+        verify(merchantRepository, never()).insertIfAbsent(anyString(), anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void picksUpMerchantsCreatedOnAnotherNode() {
+        merchantService.resolve("Zomato"); // Loads the dictionary
+        stored.add(new Merchant(100L, "bigbasket", "BigBasket", LocalDateTime.now()));
+
+        assertThat(merchantService.resolve("Big Basket")).isEqualTo(100L);
+    }
+
+    @Test
+    void batchResolvesEachNameOnceWithOneReload() {
+        Long zomato = merchantService.resolve("Zomato"); // Loads the dictionary
+        clearInvocations(merchantRepository);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Map<String, Long> ids = merchantService.resolveAll(Arrays.asList(
+                    "ZOMATO", "Blue Tokai", "Blue Tokai Mumbai", null, "Blue Tokai", "Third Wave"));
+
+            assertThat(ids.get("ZOMATO")).isEqualTo(zomato);
+            assertThat(ids.get("Blue Tokai Mumbai")).isEqualTo(ids.get("Blue Tokai"));
+            assertThat(ids.get("Third Wave")).isNotNull().isNotEqualTo(ids.get("Blue Tokai"));
+            verify(merchantRepository, times(1)).findByIdGreaterThanOrderByIdAsc(anyLong());
+            verify(merchantRepository, times(2)).insertIfAbsent(anyString(), anyString(), any(LocalDateTime.class));
+        } finally {
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rolledBackMerchantsNeverEnterTheDictionary() {
+        merchantService.resolve("Zomato"); // Loads the dictionary
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Long first = merchantService.resolve("Cafe Coffee Day");
+            // A miss reloads through the same connection, which sees the first uncommitted row
+            Long second = merchantService.resolve("Blue Tokai");
+            assertThat(second).isNotEqualTo(first);
+
+            stored.removeIf(m -> m.getId().equals(first) || m.getId().equals(second));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(merchantService.find("Cafe Coffee Day")).isNull();
+        assertThat(merchantService.find("Blue Tokai")).isNull();
+        assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+    }
+
+    private void assertDistinct(String first, String second) {
+        assertThat(merchantService.resolve(first)).isNotEqualTo(merchantService.resolve(second));
+    }
+}
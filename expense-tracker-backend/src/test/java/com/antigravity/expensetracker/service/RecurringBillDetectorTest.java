@@ -0,0 +1,100 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.Bill;
+import com.antigravity.expensetracker.repository.BillRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository;
+import com.antigravity.expensetracker.repository.ExpenseRepository.MerchantHistoryRow;
+import com.antigravity.expensetracker.repository.SchedulerLeaseRepository;
+import com.antigravity.expensetracker.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecurringBillDetectorTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private final LocalDate today = LocalDate.now();
+    private ExpenseRepository expenseRepository;
+    private BillService billService;
+    private RecurringBillDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        expenseRepository = mock(ExpenseRepository.class);
+        billService = mock(BillService.class);
+        detector = new RecurringBillDetector(expenseRepository, mock(BillRepository.class),
+                mock(UserRepository.class), billService, mock(MerchantService.class),
+                mock(SchedulerLeaseRepository.class), mock(AsyncTaskExecutor.class));
+    }
+
+    @Test
+    void twoPaymentsAYearApartAreAYearlySchedule() {
+        given(payment(today.minusDays(400)), payment(today.minusDays(35)));
+
+        assertThat(detector.detectForUser(userId)).isEqualTo(1);
+
+        ArgumentCaptor<Bill> bill = ArgumentCaptor.forClass(Bill.class);
+        verify(billService).saveDetectedBill(bill.capture());
+        assertThat(bill.getValue().getFrequency()).isEqualTo("YEARLY");
+        assertThat(bill.getValue().getDueDate().toLocalDate()).isEqualTo(today.minusDays(35).plusYears(1));
+    }
+
+    @Test
+    void twoPaymentsAMonthApartAreNotEnough() {
+        given(payment(today.minusDays(40)), payment(today.minusDays(10)));
+
+        assertThat(detector.detectForUser(userId)).isZero();
+        verify(billService, never()).saveDetectedBill(any());
+    }
+
+    private void given(MerchantHistoryRow... rows) {
+        when(expenseRepository.findMerchantHistory(eq(userId), any())).thenReturn(List.of(rows));
+    }
+
+    private static MerchantHistoryRow payment(LocalDate date) {
+        return new Row(7L, "Amazon Prime", "Entertainment", BigDecimal.valueOf(1499), date.atTime(9, 0));
+    }
+
+    private record Row(Long merchantId, String merchant, String category, BigDecimal amount,
+            LocalDateTime txnDate) implements MerchantHistoryRow {
+        @Override
+        public Long getMerchantId() {
+            return merchantId;
+        }
+
+        @Override
+        public String getMerchant() {
+            return merchant;
+        }
+
+        @Override
+        public String getCategory() {
+            return category;
+        }
+
+        @Override
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        @Override
+        public LocalDateTime getTxnDate() {
+            return txnDate;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.antigravity.expensetracker.service;
+
+import com.antigravity.expensetracker.model.User;
+import com.antigravity.expensetracker.repository.UserRepository;
+import com.antigravity.expensetracker.service.UserIdentityService.UserIdentity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserIdentityServiceTest {
+
+    private final UUID id = UUID.randomUUID();
+    private final ConcurrentMapCacheManager cacheManager =
+            new ConcurrentMapCacheManager(UserIdentityService.CACHE_NAME);
+    private UserRepository userRepository;
+    private UserIdentityService userIdentityService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userIdentityService = new UserIdentityService(userRepository, cacheManager);
+    }
+
+    @Test
+    void emailLookupIsServedFromTheIdEntry() {
+        when(userRepository.findByEmail("a@example.com")).thenReturn(Optional.of(user("a@example.com", "111")));
+
+        userIdentityService.findByEmail("a@example.com");
+        Optional<UserIdentity> again = userIdentityService.findByEmail("a@example.com");
+
+        assertThat(again).map(UserIdentity::id).contains(id);
+        verify(userRepository, times(1)).findByEmail("a@example.com");
+    }
+
+    @Test
+    void pointerIsNotFollowedOnceTheIdEntryIsGone() {
+        when(userRepository.findByEmail("a@example.com")).thenReturn(Optional.of(user("a@example.com", "111")));
+        userIdentityService.findByEmail("a@example.com");
+
+        // The id entry expired on its own while the email pointer is still there
+        cache().evict("id:" + id);
+        userIdentityService.findByEmail("a@example.com");
+
+        verify(userRepository, times(2)).findByEmail("a@example.com");
+    }
+
+    @Test
+    void oldEmailNoLongerResolvesAfterAProfileChange() {
+        when(userRepository.findByEmail("old@example.com")).thenReturn(Optional.of(user("old@example.com", "111")));
+        userIdentityService.findByEmail("old@example.com");
+
+        userIdentityService.evict(id);
+        when(userRepository.findById(id)).thenReturn(Optional.of(user("new@example.com", "111")));
+        userIdentityService.findById(id);
+        when(userRepository.findByEmail("old@example.com")).thenReturn(Optional.empty());
+
+        assertThat(userIdentityService.findByEmail("old@example.com")).isEmpty();
+        assertThat(userIdentityService.findByMobileNumber("111")).map(UserIdentity::email)
+                .contains("new@example.com");
+    }
+
+    @Test
+    void loadOverlappingAnEvictionIsNotCached() {
+        when(userRepository.findById(id)).thenAnswer(invocation -> {
+            User stale = user("old@example.com", "111");
+            userIdentityService.evict(id); // The profile write commits while the old row is in hand
+            return Optional.of(stale);
+        });
+
+        assertThat(userIdentityService.findById(id)).map(UserIdentity::email).contains("old@example.com");
+        assertThat(cache().get("id:" + id)).isNull();
+        assertThat(cache().get("email:old@example.com")).isNull();
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(UserIdentityService.CACHE_NAME);
+    }
+
+    private User user(String email, String mobileNumber) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setMobileNumber(mobileNumber);
+        return user;
+    }
+}